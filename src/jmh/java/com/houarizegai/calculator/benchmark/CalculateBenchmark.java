@@ -0,0 +1,78 @@
+package com.houarizegai.calculator.benchmark;
+
+import com.houarizegai.calculator.engine.Arithmetic;
+import com.houarizegai.calculator.engine.OperationCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operator cost of {@code CalculatorUI.calculate}. The UI method only delegates to {@link Arithmetic}, which is
+ * measured directly so the benchmark runs without a display. The {@code cached*} variants go through an
+ * {@link OperationCache} that always hits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculateBenchmark {
+
+    public double firstNumber = 44.5;
+    public double secondNumber = 3.25;
+
+    private final OperationCache cache = new OperationCache();
+
+    /**
+     * The operator of the binary benchmarks; the unary ones do not depend on it.
+     */
+    @State(Scope.Thread)
+    public static class Operation {
+
+        @Param({"+", "-", "*", "/", "%", "^"})
+        public String operator;
+
+        private char symbol;
+
+        @Setup
+        public void setUp() {
+            symbol = operator.charAt(0);
+        }
+    }
+
+    @Benchmark
+    public double calculate(Operation operation) {
+        return Arithmetic.calculate(firstNumber, secondNumber, operation.symbol);
+    }
+
+    @Benchmark
+    public double sqrt() {
+        return Arithmetic.sqrt(firstNumber);
+    }
+
+    @Benchmark
+    public double ln() {
+        return Arithmetic.ln(firstNumber);
+    }
+
+    @Benchmark
+    public double cachedCalculate(Operation operation) {
+        return cache.calculate(firstNumber, secondNumber, operation.symbol);
+    }
+
+    @Benchmark
+    public double cachedLn() {
+        return cache.ln(firstNumber);
+    }
+}
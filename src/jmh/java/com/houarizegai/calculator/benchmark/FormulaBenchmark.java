@@ -0,0 +1,80 @@
+package com.houarizegai.calculator.benchmark;
+
+import com.houarizegai.calculator.engine.ExpressionCompiler;
+import com.houarizegai.calculator.engine.Formula;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating {@link #SOURCE} over 1024 points in the interpreter tier, in the compiled tier, and written by
+ * hand in Java.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormulaBenchmark {
+
+    static final String SOURCE = "(x * x + y * y) / (1 + x * x + y * y) - sqrt(x * x + y * y) * 0.5 ^ 2";
+
+    private final double[] xs = new double[1024];
+    private final double[] ys = new double[1024];
+    private final double[] values = new double[2];
+    private Formula interpreted;
+    private Formula compiled;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = i * 0.01;
+            ys[i] = 5 - i * 0.003;
+        }
+        ExpressionCompiler.setThreshold(Integer.MAX_VALUE);
+        interpreted = Formula.parse(SOURCE);
+        compiled = Formula.parse(SOURCE);
+        compiled.compile();
+    }
+
+    @Benchmark
+    public double interpreted() {
+        return sum(interpreted);
+    }
+
+    @Benchmark
+    public double compiled() {
+        return sum(compiled);
+    }
+
+    @Benchmark
+    public double handWritten() {
+        double sum = 0;
+        for (int i = 0; i < xs.length; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            sum += (x * x + y * y) / (1 + x * x + y * y) - Math.sqrt(x * x + y * y) * Math.pow(0.5, 2);
+        }
+        return sum;
+    }
+
+    private double sum(Formula formula) {
+        double sum = 0;
+        for (int i = 0; i < xs.length; i++) {
+            values[0] = xs[i];
+            values[1] = ys[i];
+            sum += formula.evaluate(values);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,104 @@
+package com.houarizegai.calculator.benchmark;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.input.NumberInput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Keystroke and result-display paths of the button listeners. The {@code regex*} benchmarks replay the original
+ * listener code (string concatenation, {@code Pattern.matches}, {@code Double.parseDouble}, {@code (int)} cast) as a
+ * baseline for the {@link NumberInput} and {@link DoubleFormatter} paths that replaced it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputBenchmark {
+
+    private static final String DOUBLE_OR_NUMBER_REGEX = "([-]?\\d+[.]\\d*)|(\\d+)|(-\\d+)";
+
+    /**
+     * The keys typed by the keystroke benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class Typing {
+
+        @Param({"7", "123.45", "9876543210.125"})
+        public String keys;
+
+        private final NumberInput input = new NumberInput();
+    }
+
+    /**
+     * The result shown by the display benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class Display {
+
+        @Param({"8", "0.30000000000000004", "3.0E10"})
+        public double result;
+
+        private final char[] resultBuffer = new char[DoubleFormatter.MAX_LENGTH];
+    }
+
+    @Benchmark
+    public double regexTypeAndParse(Typing typing) {
+        String keys = typing.keys;
+        String display = "0";
+        for (int i = 0; i < keys.length(); i++) {
+            char key = keys.charAt(i);
+            if (key == '.') {
+                if (!display.contains("."))
+                    display = display + ".";
+            } else if (Pattern.matches("[0]*", display)) {
+                display = String.valueOf(key);
+            } else {
+                display = display + key;
+            }
+        }
+        return Pattern.matches(DOUBLE_OR_NUMBER_REGEX, display) ? Double.parseDouble(display) : 0;
+    }
+
+    @Benchmark
+    public double numberInputTypeAndParse(Typing typing) {
+        String keys = typing.keys;
+        NumberInput input = typing.input;
+        input.clear();
+        for (int i = 0; i < keys.length(); i++) {
+            char key = keys.charAt(i);
+            if (key == '.') {
+                input.appendPoint();
+            } else {
+                input.appendDigit(key - '0');
+            }
+        }
+        return input.isValid() ? input.doubleValue() : 0;
+    }
+
+    @Benchmark
+    public String regexFormatResult(Display display) {
+        double result = display.result;
+        if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(result))) {
+            return String.valueOf((int) result);
+        }
+        return String.valueOf(result);
+    }
+
+    @Benchmark
+    public int formatterFormatResult(Display display) {
+        return DoubleFormatter.DISPLAY.format(display.result, display.resultBuffer, 0);
+    }
+}
@@ -0,0 +1,52 @@
+package com.houarizegai.calculator.benchmark;
+
+import com.houarizegai.calculator.theme.ThemeLoader;
+import com.houarizegai.calculator.theme.ThemePalette;
+import com.houarizegai.calculator.theme.properties.Theme;
+import com.houarizegai.calculator.util.ColorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Theme loading and color parsing: {@code loadThemes} parses the bundled YAML with Jackson, {@code loadPalettes}
+ * reads the binary cache compiled at build time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ThemeBenchmark {
+
+    @Param({"f0f3f9", "4cc2ff"})
+    public String colorHex;
+
+    @Benchmark
+    public Map<String, Theme> loadThemes() {
+        return ThemeLoader.loadThemes();
+    }
+
+    @Benchmark
+    public Map<String, ThemePalette> loadPalettes() {
+        return ThemeLoader.loadPalettes();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Color hex2Color() {
+        return ColorUtil.hex2Color(colorHex);
+    }
+}
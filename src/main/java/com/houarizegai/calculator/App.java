@@ -1,10 +1,49 @@
 package com.houarizegai.calculator;
 
+import com.houarizegai.calculator.cli.BatchRunner;
+import com.houarizegai.calculator.cli.ReplayRunner;
+import com.houarizegai.calculator.monitoring.CalculatorMetrics;
+import com.houarizegai.calculator.monitoring.EdtWatchdog;
+import com.houarizegai.calculator.monitoring.StartupProfile;
+import com.houarizegai.calculator.server.CalculatorServer;
+import com.houarizegai.calculator.session.CalculatorSession;
 import com.houarizegai.calculator.ui.CalculatorUI;
 
+import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public class App {
 
+    public static final String RECORD_OPTION = "--record";
+
     public static void main(String[] args) {
-        new CalculatorUI();
+        StartupProfile.mark(StartupProfile.Phase.MAIN);
+        List<String> options = Arrays.asList(args);
+        if (options.contains(BatchRunner.BATCH_OPTION)) {
+            System.exit(BatchRunner.run(args));
+        }
+        if (options.contains(ReplayRunner.REPLAY_OPTION)) {
+            System.exit(ReplayRunner.run(args));
+        }
+        // JMX pulls in a good deal of classes: keep it off the startup path
+        CompletableFuture.runAsync(CalculatorMetrics::register);
+        if (options.contains(CalculatorServer.SERVE_OPTION)) {
+            int status = CalculatorServer.run(args);
+            if (status != 0)
+                System.exit(status);
+            return;
+        }
+        if (options.contains(StartupProfile.OPTION)) {
+            StartupProfile.enableReport();
+        }
+
+        EdtWatchdog.install();
+        int record = options.indexOf(RECORD_OPTION);
+        Path keystrokeFile = record >= 0 && record + 1 < args.length ? Paths.get(args[record + 1]) : null;
+        SwingUtilities.invokeLater(() -> new CalculatorUI(new CalculatorSession(), keystrokeFile));
     }
 }
@@ -0,0 +1,331 @@
+package com.houarizegai.calculator.analysis;
+
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.util.Ranges;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Definite integrals of a function of one variable by adaptive 15-point Gauss–Kronrod quadrature.
+ * <p>
+ * Each subinterval is integrated with the 15-point Kronrod rule, and its error is estimated from the difference to
+ * the embedded 7-point Gauss rule, scaled as in QUADPACK's {@code qk15}. Refinement goes in rounds: while the summed
+ * error is above the tolerance, the intervals that together carry half of it are halved, and the new halves are
+ * integrated independently as fork/join tasks on the common {@link ForkJoinPool}. Taking the largest errors first, as
+ * QUADPACK does one interval at a time, also converges near integrable singularities such as that of
+ * {@code 1/sqrt(x)} at 0, where an interval's error shrinks more slowly than its width. The estimates are added with
+ * Neumaier's compensated summation, so thousands of intervals do not lose the digits the rule gained.
+ * <p>
+ * Refinement stops when the next round would exceed the evaluation budget; the result then says it did not converge.
+ */
+public final class Integrator {
+
+    public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1e-10;
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1e-10;
+    public static final long DEFAULT_MAX_EVALUATIONS = 1_000_000;
+
+    static final int RULE_POINTS = 15;
+    private static final int RULE_GRAIN = 4;
+
+    // Kronrod abscissae on [-1, 1] from the outside in; the odd ones are the Gauss abscissae
+    private static final double[] NODES = {
+            0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245, 0.0};
+    private static final double[] KRONROD_WEIGHTS = {
+            0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649, 0.209482141084727828012999174891714};
+    private static final double[] GAUSS_WEIGHTS = {
+            0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975, 0.417959183673469387755102040816327};
+    private static final double EPSILON = Math.ulp(1.0);
+
+    /**
+     * The integral with its estimated absolute error and what it took to compute it.
+     */
+    public static final class Result {
+
+        private final double value;
+        private final double error;
+        private final long evaluations;
+        private final int intervals;
+        private final boolean converged;
+        private final long nanos;
+
+        Result(double value, double error, long evaluations, int intervals, boolean converged, long nanos) {
+            this.value = value;
+            this.error = error;
+            this.evaluations = evaluations;
+            this.intervals = intervals;
+            this.converged = converged;
+            this.nanos = nanos;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public double getErrorEstimate() {
+            return error;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        /**
+         * Subintervals the final estimate is the sum of.
+         */
+        public int getIntervals() {
+            return intervals;
+        }
+
+        /**
+         * Whether every subinterval met its tolerance. When not, the evaluation budget ran out, an interval could
+         * not be halved any further, or the function was not finite somewhere.
+         */
+        public boolean isConverged() {
+            return converged;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private final Formula function;
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+    private final long maxEvaluations;
+
+    public Integrator(Formula function) {
+        this(function, DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE, DEFAULT_MAX_EVALUATIONS);
+    }
+
+    /**
+     * The integral is refined until its estimated error is at most
+     * {@code max(absoluteTolerance, relativeTolerance * |integral|)} or {@code maxEvaluations} is reached.
+     *
+     * @throws IllegalArgumentException if the formula has more than one variable, both tolerances are zero, or the
+     *                                  budget does not cover one rule
+     */
+    public Integrator(Formula function, double absoluteTolerance, double relativeTolerance, long maxEvaluations) {
+        if (function.getVariableCount() > 1)
+            throw new IllegalArgumentException("Expected a function of one variable, got " + function.getVariables());
+        if (!(absoluteTolerance >= 0) || !(relativeTolerance >= 0) || absoluteTolerance + relativeTolerance == 0)
+            throw new IllegalArgumentException("Tolerances must be non-negative and not both zero: "
+                    + absoluteTolerance + ", " + relativeTolerance);
+        if (maxEvaluations < RULE_POINTS)
+            throw new IllegalArgumentException("The budget must allow at least " + RULE_POINTS + " evaluations: "
+                    + maxEvaluations);
+        this.function = function;
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    /**
+     * The integral of the function from {@code from} to {@code to}, negative when {@code to < from}.
+     */
+    public Result integrate(double from, double to) {
+        if (Double.isNaN(from) || Double.isNaN(to) || Double.isInfinite(from) || Double.isInfinite(to))
+            throw new IllegalArgumentException("Bounds must be finite: " + from + ", " + to);
+
+        long start = System.nanoTime();
+        if (from == to)
+            return new Result(0, 0, 0, 0, true, System.nanoTime() - start);
+        double sign = from < to ? 1 : -1;
+        double low = Math.min(from, to);
+        double high = Math.max(from, to);
+
+        Intervals intervals = new Intervals(low, high);
+        intervals.integrate(function, 0, 1);
+        long evaluations = RULE_POINTS;
+        boolean converged;
+        while (true) {
+            double error = intervals.error();
+            if (error <= Math.max(absoluteTolerance, relativeTolerance * Math.abs(intervals.value()))) {
+                converged = true;
+                break;
+            }
+            int budget = (int) Math.min(Integer.MAX_VALUE, (maxEvaluations - evaluations) / (2 * RULE_POINTS));
+            int split = intervals.split(function, error / 2, budget);
+            if (split == 0) {
+                converged = false;
+                break;
+            }
+            evaluations += 2L * RULE_POINTS * split;
+        }
+        return new Result(sign * intervals.value(), intervals.error(), evaluations, intervals.size, converged,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * The subintervals and their estimates in primitive arrays, in no particular order.
+     */
+    private static final class Intervals {
+
+        double[] from = new double[16];
+        double[] to = new double[16];
+        double[] value = new double[16];
+        double[] error = new double[16];
+        int[] halved = new int[16];
+        int size;
+
+        Intervals(double from, double to) {
+            this.from[0] = from;
+            this.to[0] = to;
+            size = 1;
+        }
+
+        /**
+         * Applies the rule to intervals {@code [first, end)} in parallel.
+         */
+        void integrate(Formula function, int first, int end) {
+            Ranges.forEach(first, end, RULE_GRAIN, (lo, hi) -> {
+                double[] x = new double[1];
+                double[] samples = new double[2 * NODES.length];
+                for (int i = lo; i < hi; i++)
+                    rule(function, i, x, samples);
+            });
+        }
+
+        /**
+         * Halves the refinable intervals with the largest errors until they account for {@code target} of the
+         * error, at most {@code limit} of them, and integrates the halves in parallel. Returns how many intervals
+         * were halved; none when the budget is spent or no interval can be halved any more.
+         */
+        int split(Formula function, double target, int limit) {
+            if (limit == 0)
+                return 0;
+            double[] candidates = new double[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (isRefinable(i))
+                    candidates[count++] = error[i];
+            }
+            if (count == 0)
+                return 0;
+            Arrays.sort(candidates, 0, count);
+            double threshold = candidates[count - 1];
+            double covered = 0;
+            for (int i = count - 1; i >= 0 && covered < target && count - i <= limit; i--) {
+                threshold = candidates[i];
+                covered += candidates[i];
+            }
+
+            int previous = size;
+            int split = 0;
+            for (int i = 0; i < previous && split < limit; i++) {
+                if (error[i] < threshold || !isRefinable(i))
+                    continue;
+                ensureCapacity(size + 1);
+                double middle = 0.5 * (from[i] + to[i]);
+                from[size] = middle;
+                to[size] = to[i];
+                to[i] = middle;
+                halved[split++] = i;
+                size++;
+            }
+
+            int halves = split;
+            Ranges.forEach(0, 2 * halves, RULE_GRAIN, (lo, hi) -> {
+                double[] x = new double[1];
+                double[] samples = new double[2 * NODES.length];
+                for (int k = lo; k < hi; k++)
+                    rule(function, k < halves ? halved[k] : previous + k - halves, x, samples);
+            });
+            return split;
+        }
+
+        /**
+         * Whether interval {@code i} has an error, a finite estimate, and a midpoint strictly inside it.
+         */
+        private boolean isRefinable(int i) {
+            double middle = 0.5 * (from[i] + to[i]);
+            return error[i] > 0 && !Double.isInfinite(error[i]) && from[i] < middle && middle < to[i];
+        }
+
+        /**
+         * The 15-point Kronrod estimate of interval {@code i} and its error. The Gauss-Kronrod difference is scaled
+         * as QUADPACK does, as it is far too pessimistic for smooth functions, and floored at what rounding allows.
+         */
+        private void rule(Formula function, int i, double[] x, double[] samples) {
+            double center = 0.5 * (from[i] + to[i]);
+            double halfLength = 0.5 * (to[i] - from[i]);
+            x[0] = center;
+            double fCenter = function.evaluate(x);
+            double gauss = fCenter * GAUSS_WEIGHTS[3];
+            double kronrod = fCenter * KRONROD_WEIGHTS[7];
+            double absolute = Math.abs(kronrod);
+            for (int j = 0; j < 7; j++) {
+                double offset = halfLength * NODES[j];
+                x[0] = center - offset;
+                double left = function.evaluate(x);
+                x[0] = center + offset;
+                double right = function.evaluate(x);
+                samples[2 * j] = left;
+                samples[2 * j + 1] = right;
+                kronrod += KRONROD_WEIGHTS[j] * (left + right);
+                absolute += KRONROD_WEIGHTS[j] * (Math.abs(left) + Math.abs(right));
+                if (j % 2 == 1)
+                    gauss += GAUSS_WEIGHTS[j / 2] * (left + right);
+            }
+
+            double mean = 0.5 * kronrod;
+            double deviation = KRONROD_WEIGHTS[7] * Math.abs(fCenter - mean);
+            for (int j = 0; j < 7; j++)
+                deviation += KRONROD_WEIGHTS[j]
+                        * (Math.abs(samples[2 * j] - mean) + Math.abs(samples[2 * j + 1] - mean));
+
+            absolute *= halfLength;
+            deviation *= halfLength;
+            double difference = Math.abs((kronrod - gauss) * halfLength);
+            if (deviation != 0 && difference != 0)
+                difference = deviation * Math.min(1, Math.pow(200 * difference / deviation, 1.5));
+            if (absolute > Double.MIN_NORMAL / (50 * EPSILON))
+                difference = Math.max(50 * EPSILON * absolute, difference);
+            value[i] = kronrod * halfLength;
+            error[i] = Double.isNaN(value[i]) || Double.isInfinite(value[i]) ? Double.POSITIVE_INFINITY : difference;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= from.length)
+                return;
+            int length = Math.max(capacity, from.length * 2);
+            from = Arrays.copyOf(from, length);
+            to = Arrays.copyOf(to, length);
+            value = Arrays.copyOf(value, length);
+            error = Arrays.copyOf(error, length);
+            halved = Arrays.copyOf(halved, length);
+        }
+
+        /**
+         * Neumaier's compensated sum of the estimates.
+         */
+        double value() {
+            double sum = 0;
+            double compensation = 0;
+            for (int i = 0; i < size; i++) {
+                double next = sum + value[i];
+                if (Math.abs(sum) >= Math.abs(value[i]))
+                    compensation += (sum - next) + value[i];
+                else
+                    compensation += (value[i] - next) + sum;
+                sum = next;
+            }
+            return sum + compensation;
+        }
+
+        double error() {
+            double sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += error[i];
+            return sum;
+        }
+    }
+}
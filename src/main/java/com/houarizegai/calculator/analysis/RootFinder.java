@@ -0,0 +1,256 @@
+package com.houarizegai.calculator.analysis;
+
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.util.Ranges;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds the roots of {@code f(x) = 0} in an interval. The interval is cut into equal subintervals whose end points
+ * are evaluated in parallel; every subinterval over which {@code f} changes sign is then narrowed down with Brent's
+ * method, the brackets again in parallel on the common {@link ForkJoinPool}.
+ * <p>
+ * Only sign changes are found: a root where {@code f} touches zero without crossing it (such as the one of
+ * {@code x^2}) is reported only if a grid point hits it exactly, and of several roots inside one subinterval an odd
+ * number shows up as one. A sign change across a pole, as in {@code 1/x}, converges to the pole and is dropped because
+ * {@code |f|} grows there instead of vanishing; when a grid point lands on the pole itself, the infinite value there
+ * marks the bracket as a pole without searching it.
+ */
+public final class RootFinder {
+
+    public static final int DEFAULT_SUBINTERVALS = 4096;
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+
+    static final int MAX_ITERATIONS = 100;
+    private static final int SCAN_GRAIN = 256;
+    private static final int BRACKET_GRAIN = 8;
+
+    /**
+     * Roots in increasing order, with what it took to find them.
+     */
+    public static final class Result {
+
+        private final double[] roots;
+        private final int brackets;
+        private final int iterations;
+        private final long evaluations;
+        private final long nanos;
+
+        Result(double[] roots, int brackets, int iterations, long evaluations, long nanos) {
+            this.roots = roots;
+            this.brackets = brackets;
+            this.iterations = iterations;
+            this.evaluations = evaluations;
+            this.nanos = nanos;
+        }
+
+        public double[] getRoots() {
+            return roots.clone();
+        }
+
+        public int getRootCount() {
+            return roots.length;
+        }
+
+        public double getRoot(int index) {
+            return roots[index];
+        }
+
+        /**
+         * Subintervals over which {@code f} changed sign.
+         */
+        public int getBracketCount() {
+            return brackets;
+        }
+
+        /**
+         * Brent iterations over all brackets.
+         */
+        public int getIterations() {
+            return iterations;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private final Formula function;
+    private final int subintervals;
+    private final double tolerance;
+
+    public RootFinder(Formula function) {
+        this(function, DEFAULT_SUBINTERVALS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param tolerance how close to a root the reported value must be, as an absolute distance on the x axis
+     * @throws IllegalArgumentException if the formula has more than one variable, or a setting is out of range
+     */
+    public RootFinder(Formula function, int subintervals, double tolerance) {
+        if (function.getVariableCount() > 1)
+            throw new IllegalArgumentException("Expected a function of one variable, got " + function.getVariables());
+        if (subintervals < 1)
+            throw new IllegalArgumentException("Subintervals must be positive: " + subintervals);
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        this.function = function;
+        this.subintervals = subintervals;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Roots of the function in {@code [from, to]}.
+     */
+    public Result solve(double from, double to) {
+        if (!(from < to) || Double.isInfinite(to - from))
+            throw new IllegalArgumentException("Not a finite interval: " + from + ".." + to);
+
+        long start = System.nanoTime();
+        double step = (to - from) / subintervals;
+        double[] xs = new double[subintervals + 1];
+        double[] ys = new double[subintervals + 1];
+        Ranges.forEach(0, xs.length, SCAN_GRAIN, (first, end) -> {
+            double[] x = new double[1];
+            for (int i = first; i < end; i++) {
+                xs[i] = i == subintervals ? to : from + i * step;
+                x[0] = xs[i];
+                ys[i] = function.evaluate(x);
+            }
+        });
+
+        // a grid point that is a root marks itself; otherwise a sign change marks the subinterval after it
+        int[] candidates = new int[xs.length];
+        int count = 0;
+        for (int i = 0; i <= subintervals; i++) {
+            if (ys[i] == 0 || (i < subintervals && (ys[i] < 0 ? ys[i + 1] > 0 : ys[i] > 0 && ys[i + 1] < 0)))
+                candidates[count++] = i;
+        }
+
+        double[] roots = new double[count];
+        int[] iterations = new int[count];
+        int brackets = count;
+        int[] candidateIndex = Arrays.copyOf(candidates, count);
+        Ranges.forEach(0, count, BRACKET_GRAIN, (first, end) -> {
+            double[] x = new double[1];
+            for (int k = first; k < end; k++) {
+                int i = candidateIndex[k];
+                if (ys[i] == 0) {
+                    roots[k] = xs[i];
+                    continue;
+                }
+                if (isPole(ys, i)) {
+                    roots[k] = Double.NaN;
+                    continue;
+                }
+                roots[k] = brent(xs[i], xs[i + 1], ys[i], ys[i + 1], x, iterations, k);
+                x[0] = roots[k];
+                double y = Math.abs(function.evaluate(x));
+                // converging on a pole rather than a root
+                if (!(y <= Math.max(Math.abs(ys[i]), Math.abs(ys[i + 1]))))
+                    roots[k] = Double.NaN;
+            }
+        });
+
+        int found = 0;
+        int totalIterations = 0;
+        int searched = 0;
+        for (int k = 0; k < count; k++) {
+            int i = candidateIndex[k];
+            if (ys[i] == 0)
+                brackets--;
+            else if (!isPole(ys, i))
+                searched++;
+            totalIterations += iterations[k];
+            if (!Double.isNaN(roots[k]))
+                roots[found++] = roots[k];
+        }
+        // Brent evaluates once per iteration, plus once to check each root
+        long evaluations = xs.length + totalIterations + searched;
+        return new Result(Arrays.copyOf(roots, found), brackets, totalIterations, evaluations,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Whether the bracket after grid point {@code i} has an infinite end: a grid point on a pole, or an overflow that
+     * Brent's method would take for one just the same.
+     */
+    private static boolean isPole(double[] ys, int i) {
+        return Double.isInfinite(ys[i]) || Double.isInfinite(ys[i + 1]);
+    }
+
+    /**
+     * Brent's method on a bracket where {@code fa} and {@code fb} have opposite signs: inverse quadratic or secant
+     * steps while they shrink the bracket fast enough, bisection otherwise.
+     */
+    private double brent(double a, double b, double fa, double fb, double[] x, int[] iterations, int slot) {
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        for (int iteration = 1; iteration <= MAX_ITERATIONS; iteration++) {
+            if ((fb > 0) == (fc > 0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = 2 * Math.ulp(b) + 0.5 * tolerance;
+            double middle = 0.5 * (c - b);
+            if (Math.abs(middle) <= tol || fb == 0) {
+                iterations[slot] = iteration - 1;
+                return b;
+            }
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2 * middle * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc;
+                    double t = fa / fc;
+                    p = s * (2 * middle * t * (t - r) - (b - a) * (r - 1));
+                    q = (t - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0)
+                    q = -q;
+                else
+                    p = -p;
+                if (2 * p < Math.min(3 * middle * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = middle;
+                    e = d;
+                }
+            } else {
+                d = middle;
+                e = d;
+            }
+
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, middle);
+            x[0] = b;
+            fb = function.evaluate(x);
+        }
+        iterations[slot] = MAX_ITERATIONS;
+        return b;
+    }
+}
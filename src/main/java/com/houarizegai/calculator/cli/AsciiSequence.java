@@ -0,0 +1,46 @@
+package com.houarizegai.calculator.cli;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mutable {@link CharSequence} window over a range of single-byte characters in a {@link ByteBuffer}. It lets the
+ * expression tokenizer read a line straight out of a mapped file; {@link #wrap} re-points the same instance at the
+ * next line.
+ */
+public class AsciiSequence implements CharSequence {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public AsciiSequence wrap(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.offset = start;
+        this.length = end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(offset + start + i);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,260 @@
+package com.houarizegai.calculator.cli;
+
+import com.houarizegai.calculator.engine.ExpressionCache;
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.engine.ExpressionParser;
+import com.houarizegai.calculator.engine.OperationCache;
+import com.houarizegai.calculator.format.DoubleFormatter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Headless evaluation of newline-separated expressions, one result line per input line.
+ * <p>
+ * Files are memory-mapped a window at a time and each line is tokenized in place through an {@link AsciiSequence},
+ * so neither lines nor numbers are turned into {@code String}s on the way in. Results go through one buffered
+ * writer for the whole run. Invalid lines, and lines whose evaluation fails in any other way, produce an
+ * {@code error: ...} line so output stays aligned with input.
+ * <p>
+ * With {@code --cache [size]} repeated expressions are answered from an {@link ExpressionCache}, at the cost of one
+ * normalized {@code String} per line.
+ */
+public class BatchRunner {
+
+    public static final String BATCH_OPTION = "--batch";
+    public static final String OUTPUT_OPTION = "--output";
+    public static final String STATS_OPTION = "--stats";
+    public static final String CACHE_OPTION = "--cache";
+
+    private static final int WINDOW_SIZE = 64 << 20;
+    private static final int STREAM_BUFFER_SIZE = 1 << 20;
+    private static final int WRITER_BUFFER_SIZE = 1 << 16;
+
+    private final ExpressionParser parser = new ExpressionParser();
+    private final AsciiSequence line = new AsciiSequence();
+    private final char[] resultBuffer = new char[DoubleFormatter.MAX_LENGTH];
+    private final Writer out;
+    private final ExpressionCache cache;
+
+    private long expressions;
+    private long errors;
+
+    public BatchRunner(Writer out) {
+        this(out, null);
+    }
+
+    /**
+     * Creates a runner answering repeated expressions from {@code cache}, or evaluating every line when it is
+     * {@code null}.
+     */
+    public BatchRunner(Writer out, ExpressionCache cache) {
+        this.out = out;
+        this.cache = cache;
+    }
+
+    /**
+     * Entry point for {@code --batch [file|-] [--output file] [--cache [size]] [--stats]}. Reads stdin when no file (or {@code -}) is
+     * given and writes to stdout unless {@code --output} is set. Returns the process exit code.
+     */
+    public static int run(String[] args) {
+        String input = null;
+        String output = null;
+        boolean stats = false;
+        int cacheSize = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case BATCH_OPTION:
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--"))
+                        input = args[++i];
+                    break;
+                case OUTPUT_OPTION:
+                    if (i + 1 >= args.length) {
+                        System.err.println("Missing file after " + OUTPUT_OPTION);
+                        return 2;
+                    }
+                    output = args[++i];
+                    break;
+                case STATS_OPTION:
+                    stats = true;
+                    break;
+                case CACHE_OPTION:
+                    cacheSize = ExpressionCache.DEFAULT_CAPACITY;
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        try {
+                            cacheSize = Integer.parseInt(args[++i]);
+                        } catch (NumberFormatException e) {
+                            cacheSize = 0;
+                        }
+                        if (cacheSize < 1) {
+                            System.err.println("Invalid cache size " + args[i]);
+                            return 2;
+                        }
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    return 2;
+            }
+        }
+
+        long start = System.nanoTime();
+        try (Writer writer = openWriter(output)) {
+            ExpressionCache cache = cacheSize > 0
+                    ? new ExpressionCache(cacheSize, new OperationCache(OperationCache.DEFAULT_CAPACITY)) : null;
+            BatchRunner runner = new BatchRunner(writer, cache);
+            if (input == null || input.equals("-")) {
+                runner.evaluate(System.in);
+            } else {
+                runner.evaluate(Paths.get(input));
+            }
+            writer.flush();
+
+            if (stats) {
+                long nanos = Math.max(1, System.nanoTime() - start);
+                System.err.printf("%d expressions (%d errors) in %.1f ms, %.0f expressions/s%n",
+                        runner.expressions, runner.errors, nanos / 1e6, runner.expressions * 1e9 / nanos);
+                if (cache != null)
+                    System.err.printf("cache: %d hits, %d misses, %d evictions%n",
+                            cache.getHitCount(), cache.getMissCount(), cache.getEvictionCount());
+            }
+            return runner.errors == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+    }
+
+    private static Writer openWriter(String output) throws IOException {
+        if (output == null)
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+
+        return Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+    }
+
+    public void evaluate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long window = WINDOW_SIZE;
+            while (position < size) {
+                long length = Math.min(window, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int consumed = evaluateLines(buffer, (int) length, last);
+                if (consumed == 0) {
+                    // a single line longer than the window: map a larger one
+                    if (window >= Integer.MAX_VALUE)
+                        throw new IOException("Line at offset " + position + " is too long");
+                    window = Math.min(Integer.MAX_VALUE, window * 2);
+                    continue;
+                }
+                position += consumed;
+            }
+        }
+    }
+
+    public void evaluate(InputStream in) throws IOException {
+        ReadableByteChannel channel = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+        while (true) {
+            boolean last = channel.read(buffer) < 0;
+            int filled = buffer.position();
+            int consumed = evaluateLines(buffer, filled, last);
+            if (last)
+                return;
+
+            if (consumed == 0 && !buffer.hasRemaining()) {
+                buffer.flip();
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+                continue;
+            }
+            buffer.limit(filled).position(consumed);
+            buffer.compact();
+            // keep interactive use responsive: results appear as soon as their line has been read
+            out.flush();
+        }
+    }
+
+    /**
+     * Evaluates every complete line in {@code [0, end)} of the buffer, plus the trailing partial line when
+     * {@code last} is set. Returns the number of bytes consumed.
+     */
+    private int evaluateLines(ByteBuffer buffer, int end, boolean last) throws IOException {
+        int lineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == '\n') {
+                evaluateLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < end) {
+            evaluateLine(buffer, lineStart, end);
+            lineStart = end;
+        }
+        return lineStart;
+    }
+
+    private void evaluateLine(ByteBuffer buffer, int start, int end) throws IOException {
+        if (end > start && buffer.get(end - 1) == '\r')
+            end--;
+
+        boolean blank = true;
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            ascii &= b >= 0;
+            blank &= b == ' ' || b == '\t';
+        }
+        if (blank) {
+            out.write('\n');
+            return;
+        }
+
+        // lines with multi-byte characters such as '√' are rare enough to decode the slow way
+        CharSequence text = ascii ? line.wrap(buffer, start, end) : decode(buffer, start, end);
+        expressions++;
+        try {
+            writeResult(cache != null ? cache.evaluate(text) : parser.evaluate(text));
+        } catch (ExpressionException e) {
+            errors++;
+            out.write("error: ");
+            out.write(e.getMessage());
+        } catch (RuntimeException | StackOverflowError e) {
+            // one pathological line must not abort the rest of the run
+            errors++;
+            out.write("error: ");
+            out.write(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        out.write('\n');
+    }
+
+    private void writeResult(double result) throws IOException {
+        out.write(resultBuffer, 0, DoubleFormatter.DISPLAY.format(result, resultBuffer, 0));
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+package com.houarizegai.calculator.cli;
+
+import com.houarizegai.calculator.session.Keypad;
+import com.houarizegai.calculator.session.KeystrokeReplayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Headless replay of keystroke traces recorded with {@code --record}, for regression and load tests.
+ */
+public class ReplayRunner {
+
+    public static final String REPLAY_OPTION = "--replay";
+    public static final String EXPECT_OPTION = "--expect";
+    public static final String REPEAT_OPTION = "--repeat";
+
+    private ReplayRunner() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Entry point for {@code --replay file [--expect display] [--repeat n] [--stats]}. Replays the trace {@code n}
+     * times, each on a fresh keypad, and prints the final display. Returns 1 when it differs from the expected one.
+     */
+    public static int run(String[] args) {
+        String trace = null;
+        String expected = null;
+        int repeat = 1;
+        boolean stats = false;
+        for (int i = 0; i < args.length; i++) {
+            boolean takesValue = args[i].equals(REPLAY_OPTION) || args[i].equals(EXPECT_OPTION)
+                    || args[i].equals(REPEAT_OPTION);
+            if (takesValue && i + 1 >= args.length) {
+                System.err.println("Missing value after " + args[i]);
+                return 2;
+            }
+            switch (args[i]) {
+                case REPLAY_OPTION:
+                    trace = args[++i];
+                    break;
+                case EXPECT_OPTION:
+                    expected = args[++i];
+                    break;
+                case REPEAT_OPTION:
+                    repeat = parsePositive(args[++i]);
+                    if (repeat < 1) {
+                        System.err.println("Invalid repeat count " + args[i]);
+                        return 2;
+                    }
+                    break;
+                case BatchRunner.STATS_OPTION:
+                    stats = true;
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    return 2;
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(trace), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long start = System.nanoTime();
+            long events = 0;
+            String display = null;
+            for (int i = 0; i < repeat; i++) {
+                Keypad keypad = new Keypad();
+                events += KeystrokeReplayer.replay(buffer, keypad);
+                display = keypad.getDisplay().toString();
+            }
+            long nanos = Math.max(1, System.nanoTime() - start);
+
+            System.out.println(display);
+            if (stats)
+                System.err.printf("%d events in %.1f ms, %.0f events/s%n", events, nanos / 1e6, events * 1e9 / nanos);
+            if (expected != null && !expected.equals(display)) {
+                System.err.println("Expected " + expected + " but the display shows " + display);
+                return 1;
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+    }
+
+    private static int parsePositive(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.houarizegai.calculator.engine;
+
+public class Arithmetic {
+
+    private Arithmetic() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Applies the operator typed on the keypad. Any symbol that is not a binary operator ({@code ' '}, {@code '='},
+     * {@code '√'}, {@code 'l'}) yields the second number, which is how the display picks up a freshly typed value.
+     */
+    public static double calculate(double firstNumber, double secondNumber, char operator) {
+        Operator op = Operator.of(operator);
+        return op == null ? secondNumber : op.apply(firstNumber, secondNumber);
+    }
+
+    public static double sqrt(double value) {
+        return MathFunction.SQRT.apply(value);
+    }
+
+    public static double ln(double value) {
+        return MathFunction.LN.apply(value);
+    }
+}
@@ -0,0 +1,185 @@
+package com.houarizegai.calculator.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Column-wise counterpart of {@link Arithmetic}: applies one operator to whole {@code double[]} columns.
+ * <p>
+ * Each operator has its own plain counted loop over primitive arrays, with the operator dispatch hoisted out of the
+ * loop, so C2 can unroll and auto-vectorize the {@code + - * /} and {@code sqrt} kernels. Nothing is boxed and
+ * nothing is allocated per element. Inputs at least {@link #getParallelThreshold()} long are split into ranges
+ * processed by the common {@link ForkJoinPool}; the threshold defaults to the {@value #THRESHOLD_PROPERTY} system
+ * property.
+ */
+public class BatchCalculator {
+
+    public static final String THRESHOLD_PROPERTY = "calculator.batch.parallelThreshold";
+
+    private static volatile int parallelThreshold = Integer.getInteger(THRESHOLD_PROPERTY, 1 << 16);
+
+    private BatchCalculator() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    public static int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public static void setParallelThreshold(int threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * {@code out[i] = calculate(a[i], b[i], operator)} for every index of {@code a}.
+     */
+    public static void calculate(double[] a, double[] b, char operator, double[] out) {
+        checkLengths(a.length, b.length, out.length);
+        Operator op = Operator.of(operator);
+        run(a.length, (from, to) -> binary(op, a, b, out, from, to));
+    }
+
+    /**
+     * {@code out[i] = calculate(a[i], b, operator)} for every index of {@code a}.
+     */
+    public static void calculate(double[] a, double b, char operator, double[] out) {
+        checkLengths(a.length, a.length, out.length);
+        Operator op = Operator.of(operator);
+        run(a.length, (from, to) -> binaryScalar(op, a, b, out, from, to));
+    }
+
+    public static void sqrt(double[] values, double[] out) {
+        checkLengths(values.length, values.length, out.length);
+        run(values.length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                out[i] = Math.sqrt(values[i]);
+        });
+    }
+
+    public static void ln(double[] values, double[] out) {
+        checkLengths(values.length, values.length, out.length);
+        run(values.length, (from, to) -> {
+            for (int i = from; i < to; i++)
+                out[i] = Math.log(values[i]);
+        });
+    }
+
+    private static void binary(Operator op, double[] a, double[] b, double[] out, int from, int to) {
+        if (op == null) {
+            System.arraycopy(b, from, out, from, to - from);
+            return;
+        }
+        switch (op) {
+            case ADD:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] + b[i];
+                break;
+            case SUBTRACT:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] - b[i];
+                break;
+            case MULTIPLY:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] * b[i];
+                break;
+            case DIVIDE:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] / b[i];
+                break;
+            case MODULO:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] % b[i];
+                break;
+            case POWER:
+                for (int i = from; i < to; i++)
+                    out[i] = Math.pow(a[i], b[i]);
+                break;
+        }
+    }
+
+    private static void binaryScalar(Operator op, double[] a, double b, double[] out, int from, int to) {
+        if (op == null) {
+            Arrays.fill(out, from, to, b);
+            return;
+        }
+        switch (op) {
+            case ADD:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] + b;
+                break;
+            case SUBTRACT:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] - b;
+                break;
+            case MULTIPLY:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] * b;
+                break;
+            case DIVIDE:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] / b;
+                break;
+            case MODULO:
+                for (int i = from; i < to; i++)
+                    out[i] = a[i] % b;
+                break;
+            case POWER:
+                for (int i = from; i < to; i++)
+                    out[i] = Math.pow(a[i], b);
+                break;
+        }
+    }
+
+    private static void checkLengths(int first, int second, int out) {
+        if (first != second)
+            throw new IllegalArgumentException("Operand lengths differ: " + first + " != " + second);
+        if (out < first)
+            throw new IllegalArgumentException("Output holds " + out + " values but " + first + " are needed");
+    }
+
+    private static void run(int length, RangeKernel kernel) {
+        int threshold = parallelThreshold;
+        if (length < threshold || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            kernel.apply(0, length);
+            return;
+        }
+        int slices = ForkJoinPool.getCommonPoolParallelism() * 4;
+        int grain = Math.max(threshold / 2, (length + slices - 1) / slices);
+        ForkJoinPool.commonPool().invoke(new RangeTask(kernel, 0, length, grain));
+    }
+
+    @FunctionalInterface
+    interface RangeKernel {
+        void apply(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeKernel kernel;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(RangeKernel kernel, int from, int to, int grain) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                kernel.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(kernel, from, middle, grain), new RangeTask(kernel, middle, to, grain));
+        }
+    }
+}
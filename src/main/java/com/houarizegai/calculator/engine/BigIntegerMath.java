@@ -0,0 +1,386 @@
+package com.houarizegai.calculator.engine;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exact integer functions whose results run to hundreds of thousands of digits.
+ * <p>
+ * The time goes into multiplying large numbers, and {@link BigInteger} only switches to Karatsuba and Toom-Cook
+ * when both operands are large. So nothing here multiplies a growing product by one small factor at a time: factors
+ * are packed into {@code long}s and multiplied as a balanced binary tree, where operands of similar size meet at every
+ * level, and the two halves of large trees are computed in parallel on the common {@link ForkJoinPool}.
+ * {@link #factorial} uses Luschny's prime swing, {@code n! = ((n/2)!)² · swing(n)}, so most of its work is squaring;
+ * {@link #binomial} multiplies the prime powers given by Legendre's formula rather than dividing factorials.
+ * {@link #toDecimalString} converts by divide and conquer on the same pool.
+ * <p>
+ * Interrupting the calling thread abandons a computation with a {@link CancellationException}. The interrupt is
+ * checked between multiplications, on the pool's threads too, so a huge result stops within one multiplication.
+ */
+public final class BigIntegerMath {
+
+    /**
+     * Largest {@link #factorial} argument: its result already has about 1.6 billion bits.
+     */
+    public static final int MAX_FACTORIAL = 1 << 26;
+
+    private static final long[] SMALL_FACTORIALS = new long[21];
+    // products with fewer packed factors are multiplied on the calling thread
+    private static final int PARALLEL_FACTORS = 1 << 10;
+    // below this many bits, BigInteger.toString is faster than splitting
+    private static final int PARALLEL_DECIMAL_BITS = 1 << 15;
+    private static final int LEAF_DECIMAL_LEVEL = 9;
+
+    static {
+        SMALL_FACTORIALS[0] = 1;
+        for (int i = 1; i < SMALL_FACTORIALS.length; i++)
+            SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+    }
+
+    private BigIntegerMath() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * {@code n!}.
+     *
+     * @throws ArithmeticException if {@code n} is negative or above {@link #MAX_FACTORIAL}
+     */
+    public static BigInteger factorial(int n) {
+        if (n < 0)
+            throw new ArithmeticException("Factorial of a negative number: " + n);
+        if (n > MAX_FACTORIAL)
+            throw new ArithmeticException("Factorial argument too large: " + n);
+        if (n < SMALL_FACTORIALS.length)
+            return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+
+        // n! = oddFactorial(n) · 2^(n - popcount(n)); the odd part is built from swings of halving arguments
+        int[] primes = primesUpTo(n);
+        return oddFactorial(n, primes, Thread.currentThread()).shiftLeft(n - Integer.bitCount(n));
+    }
+
+    /**
+     * Number of ways to choose {@code k} of {@code n} items, {@code n! / (k! (n-k)!)}.
+     *
+     * @throws ArithmeticException if {@code n} or {@code k} is negative or {@code k > n}
+     */
+    public static BigInteger binomial(int n, int k) {
+        checkChoice(n, k);
+        k = Math.min(k, n - k);
+        if (k == 0)
+            return BigInteger.ONE;
+        if (k < 64 || n > MAX_FACTORIAL)
+            return permutations(n, k).divide(factorial(k));
+
+        // Legendre: the exponent of p is the number of borrows when subtracting k from n in base p
+        int[] primes = primesUpTo(n);
+        Factors factors = new Factors();
+        for (int prime : primes) {
+            long power = 1;
+            for (long p = prime; p <= n; p *= prime) {
+                if (n / p - k / p - (n - k) / p == 1)
+                    power *= prime;
+                if (p > n / prime)
+                    break;
+            }
+            if (power > 1)
+                factors.add(power);
+        }
+        return factors.product();
+    }
+
+    /**
+     * Number of ordered arrangements of {@code k} of {@code n} items, {@code n! / (n-k)!}.
+     *
+     * @throws ArithmeticException if {@code n} or {@code k} is negative or {@code k > n}
+     */
+    public static BigInteger permutations(int n, int k) {
+        checkChoice(n, k);
+        Factors factors = new Factors();
+        // in long: n - k + 1 overflows int when k is 0 and n is Integer.MAX_VALUE
+        for (long i = (long) n - k + 1; i <= n; i++)
+            factors.add(i);
+        return factors.product();
+    }
+
+    /**
+     * {@code base^exponent}, as {@link BigInteger#pow} but by squaring here, so that it can be interrupted.
+     *
+     * @throws ArithmeticException if {@code exponent} is negative
+     */
+    public static BigInteger pow(BigInteger base, int exponent) {
+        if (exponent < 0)
+            throw new ArithmeticException("Negative exponent: " + exponent);
+        // the powers of two in the base become one final shift
+        int zeros = base.signum() == 0 ? 0 : base.getLowestSetBit();
+        BigInteger odd = base.shiftRight(zeros);
+        BigInteger power = BigInteger.ONE;
+        Thread caller = Thread.currentThread();
+        for (int bit = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(exponent); bit >= 0; bit--) {
+            checkInterrupted(caller);
+            power = power.multiply(power);
+            if ((exponent >>> bit & 1) == 1)
+                power = power.multiply(odd);
+        }
+        long shift = (long) zeros * exponent;
+        if (shift > Integer.MAX_VALUE)
+            throw new ArithmeticException("BigInteger would overflow supported range");
+        return power.shiftLeft((int) shift);
+    }
+
+    /**
+     * {@code base^exponent mod modulus}, the result between 0 and {@code modulus - 1}.
+     *
+     * @throws ArithmeticException if {@code modulus} is not positive, or {@code exponent} is negative and
+     *                             {@code base} has no inverse modulo {@code modulus}
+     */
+    public static BigInteger powMod(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        if (modulus.signum() <= 0)
+            throw new ArithmeticException("Modulus must be positive: " + modulus);
+        return base.modPow(exponent, modulus);
+    }
+
+    public static BigInteger gcd(BigInteger a, BigInteger b) {
+        return a.gcd(b);
+    }
+
+    /**
+     * Same digits as {@link BigInteger#toString()}. Large values are split by powers of ten {@code 10^(2^i)} and the
+     * halves converted in parallel.
+     */
+    public static String toDecimalString(BigInteger value) {
+        if (value.bitLength() < PARALLEL_DECIMAL_BITS)
+            return value.toString();
+        if (value.signum() < 0)
+            return "-" + toDecimalString(value.negate());
+
+        // powers[i] = 10^(2^i), up to the largest that does not exceed the value
+        List<BigInteger> powers = new ArrayList<>();
+        powers.add(BigInteger.TEN);
+        while (powers.get(powers.size() - 1).bitLength() * 2 - 1 <= value.bitLength())
+            powers.add(powers.get(powers.size() - 1).pow(2));
+        BigInteger[] table = powers.toArray(new BigInteger[0]);
+        return ForkJoinPool.commonPool().invoke(new DecimalTask(value, table, -1, null, 0, Thread.currentThread()));
+    }
+
+    /**
+     * Primes up to {@code n}, from a sieve over the odd numbers.
+     */
+    static int[] primesUpTo(int n) {
+        if (n < 2)
+            return new int[0];
+        // composite[i] stands for 2i + 1
+        boolean[] composite = new boolean[n / 2 + 1];
+        for (long i = 3; i * i <= n; i += 2) {
+            if (composite[(int) (i / 2)])
+                continue;
+            for (long multiple = i * i; multiple <= n; multiple += 2 * i)
+                composite[(int) (multiple / 2)] = true;
+        }
+        int[] primes = new int[Math.max(16, (int) (1.26 * n / Math.log(n)))];
+        int count = 0;
+        primes[count++] = 2;
+        for (int i = 1; 2 * i + 1 <= n; i++) {
+            if (!composite[i]) {
+                if (count == primes.length)
+                    primes = Arrays.copyOf(primes, count * 2);
+                primes[count++] = 2 * i + 1;
+            }
+        }
+        return Arrays.copyOf(primes, count);
+    }
+
+    private static BigInteger oddFactorial(int n, int[] primes, Thread caller) {
+        if (n < 3)
+            return BigInteger.ONE;
+        BigInteger half = oddFactorial(n / 2, primes, caller);
+        checkInterrupted(caller);
+        return half.multiply(half).multiply(swing(n, primes));
+    }
+
+    /**
+     * Odd part of {@code n! / ((n/2)!)²}: each odd prime {@code p} appears {@code Σ floor(n/p^i) mod 2} times.
+     */
+    private static BigInteger swing(int n, int[] primes) {
+        Factors factors = new Factors();
+        int root = (int) Math.sqrt(n);
+        for (int prime : primes) {
+            if (prime == 2)
+                continue;
+            if (prime > n)
+                break;
+            if (prime > root) {
+                // p² > n: only the first term of the sum is left
+                if (((n / prime) & 1) == 1)
+                    factors.add(prime);
+                continue;
+            }
+            long power = 1;
+            for (int q = n / prime; q > 0; q /= prime) {
+                if ((q & 1) == 1)
+                    power *= prime;
+            }
+            if (power > 1)
+                factors.add(power);
+        }
+        return factors.product();
+    }
+
+    /**
+     * Abandons the computation if {@code caller}, the thread it was started on, has been interrupted.
+     */
+    private static void checkInterrupted(Thread caller) {
+        if (caller.isInterrupted())
+            throw new CancellationException("Interrupted");
+    }
+
+    private static void checkChoice(int n, int k) {
+        if (n < 0 || k < 0 || k > n)
+            throw new ArithmeticException("Cannot choose " + k + " of " + n);
+    }
+
+    /**
+     * Factors packed into as few {@code long}s as fit without overflow, then multiplied as a balanced tree.
+     */
+    private static final class Factors {
+
+        private final Thread caller = Thread.currentThread();
+        private long[] words = new long[64];
+        private int size;
+        private long current = 1;
+
+        void add(long factor) {
+            if (current > Long.MAX_VALUE / factor) {
+                if (size == words.length)
+                    words = Arrays.copyOf(words, size * 2);
+                words[size++] = current;
+                current = factor;
+            } else {
+                current *= factor;
+            }
+        }
+
+        BigInteger product() {
+            if (current > 1) {
+                if (size == words.length)
+                    words = Arrays.copyOf(words, size + 1);
+                words[size++] = current;
+                current = 1;
+            }
+            if (size == 0)
+                return BigInteger.ONE;
+            if (size < PARALLEL_FACTORS)
+                return product(words, 0, size, caller);
+            return ForkJoinPool.commonPool().invoke(new ProductTask(words, 0, size, caller));
+        }
+
+        static BigInteger product(long[] words, int from, int to, Thread caller) {
+            int length = to - from;
+            if (length == 1)
+                return BigInteger.valueOf(words[from]);
+            if (length == 2)
+                return BigInteger.valueOf(words[from]).multiply(BigInteger.valueOf(words[from + 1]));
+            int middle = (from + to) >>> 1;
+            BigInteger left = product(words, from, middle, caller);
+            BigInteger right = product(words, middle, to, caller);
+            checkInterrupted(caller);
+            return left.multiply(right);
+        }
+    }
+
+    private static final class ProductTask extends RecursiveTask<BigInteger> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] words;
+        private final int from;
+        private final int to;
+        private final Thread caller;
+
+        ProductTask(long[] words, int from, int to, Thread caller) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+            this.caller = caller;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            if (to - from < PARALLEL_FACTORS)
+                return Factors.product(words, from, to, caller);
+            int middle = (from + to) >>> 1;
+            ProductTask right = new ProductTask(words, middle, to, caller);
+            right.fork();
+            BigInteger left = new ProductTask(words, from, middle, caller).compute();
+            BigInteger product = right.join();
+            checkInterrupted(caller);
+            return left.multiply(product);
+        }
+    }
+
+    /**
+     * Converts a value to decimal. With {@code level < 0} the digits are returned as a string; otherwise the value is
+     * below {@code 10^(2^level)} and exactly that many digits, zero-padded, are written to {@code out} at
+     * {@code offset}.
+     */
+    private static final class DecimalTask extends RecursiveTask<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger value;
+        private final BigInteger[] powers;
+        private final int level;
+        private final char[] out;
+        private final int offset;
+        private final Thread caller;
+
+        DecimalTask(BigInteger value, BigInteger[] powers, int level, char[] out, int offset, Thread caller) {
+            this.value = value;
+            this.powers = powers;
+            this.level = level;
+            this.out = out;
+            this.offset = offset;
+            this.caller = caller;
+        }
+
+        @Override
+        protected String compute() {
+            checkInterrupted(caller);
+            if (level < 0) {
+                int split = powers.length - 1;
+                while (split > 0 && powers[split].compareTo(value) > 0)
+                    split--;
+                if (split < LEAF_DECIMAL_LEVEL)
+                    return value.toString();
+
+                // value = high · 10^(2^split) + low, with high below 10^(2^split) as well
+                BigInteger[] parts = value.divideAndRemainder(powers[split]);
+                char[] low = new char[1 << split];
+                DecimalTask lowTask = new DecimalTask(parts[1], powers, split, low, 0, caller);
+                lowTask.fork();
+                String high = new DecimalTask(parts[0], powers, -1, null, 0, caller).compute();
+                lowTask.join();
+                return new StringBuilder(high.length() + low.length).append(high).append(low).toString();
+            }
+
+            int digits = 1 << level;
+            if (level <= LEAF_DECIMAL_LEVEL) {
+                String text = value.toString();
+                int padding = digits - text.length();
+                Arrays.fill(out, offset, offset + padding, '0');
+                text.getChars(0, text.length(), out, offset + padding);
+                return null;
+            }
+            BigInteger[] parts = value.divideAndRemainder(powers[level - 1]);
+            ForkJoinTask.invokeAll(new DecimalTask(parts[0], powers, level - 1, out, offset, caller),
+                    new DecimalTask(parts[1], powers, level - 1, out, offset + digits / 2, caller));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.houarizegai.calculator.engine;
+
+final class BinaryNode extends Node {
+
+    private final Operator operator;
+    private final Node left;
+    private final Node right;
+
+    BinaryNode(Operator operator, Node left, Node right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    Operator getOperator() {
+        return operator;
+    }
+
+    Node getLeft() {
+        return left;
+    }
+
+    Node getRight() {
+        return right;
+    }
+
+    @Override
+    double evaluate(double[] variables) {
+        return operator.apply(left.evaluate(variables), right.evaluate(variables));
+    }
+
+    @Override
+    public String toString() {
+        return "(" + left + " " + operator.getSymbol() + " " + right + ")";
+    }
+}
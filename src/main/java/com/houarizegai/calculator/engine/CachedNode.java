@@ -0,0 +1,40 @@
+package com.houarizegai.calculator.engine;
+
+/**
+ * A {@code ^}, {@code sqrt} or {@code ln} node whose evaluation goes through an {@link OperationCache}. The wrapped
+ * node is kept for printing and for code that walks the tree.
+ */
+final class CachedNode extends Node {
+
+    private final Node node;
+    private final OperationCache cache;
+
+    CachedNode(Node node, OperationCache cache) {
+        this.node = node;
+        this.cache = cache;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    OperationCache getCache() {
+        return cache;
+    }
+
+    @Override
+    double evaluate(double[] variables) {
+        if (node instanceof BinaryNode) {
+            BinaryNode binary = (BinaryNode) node;
+            return cache.calculate(binary.getLeft().evaluate(variables), binary.getRight().evaluate(variables),
+                    binary.getOperator().getSymbol());
+        }
+        UnaryNode unary = (UnaryNode) node;
+        return cache.apply(unary.getFunction(), unary.getOperand().evaluate(variables));
+    }
+
+    @Override
+    public String toString() {
+        return node.toString();
+    }
+}
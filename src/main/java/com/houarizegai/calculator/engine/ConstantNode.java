@@ -0,0 +1,24 @@
+package com.houarizegai.calculator.engine;
+
+final class ConstantNode extends Node {
+
+    private final double value;
+
+    ConstantNode(double value) {
+        this.value = value;
+    }
+
+    double getValue() {
+        return value;
+    }
+
+    @Override
+    double evaluate(double[] variables) {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,139 @@
+package com.houarizegai.calculator.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memo of whole constant expressions, keyed on their {@linkplain #normalize(CharSequence) normalized} text
+ * so that {@code "1.05^3*1200"} and {@code "1.05 ^ 3 * 1200"} share one entry.
+ * <p>
+ * Hits are a lock-free {@link ConcurrentHashMap} read. Inserts are serialized and, once the cache is full, a CLOCK
+ * hand evicts the first entry that has not been read since the hand last passed. Malformed expressions are not
+ * cached: they throw {@link ExpressionException} every time.
+ */
+public final class ExpressionCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final Entry[] clock;
+    private final ThreadLocal<ExpressionParser> parsers;
+    private int hand;
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpressionCache() {
+        this(DEFAULT_CAPACITY, null);
+    }
+
+    /**
+     * Creates a cache holding at most {@code capacity} results. Misses are parsed with {@code operations} (which may
+     * be {@code null}) so that expressions sharing a power or root still benefit from each other.
+     */
+    public ExpressionCache(int capacity, OperationCache operations) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        clock = new Entry[capacity];
+        parsers = ThreadLocal.withInitial(() -> new ExpressionParser(operations));
+    }
+
+    /**
+     * Same contract as {@link ExpressionParser#evaluate(CharSequence)}.
+     */
+    public double evaluate(CharSequence text) {
+        String key = normalize(text);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.value;
+        }
+
+        misses.increment();
+        // parse the original text so error positions match what the user typed
+        double value = parsers.get().evaluate(text);
+        insert(new Entry(key, value));
+        return value;
+    }
+
+    public int getCapacity() {
+        return clock.length;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drops whitespace, keeping a single space only where it separates two numbers or names ({@code "1 2"} must stay
+     * an error rather than become {@code 12}).
+     */
+    public static String normalize(CharSequence text) {
+        int length = text.length();
+        StringBuilder normalized = new StringBuilder(length);
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+                continue;
+            }
+            if (pendingSpace && isWordChar(c) && isWordChar(normalized.charAt(normalized.length() - 1)))
+                normalized.append(' ');
+            pendingSpace = false;
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_';
+    }
+
+    private synchronized void insert(Entry entry) {
+        if (entries.putIfAbsent(entry.key, entry) != null)
+            return;
+
+        if (size < clock.length) {
+            clock[size++] = entry;
+            return;
+        }
+        while (clock[hand].referenced) {
+            clock[hand].referenced = false;
+            hand = (hand + 1) % clock.length;
+        }
+        entries.remove(clock[hand].key);
+        evictions.increment();
+        clock[hand] = entry;
+        hand = (hand + 1) % clock.length;
+    }
+
+    private static final class Entry {
+
+        final String key;
+        final double value;
+        volatile boolean referenced;
+
+        Entry(String key, double value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
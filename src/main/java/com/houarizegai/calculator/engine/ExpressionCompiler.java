@@ -0,0 +1,341 @@
+package com.houarizegai.calculator.engine;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Second tier of {@link Formula} evaluation. A formula is interpreted by walking its tree until it has been evaluated
+ * {@link #getThreshold()} times, the threshold defaulting to the {@value #THRESHOLD_PROPERTY} system property; it is
+ * then compiled into a {@link MethodHandle} chain of type {@code (double[])double}.
+ * <p>
+ * Compilation folds constant subexpressions and evaluates each repeated subexpression once, keeping its value as an
+ * argument of the rest of the chain. Nothing is reassociated, so the compiled formula returns exactly what the tree
+ * does. A hot handle is customized by the JVM into straight-line code with the operators inlined, instead of the
+ * virtual {@code evaluate} call per node of the tree. Formulas above {@value #MAX_NODES} nodes stay interpreted.
+ * <p>
+ * Building a chain takes tens to hundreds of milliseconds, so formulas that get hot are compiled one at a time on a
+ * daemon thread rather than by the thread evaluating them.
+ * <p>
+ * With {@code -D}{@value #LOG_PROPERTY}{@code =true} every compilation is logged to standard error; the totals are
+ * available from {@link #getCompiledCount()} and {@link #getCompileNanos()}.
+ */
+public final class ExpressionCompiler {
+
+    public static final String THRESHOLD_PROPERTY = "calculator.compile.threshold";
+    public static final String LOG_PROPERTY = "calculator.compile.log";
+
+    static final int MAX_NODES = 2000;
+    // A method handle takes at most 255 argument slots and a double takes two. Each binary operation briefly takes
+    // all the arguments twice, the temporaries and the variables array, before merging them: 4n + 2 slots.
+    static final int MAX_TEMPORARIES = 60;
+    private static final boolean LOG = Boolean.getBoolean(LOG_PROPERTY);
+
+    private static final MethodHandle VARIABLE = MethodHandles.arrayElementGetter(double[].class);
+    private static final MethodHandle IDENTITY = MethodHandles.identity(double.class);
+    private static final Map<Operator, MethodHandle> OPERATORS = new HashMap<>();
+    private static final Map<MathFunction, MethodHandle> FUNCTIONS = new HashMap<>();
+    private static final MethodHandle CACHED_CALCULATE;
+    private static final MethodHandle CACHED_APPLY;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType binary = MethodType.methodType(double.class, double.class, double.class);
+        MethodType unary = MethodType.methodType(double.class, double.class);
+        try {
+            OPERATORS.put(Operator.ADD, lookup.findStatic(ExpressionCompiler.class, "add", binary));
+            OPERATORS.put(Operator.SUBTRACT, lookup.findStatic(ExpressionCompiler.class, "subtract", binary));
+            OPERATORS.put(Operator.MULTIPLY, lookup.findStatic(ExpressionCompiler.class, "multiply", binary));
+            OPERATORS.put(Operator.DIVIDE, lookup.findStatic(ExpressionCompiler.class, "divide", binary));
+            OPERATORS.put(Operator.MODULO, lookup.findStatic(ExpressionCompiler.class, "modulo", binary));
+            OPERATORS.put(Operator.POWER, lookup.findStatic(Math.class, "pow", binary));
+            FUNCTIONS.put(MathFunction.NEGATE, lookup.findStatic(ExpressionCompiler.class, "negate", unary));
+            FUNCTIONS.put(MathFunction.SQRT, lookup.findStatic(Math.class, "sqrt", unary));
+            FUNCTIONS.put(MathFunction.LN, lookup.findStatic(Math.class, "log", unary));
+            CACHED_CALCULATE = lookup.findVirtual(OperationCache.class, "calculate",
+                    MethodType.methodType(double.class, double.class, double.class, char.class));
+            CACHED_APPLY = lookup.findVirtual(OperationCache.class, "apply",
+                    MethodType.methodType(double.class, MathFunction.class, double.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static volatile int threshold = Integer.getInteger(THRESHOLD_PROPERTY, 10_000);
+    private static final AtomicLong compiledCount = new AtomicLong();
+    private static final AtomicLong compileNanos = new AtomicLong();
+    private static final ExecutorService compiler = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "formula-compiler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExpressionCompiler() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Sets the number of interpreted evaluations after which formulas parsed from now on are compiled.
+     */
+    public static void setThreshold(int invocations) {
+        if (invocations < 1)
+            throw new IllegalArgumentException("Threshold must be positive: " + invocations);
+        threshold = invocations;
+    }
+
+    /**
+     * Formulas compiled since startup.
+     */
+    public static long getCompiledCount() {
+        return compiledCount.get();
+    }
+
+    /**
+     * Total time spent compiling formulas, in nanoseconds.
+     */
+    public static long getCompileNanos() {
+        return compileNanos.get();
+    }
+
+    /**
+     * Queues {@code formula} for compilation on the compiler thread.
+     */
+    static void compileLater(Formula formula) {
+        compiler.execute(formula::compile);
+    }
+
+    /**
+     * Records that compiling {@code formula} threw {@code error}, leaving it interpreted.
+     */
+    static void failed(Formula formula, Throwable error) {
+        if (LOG)
+            System.err.printf("Not compiling '%s': %s%n", formula, error);
+    }
+
+    /**
+     * Compiles {@code formula}'s tree into a {@code (double[])double} handle, or returns {@code null} if it is too
+     * large.
+     */
+    static MethodHandle compile(Formula formula) {
+        long start = System.nanoTime();
+        Dag dag = new Dag();
+        Value root = dag.intern(formula.getRoot());
+        if (dag.nodes > MAX_NODES) {
+            if (LOG)
+                System.err.printf("Not compiling '%s': %d nodes%n", formula, dag.nodes);
+            return null;
+        }
+
+        List<Value> temporaries = dag.temporaries(root);
+        MethodHandle handle = handle(root, temporaries.size());
+        // the k-th argument of a chain with n temporaries is temporary n - 1 - k; bind them from the newest down
+        for (int index = temporaries.size() - 1; index >= 0; index--)
+            handle = MethodHandles.foldArguments(handle, 0, handle(temporaries.get(index), index));
+
+        long nanos = System.nanoTime() - start;
+        compiledCount.incrementAndGet();
+        compileNanos.addAndGet(nanos);
+        if (LOG)
+            System.err.printf("Compiled '%s' in %.2f ms: %d nodes, %d folded, %d shared%n", formula, nanos / 1e6,
+                    dag.nodes, dag.folded, temporaries.size());
+        return handle;
+    }
+
+    /**
+     * Handle computing {@code value} from the arguments {@code (t[available - 1], ..., t[0], double[] variables)}.
+     */
+    private static MethodHandle handle(Value value, int available) {
+        List<Class<?>> parameters = new ArrayList<>(Collections.nCopies(available, double.class));
+        parameters.add(double[].class);
+        if (value.temporary >= 0 && value.temporary < available) {
+            int position = available - 1 - value.temporary;
+            MethodHandle select = MethodHandles.dropArguments(IDENTITY, 1, parameters.subList(position + 1,
+                    parameters.size()));
+            return MethodHandles.dropArguments(select, 0, parameters.subList(0, position));
+        }
+
+        switch (value.kind) {
+            case CONSTANT:
+                return MethodHandles.dropArguments(MethodHandles.constant(double.class, value.constant), 0,
+                        parameters);
+            case VARIABLE:
+                return MethodHandles.dropArguments(MethodHandles.insertArguments(VARIABLE, 1, value.slot), 0,
+                        parameters.subList(0, available));
+            case UNARY: {
+                MethodHandle function = value.cache == null ? FUNCTIONS.get(value.function)
+                        : MethodHandles.insertArguments(CACHED_APPLY, 0, value.cache, value.function);
+                return MethodHandles.collectArguments(function, 0, handle(value.left, available));
+            }
+            default: {
+                MethodHandle operator = value.cache == null ? OPERATORS.get(value.operator)
+                        : MethodHandles.insertArguments(
+                        MethodHandles.insertArguments(CACHED_CALCULATE, 3, value.operator.getSymbol()), 0, value.cache);
+                MethodHandle both = MethodHandles.collectArguments(
+                        MethodHandles.collectArguments(operator, 1, handle(value.right, available)), 0,
+                        handle(value.left, available));
+                // both operands read the same arguments
+                int[] reorder = new int[2 * parameters.size()];
+                for (int i = 0; i < reorder.length; i++)
+                    reorder[i] = i % parameters.size();
+                return MethodHandles.permuteArguments(both, MethodType.methodType(double.class, parameters), reorder);
+            }
+        }
+    }
+
+    private enum Kind {CONSTANT, VARIABLE, UNARY, BINARY}
+
+    /**
+     * A node of the expression after folding and merging of equal subexpressions.
+     */
+    private static final class Value {
+
+        final Kind kind;
+        double constant;
+        int slot;
+        Operator operator;
+        MathFunction function;
+        OperationCache cache;
+        Value left;
+        Value right;
+        int uses;
+        int temporary = -1;
+
+        Value(Kind kind) {
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Turns a tree into a graph where equal subexpressions are one {@link Value}.
+     */
+    private static final class Dag {
+
+        private final Map<List<Object>, Value> values = new HashMap<>();
+        int nodes;
+        int folded;
+
+        Value intern(Node node) {
+            nodes++;
+            if (node instanceof ConstantNode)
+                return constant(((ConstantNode) node).getValue());
+            if (node instanceof VariableNode) {
+                int slot = ((VariableNode) node).getSlot();
+                return values.computeIfAbsent(List.of(Kind.VARIABLE, slot), key -> {
+                    Value value = new Value(Kind.VARIABLE);
+                    value.slot = slot;
+                    return value;
+                });
+            }
+
+            OperationCache cache = null;
+            if (node instanceof CachedNode) {
+                cache = ((CachedNode) node).getCache();
+                node = ((CachedNode) node).getNode();
+            }
+            if (node instanceof UnaryNode) {
+                UnaryNode unary = (UnaryNode) node;
+                Value operand = intern(unary.getOperand());
+                if (operand.kind == Kind.CONSTANT) {
+                    folded++;
+                    return constant(unary.getFunction().apply(operand.constant));
+                }
+                Value value = values.computeIfAbsent(List.of(Kind.UNARY, unary.getFunction(), operand,
+                        cache == null ? Kind.UNARY : cache), key -> new Value(Kind.UNARY));
+                value.function = unary.getFunction();
+                value.left = operand;
+                value.cache = cache;
+                return value;
+            }
+
+            BinaryNode binary = (BinaryNode) node;
+            Value left = intern(binary.getLeft());
+            Value right = intern(binary.getRight());
+            if (left.kind == Kind.CONSTANT && right.kind == Kind.CONSTANT) {
+                folded++;
+                return constant(binary.getOperator().apply(left.constant, right.constant));
+            }
+            Value value = values.computeIfAbsent(List.of(Kind.BINARY, binary.getOperator(), left, right,
+                    cache == null ? Kind.BINARY : cache), key -> new Value(Kind.BINARY));
+            value.operator = binary.getOperator();
+            value.left = left;
+            value.right = right;
+            value.cache = cache;
+            return value;
+        }
+
+        private Value constant(double constant) {
+            // keyed by bits, so that 0.0 and -0.0 stay apart and NaN matches itself
+            return values.computeIfAbsent(List.of(Kind.CONSTANT, Double.doubleToRawLongBits(constant)), key -> {
+                Value value = new Value(Kind.CONSTANT);
+                value.constant = constant;
+                return value;
+            });
+        }
+
+        /**
+         * Numbers the operations used more than once, operands before the operations using them.
+         */
+        List<Value> temporaries(Value root) {
+            countUses(root);
+            List<Value> temporaries = new ArrayList<>();
+            number(root, temporaries);
+            return temporaries;
+        }
+
+        private static void countUses(Value value) {
+            if (value.uses++ > 0 || value.left == null)
+                return;
+            countUses(value.left);
+            if (value.right != null)
+                countUses(value.right);
+        }
+
+        private static void number(Value value, List<Value> temporaries) {
+            if (value.left == null || value.temporary >= 0)
+                return;
+            number(value.left, temporaries);
+            if (value.right != null)
+                number(value.right, temporaries);
+            if (value.uses > 1 && temporaries.size() < MAX_TEMPORARIES) {
+                value.temporary = temporaries.size();
+                temporaries.add(value);
+            }
+        }
+    }
+
+    private static double add(double a, double b) {
+        return a + b;
+    }
+
+    private static double subtract(double a, double b) {
+        return a - b;
+    }
+
+    private static double multiply(double a, double b) {
+        return a * b;
+    }
+
+    private static double divide(double a, double b) {
+        return a / b;
+    }
+
+    private static double modulo(double a, double b) {
+        return a % b;
+    }
+
+    private static double negate(double a) {
+        return -a;
+    }
+}
@@ -0,0 +1,201 @@
+package com.houarizegai.calculator.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precedence-climbing parser producing an immutable {@link Formula}.
+ * <p>
+ * Binding from loosest to tightest: {@code + -}, {@code * / %}, unary minus, {@code ^} (right associative), then
+ * {@code √x}, {@code ln(x)}, {@code sqrt(x)}, numbers, variables and parentheses. So {@code -2^2} is {@code -4} and
+ * {@code 2^3^2} is {@code 512}. Nesting deeper than {@link #MAX_DEPTH} levels, or a tree taller than
+ * {@link #MAX_HEIGHT} such as a sum of that many terms, is rejected with an {@link ExpressionException} rather than
+ * left to overflow the stack while parsing, evaluating or compiling.
+ */
+public class ExpressionParser {
+
+    /**
+     * Nested parentheses, signs, roots and {@code ^} operands allowed in one expression.
+     */
+    public static final int MAX_DEPTH = 256;
+
+    /**
+     * Levels of the parsed tree, which is evaluated recursively; a left-associative chain is one level per operator.
+     */
+    public static final int MAX_HEIGHT = 2048;
+
+    private static final double[] NO_VARIABLES = new double[0];
+
+    private final Tokenizer tokenizer = new Tokenizer("");
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> variables = new ArrayList<>();
+    private final OperationCache operations;
+    private int depth;
+    // height of the tree the last parse method returned
+    private int height;
+
+    /**
+     * Creates a reusable parser for {@link #evaluate(CharSequence)}. Instances are not thread-safe.
+     */
+    public ExpressionParser() {
+        this(null);
+    }
+
+    /**
+     * Creates a reusable parser whose {@code ^}, {@code sqrt} and {@code ln} go through {@code operations}, or
+     * are computed directly when it is {@code null}.
+     */
+    public ExpressionParser(OperationCache operations) {
+        this.operations = operations;
+    }
+
+    public static Formula parse(CharSequence text) {
+        return parse(text, null);
+    }
+
+    public static Formula parse(CharSequence text, OperationCache operations) {
+        ExpressionParser parser = new ExpressionParser(operations);
+        Node root = parser.parseRoot(text);
+        return new Formula(text.toString(), root, parser.variables.toArray(new String[0]));
+    }
+
+    /**
+     * Parses and evaluates a variable-free expression in one go, reusing this parser's state. The text is only read
+     * during the call, so it may be a mutable view that is recycled afterwards.
+     */
+    public double evaluate(CharSequence text) {
+        Node root = parseRoot(text);
+        if (!variables.isEmpty())
+            throw new ExpressionException("Unbound variable '" + variables.get(0) + "'", 0);
+
+        return root.evaluate(NO_VARIABLES);
+    }
+
+    private Node parseRoot(CharSequence text) {
+        tokenizer.reset(text);
+        slots.clear();
+        variables.clear();
+        depth = 0;
+
+        tokenizer.next();
+        Node root = parseBinary(0);
+        if (tokenizer.getType() != Tokenizer.Type.END)
+            throw new ExpressionException("Unexpected '" + tokenizer.getText() + "'", tokenizer.getStart());
+
+        return root;
+    }
+
+    private Node parseBinary(int minPrecedence) {
+        enter();
+        Node left = parseUnary();
+        int leftHeight = height;
+        while (tokenizer.getType() == Tokenizer.Type.OPERATOR && tokenizer.getOperator().getPrecedence() >= minPrecedence) {
+            Operator operator = tokenizer.getOperator();
+            int start = tokenizer.getStart();
+            tokenizer.next();
+            int nextPrecedence = operator.isRightAssociative() ? operator.getPrecedence() : operator.getPrecedence() + 1;
+            Node right = parseBinary(nextPrecedence);
+            grow(Math.max(leftHeight, height), start);
+            leftHeight = height;
+            left = cached(new BinaryNode(operator, left, right), operator == Operator.POWER);
+        }
+        height = leftHeight;
+        depth--;
+        return left;
+    }
+
+    private Node parseUnary() {
+        if (tokenizer.getType() == Tokenizer.Type.OPERATOR) {
+            Operator sign = tokenizer.getOperator();
+            if (sign == Operator.SUBTRACT || sign == Operator.ADD) {
+                int start = tokenizer.getStart();
+                tokenizer.next();
+                Node operand = parseBinary(Operator.POWER.getPrecedence());
+                if (sign == Operator.ADD)
+                    return operand;
+                if (operand instanceof ConstantNode)
+                    return new ConstantNode(-((ConstantNode) operand).getValue());
+                grow(height, start);
+                return new UnaryNode(MathFunction.NEGATE, operand);
+            }
+        }
+        return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+        int start = tokenizer.getStart();
+        switch (tokenizer.getType()) {
+            case NUMBER: {
+                double value = tokenizer.getNumber();
+                tokenizer.next();
+                height = 1;
+                return new ConstantNode(value);
+            }
+            case ROOT: {
+                enter();
+                tokenizer.next();
+                Node operand = parsePrimary();
+                depth--;
+                grow(height, start);
+                return cached(new UnaryNode(MathFunction.SQRT, operand), true);
+            }
+            case LEFT_PAREN:
+                return parseParenthesized();
+            case IDENTIFIER: {
+                String name = tokenizer.getText();
+                tokenizer.next();
+                if (tokenizer.getType() == Tokenizer.Type.LEFT_PAREN) {
+                    MathFunction function = MathFunction.byName(name);
+                    if (function == null)
+                        throw new ExpressionException("Unknown function '" + name + "'", start);
+                    Node argument = parseParenthesized();
+                    grow(height, start);
+                    return cached(new UnaryNode(function, argument), true);
+                }
+                height = 1;
+                return new VariableNode(name, slotOf(name));
+            }
+            case END:
+                throw new ExpressionException("Unexpected end of expression", start);
+            default:
+                throw new ExpressionException("Unexpected '" + tokenizer.getText() + "'", start);
+        }
+    }
+
+    private Node parseParenthesized() {
+        int start = tokenizer.getStart();
+        tokenizer.next();
+        Node inner = parseBinary(0);
+        if (tokenizer.getType() != Tokenizer.Type.RIGHT_PAREN)
+            throw new ExpressionException("Missing ')' for '(' opened", start);
+        tokenizer.next();
+        return inner;
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw new ExpressionException("Expression nested too deeply", tokenizer.getStart());
+    }
+
+    /**
+     * Records a node one level above a subtree {@code below} levels tall, at source position {@code start}.
+     */
+    private void grow(int below, int start) {
+        if (below >= MAX_HEIGHT)
+            throw new ExpressionException("Expression too long", start);
+        height = below + 1;
+    }
+
+    private Node cached(Node node, boolean expensive) {
+        return operations != null && expensive ? new CachedNode(node, operations) : node;
+    }
+
+    private int slotOf(String name) {
+        return slots.computeIfAbsent(name, key -> {
+            variables.add(key);
+            return variables.size() - 1;
+        });
+    }
+}
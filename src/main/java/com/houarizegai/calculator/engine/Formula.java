@@ -0,0 +1,133 @@
+package com.houarizegai.calculator.engine;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A parsed, immutable expression. Parse once with {@link #parse(CharSequence)} and evaluate as often as needed:
+ * variables are bound positionally, in order of first appearance in the source (see {@link #getVariables()}).
+ * Instances are safe to share between threads.
+ * <p>
+ * A formula starts out {@link Tier#INTERPRETED} and is compiled by the {@link ExpressionCompiler} once it has been
+ * evaluated {@link ExpressionCompiler#getThreshold()} times; the count is approximate when several threads evaluate
+ * the same formula. That compilation runs in the background, and the formula stays interpreted until it is done, or
+ * for good if it fails.
+ */
+public final class Formula {
+
+    public enum Tier {
+        INTERPRETED, COMPILED
+    }
+
+    private static final double[] NO_VARIABLES = new double[0];
+
+    private final String source;
+    private final Node root;
+    private final String[] variables;
+    private volatile MethodHandle compiled;
+    private int untilCompiled = ExpressionCompiler.getThreshold();
+    private boolean compileAttempted;
+
+    Formula(String source, Node root, String[] variables) {
+        this.source = source;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    public static Formula parse(CharSequence text) {
+        return ExpressionParser.parse(text);
+    }
+
+    /**
+     * Parses {@code text} so that its {@code ^}, {@code sqrt} and {@code ln} results are memoized in
+     * {@code operations}.
+     */
+    public static Formula parse(CharSequence text, OperationCache operations) {
+        return ExpressionParser.parse(text, operations);
+    }
+
+    /**
+     * Evaluates the formula with {@code values[i]} bound to the i-th variable. The array is read, never retained.
+     */
+    public double evaluate(double... values) {
+        if (values.length < variables.length)
+            throw new IllegalArgumentException("Expected " + variables.length + " values for " + Arrays.toString(variables)
+                    + " but got " + values.length);
+
+        MethodHandle handle = compiled;
+        if (handle != null)
+            return invoke(handle, values);
+        // the thread that counts down to exactly zero hands the formula over; racing decrements cannot skip it
+        if (--untilCompiled == 0)
+            ExpressionCompiler.compileLater(this);
+        return root.evaluate(values);
+    }
+
+    public double evaluate() {
+        return evaluate(NO_VARIABLES);
+    }
+
+    public Tier getTier() {
+        return compiled != null ? Tier.COMPILED : Tier.INTERPRETED;
+    }
+
+    /**
+     * Compiles the formula now, on the calling thread, instead of waiting for it to get hot. Returns the resulting
+     * tier, which stays {@link Tier#INTERPRETED} for formulas too large to compile or that fail to compile.
+     */
+    public synchronized Tier compile() {
+        if (compiled == null && !compileAttempted) {
+            compileAttempted = true;
+            try {
+                compiled = ExpressionCompiler.compile(this);
+            } catch (RuntimeException | StackOverflowError e) {
+                // the interpreter evaluates every formula the parser accepts: compiling is only ever an optimization
+                ExpressionCompiler.failed(this, e);
+            }
+        }
+        // a formula that cannot be compiled stops counting
+        untilCompiled = Integer.MAX_VALUE;
+        return getTier();
+    }
+
+    public List<String> getVariables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    public int indexOf(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable))
+                return i;
+        }
+        return -1;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    private static double invoke(MethodHandle handle, double[] values) {
+        try {
+            return (double) handle.invokeExact(values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,300 @@
+package com.houarizegai.calculator.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keypad arithmetic on {@link HybridNumber}s: exact {@code double} arithmetic on compact operands, escalating to
+ * {@link BigDecimal} only when the {@code double} result could be inexact. On that path {@code + - *} stay exact as
+ * long as the result has at most {@link #MAX_EXACT_DIGITS} digits; the other operations, and sums and products that
+ * would be longer, are rounded to a configurable {@link MathContext}. Irrational results ({@code √2}, {@code ln 2},
+ * fractional powers) are computed to the full precision of the context. Results beyond the exponent range of
+ * {@code BigDecimal} fall back to {@code double} arithmetic, so {@code 10 ^ 10000000000} is {@code Infinity}.
+ * <p>
+ * Every call is counted either as fast-path or as an escalation of its operation, so the share of slow-path work
+ * can be monitored. Instances are thread-safe.
+ */
+public class HybridCalculator {
+
+    public static final int MAX_EXACT_DIGITS = 1000;
+
+    private static final char SQRT = '√';
+    private static final char LN = 'l';
+    private static final String OPERATIONS = "+-*/%^" + SQRT + LN;
+
+    private final MathContext mathContext;
+    private final MathContext workContext;
+    private final LongAdder fastPath = new LongAdder();
+    private final LongAdder[] escalations = new LongAdder[OPERATIONS.length()];
+
+    public HybridCalculator(MathContext mathContext) {
+        if (mathContext.getPrecision() == 0)
+            throw new IllegalArgumentException("An unlimited MathContext cannot represent 1/3");
+        this.mathContext = mathContext;
+        this.workContext = new MathContext(mathContext.getPrecision() + 10, RoundingMode.HALF_EVEN);
+        for (int i = 0; i < escalations.length; i++)
+            escalations[i] = new LongAdder();
+    }
+
+    public MathContext getMathContext() {
+        return mathContext;
+    }
+
+    /**
+     * Same contract as {@link Arithmetic#calculate}: symbols that are not binary operators yield the second number.
+     */
+    public HybridNumber calculate(HybridNumber first, HybridNumber second, char operator) {
+        Operator op = Operator.of(operator);
+        if (op == null)
+            return second;
+        if (!first.isFinite() || !second.isFinite())
+            return counted(HybridNumber.special(op.apply(first.doubleValue(), second.doubleValue())));
+
+        if (first.isCompact() && second.isCompact()) {
+            HybridNumber result = compact(op, first, second);
+            if (result != null)
+                return counted(result);
+        }
+        escalations[OPERATIONS.indexOf(operator)].increment();
+        try {
+            return big(op, first, second);
+        } catch (ArithmeticException e) {
+            // the exponent of the result does not fit a BigDecimal
+            return HybridNumber.valueOf(op.apply(first.doubleValue(), second.doubleValue()));
+        }
+    }
+
+    public HybridNumber sqrt(HybridNumber value) {
+        if (!value.isFinite() || value.toBigDecimal().signum() < 0)
+            return counted(HybridNumber.special(Math.sqrt(value.doubleValue())));
+
+        if (value.isCompact()) {
+            double unscaled = value.getUnscaled();
+            int scale = value.getScale();
+            if ((scale & 1) == 1) {
+                unscaled *= 10;
+                scale++;
+            }
+            double root = Math.sqrt(unscaled);
+            if (unscaled < HybridNumber.MAX_UNSCALED && scale <= HybridNumber.MAX_SCALE
+                    && root == Math.rint(root) && root * root == unscaled)
+                return counted(HybridNumber.compact(root, scale / 2));
+        }
+        escalations[OPERATIONS.indexOf(SQRT)].increment();
+        return HybridNumber.valueOf(value.toBigDecimal().sqrt(mathContext));
+    }
+
+    public HybridNumber ln(HybridNumber value) {
+        if (!value.isFinite() || value.toBigDecimal().signum() <= 0)
+            return counted(HybridNumber.special(Math.log(value.doubleValue())));
+        if (value.equals(HybridNumber.ONE))
+            return counted(HybridNumber.ZERO);
+
+        escalations[OPERATIONS.indexOf(LN)].increment();
+        return HybridNumber.valueOf(ln(value.toBigDecimal()).round(mathContext));
+    }
+
+    public long getFastPathCount() {
+        return fastPath.sum();
+    }
+
+    /**
+     * How often {@code operator} ({@code + - * / % ^}, {@code '√'} or {@code 'l'} for ln) had to leave the
+     * {@code double} fast path.
+     */
+    public long getEscalationCount(char operator) {
+        int index = OPERATIONS.indexOf(operator);
+        if (index < 0)
+            throw new IllegalArgumentException("Unknown operation '" + operator + "'");
+        return escalations[index].sum();
+    }
+
+    public long getEscalationCount() {
+        long total = 0;
+        for (LongAdder escalation : escalations)
+            total += escalation.sum();
+        return total;
+    }
+
+    private HybridNumber counted(HybridNumber result) {
+        fastPath.increment();
+        return result;
+    }
+
+    /**
+     * The exact result using only {@code double} arithmetic, or {@code null} when it cannot be proven exact.
+     */
+    private static HybridNumber compact(Operator op, HybridNumber first, HybridNumber second) {
+        int scale = Math.max(first.getScale(), second.getScale());
+        double a = first.getUnscaled() * HybridNumber.powerOfTen(scale - first.getScale());
+        double b = second.getUnscaled() * HybridNumber.powerOfTen(scale - second.getScale());
+        if (!(Math.abs(a) < HybridNumber.MAX_UNSCALED) || !(Math.abs(b) < HybridNumber.MAX_UNSCALED))
+            return null;
+
+        switch (op) {
+            case ADD:
+                return HybridNumber.compact(a + b, scale);
+            case SUBTRACT:
+                return HybridNumber.compact(a - b, scale);
+            case MULTIPLY:
+                return HybridNumber.compact(first.getUnscaled() * second.getUnscaled(), first.getScale() + second.getScale());
+            case DIVIDE:
+                return b == 0 ? HybridNumber.special(a / b) : divide(a, b);
+            case MODULO:
+                // fmod of two exact integers is exact
+                return b == 0 ? HybridNumber.special(Double.NaN) : HybridNumber.compact(a % b, scale);
+            case POWER:
+                return power(first, second);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * a / b for integers a and b, exact when the quotient terminates within the scale limit.
+     */
+    private static HybridNumber divide(double a, double b) {
+        for (int scale = 0; scale <= HybridNumber.MAX_SCALE; scale++) {
+            double numerator = a * HybridNumber.powerOfTen(scale);
+            if (!(Math.abs(numerator) < HybridNumber.MAX_UNSCALED))
+                return null;
+            if (numerator % b == 0)
+                return HybridNumber.compact(numerator / b, scale);
+        }
+        return null;
+    }
+
+    private static HybridNumber power(HybridNumber base, HybridNumber exponent) {
+        if (exponent.getScale() != 0 || exponent.getUnscaled() < 0 || exponent.getUnscaled() > 64)
+            return null;
+
+        double unscaled = 1;
+        int scale = 0;
+        for (int i = (int) exponent.getUnscaled(); i > 0; i--) {
+            unscaled *= base.getUnscaled();
+            scale += base.getScale();
+            if (!(Math.abs(unscaled) < HybridNumber.MAX_UNSCALED) || scale > HybridNumber.MAX_SCALE)
+                return null;
+        }
+        return HybridNumber.compact(unscaled, scale);
+    }
+
+    private HybridNumber big(Operator op, HybridNumber first, HybridNumber second) {
+        BigDecimal a = first.toBigDecimal();
+        BigDecimal b = second.toBigDecimal();
+        switch (op) {
+            case ADD:
+                return HybridNumber.valueOf(sumDigits(a, b) <= MAX_EXACT_DIGITS ? a.add(b) : a.add(b, mathContext));
+            case SUBTRACT:
+                return HybridNumber.valueOf(sumDigits(a, b) <= MAX_EXACT_DIGITS
+                        ? a.subtract(b) : a.subtract(b, mathContext));
+            case MULTIPLY:
+                return HybridNumber.valueOf((long) a.precision() + b.precision() <= MAX_EXACT_DIGITS
+                        ? a.multiply(b) : a.multiply(b, mathContext));
+            case DIVIDE:
+                if (b.signum() == 0)
+                    return HybridNumber.special(first.doubleValue() / 0.0);
+                return HybridNumber.valueOf(a.divide(b, mathContext));
+            case MODULO:
+                if (b.signum() == 0)
+                    return HybridNumber.special(Double.NaN);
+                return HybridNumber.valueOf(a.remainder(b, mathContext));
+            case POWER:
+                BigDecimal power = pow(a, b);
+                return power != null
+                        ? HybridNumber.valueOf(power)
+                        : HybridNumber.special(Math.pow(first.doubleValue(), second.doubleValue()));
+            default:
+                return second;
+        }
+    }
+
+    /**
+     * An upper bound on the digits of the exact sum of {@code a} and {@code b}: the longer integer part, the longer
+     * fraction and a carry.
+     */
+    private static long sumDigits(BigDecimal a, BigDecimal b) {
+        long integerDigits = Math.max((long) a.precision() - a.scale(), (long) b.precision() - b.scale());
+        long fractionDigits = Math.max(a.scale(), b.scale());
+        return integerDigits + fractionDigits + 1;
+    }
+
+    /**
+     * base^exponent, or {@code null} when the result is not a finite real number.
+     */
+    private BigDecimal pow(BigDecimal base, BigDecimal exponent) {
+        BigDecimal integral = exponent.stripTrailingZeros();
+        if (integral.scale() <= 0 && integral.abs().compareTo(BigDecimal.valueOf(999_999_999)) <= 0) {
+            if (base.signum() == 0 && integral.signum() < 0)
+                return null;
+            return base.pow(integral.intValueExact(), mathContext);
+        }
+        if (base.signum() <= 0)
+            return null;
+
+        // x^y = e^(y ln x)
+        return exp(exponent.multiply(ln(base), workContext)).round(mathContext);
+    }
+
+    /**
+     * Natural logarithm of a positive value to the working precision: ln(m 10^e) = ln m + e ln 10 with m in
+     * [1, 10), then square roots bring m close to 1 for the atanh series ln m = 2 atanh((m-1)/(m+1)).
+     */
+    private BigDecimal ln(BigDecimal value) {
+        int exponent = value.precision() - value.scale() - 1;
+        BigDecimal mantissa = value.movePointLeft(exponent);
+        BigDecimal result = lnNearOne(mantissa);
+        if (exponent != 0)
+            result = result.add(lnNearOne(BigDecimal.TEN).multiply(BigDecimal.valueOf(exponent), workContext), workContext);
+        return result;
+    }
+
+    private BigDecimal lnNearOne(BigDecimal value) {
+        BigDecimal threshold = new BigDecimal("0.01");
+        int halvings = 0;
+        while (value.subtract(BigDecimal.ONE).abs().compareTo(threshold) > 0) {
+            value = value.sqrt(workContext);
+            halvings++;
+        }
+
+        BigDecimal z = value.subtract(BigDecimal.ONE).divide(value.add(BigDecimal.ONE), workContext);
+        BigDecimal zSquared = z.multiply(z, workContext);
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(workContext.getPrecision());
+        BigDecimal sum = z;
+        BigDecimal power = z;
+        for (int n = 3; ; n += 2) {
+            power = power.multiply(zSquared, workContext);
+            BigDecimal term = power.divide(BigDecimal.valueOf(n), workContext);
+            if (term.abs().compareTo(epsilon) < 0)
+                break;
+            sum = sum.add(term, workContext);
+        }
+        return sum.multiply(BigDecimal.valueOf(2L << halvings), workContext);
+    }
+
+    /**
+     * e^x by argument halving and the Taylor series.
+     */
+    private BigDecimal exp(BigDecimal x) {
+        int squarings = 0;
+        while (x.abs().compareTo(BigDecimal.ONE) > 0) {
+            x = x.divide(BigDecimal.valueOf(2), workContext);
+            squarings++;
+        }
+
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(workContext.getPrecision());
+        BigDecimal sum = BigDecimal.ONE;
+        BigDecimal term = BigDecimal.ONE;
+        for (int n = 1; ; n++) {
+            term = term.multiply(x, workContext).divide(BigDecimal.valueOf(n), workContext);
+            if (term.abs().compareTo(epsilon) < 0)
+                break;
+            sum = sum.add(term, workContext);
+        }
+        for (int i = 0; i < squarings; i++)
+            sum = sum.multiply(sum, workContext);
+        return sum;
+    }
+}
@@ -0,0 +1,213 @@
+package com.houarizegai.calculator.engine;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * An exact decimal that stays on {@code double} arithmetic for as long as that is provably exact.
+ * <p>
+ * A <em>compact</em> number is {@code unscaled / 10^scale} where {@code unscaled} is an integer-valued
+ * {@code double} below 2^53 and {@code scale} is at most 22. Every integer below 2^53 and every power of ten up to
+ * 10^22 is exactly representable, so sums, products and remainders of compact numbers are exact whenever the
+ * {@code double} result stays below 2^53, and {@link #doubleValue()} is a single correctly rounded division.
+ * {@link HybridCalculator} checks that condition after each operation and only moves to {@link BigDecimal} when it
+ * fails. {@code NaN} and the infinities are kept as plain {@code double}s so that division by zero and friends
+ * behave as they do in {@link Arithmetic}.
+ */
+public final class HybridNumber {
+
+    static final double MAX_UNSCALED = 0x1p53;
+    // up to 15 significant digits a decimal is exactly the shortest digits of the nearest double
+    private static final double MAX_SHORTEST_UNSCALED = 1e15;
+    static final int MAX_SCALE = 22;
+
+    public static final HybridNumber ZERO = new HybridNumber(0, 0, null);
+    public static final HybridNumber ONE = new HybridNumber(1, 0, null);
+
+    private static final int NOT_COMPACT = -1;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final double unscaled;
+    private final int scale;
+    private final BigDecimal big;
+
+    private HybridNumber(double unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * A compact number when {@code unscaled / 10^scale} qualifies, otherwise {@code null}. Trailing zeros are
+     * stripped so that equal values share a representation.
+     */
+    static HybridNumber compact(double unscaled, int scale) {
+        if (!(Math.abs(unscaled) < MAX_UNSCALED) || scale < 0 || scale > MAX_SCALE || unscaled != Math.rint(unscaled))
+            return null;
+
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        return new HybridNumber(unscaled == 0 ? 0 : unscaled, scale, null);
+    }
+
+    static HybridNumber big(BigDecimal value) {
+        BigDecimal stripped = value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        if (stripped.scale() <= MAX_SCALE && stripped.precision() <= 15) {
+            int scale = Math.max(0, stripped.scale());
+            HybridNumber compact = compact(stripped.setScale(scale).unscaledValue().doubleValue(), scale);
+            if (compact != null)
+                return compact;
+        }
+        return new HybridNumber(Double.NaN, NOT_COMPACT, stripped);
+    }
+
+    static HybridNumber special(double value) {
+        return new HybridNumber(value, NOT_COMPACT, null);
+    }
+
+    /**
+     * The decimal a {@code double} was meant to be: its shortest round-trip digits, so {@code valueOf(0.1)} is
+     * exactly one tenth.
+     */
+    public static HybridNumber valueOf(double value) {
+        if (!Double.isFinite(value))
+            return special(value);
+        if (value == Math.rint(value) && Math.abs(value) < MAX_UNSCALED)
+            return compact(value, 0);
+        return big(BigDecimal.valueOf(value));
+    }
+
+    public static HybridNumber valueOf(BigDecimal value) {
+        return big(value);
+    }
+
+    /**
+     * Parses plain decimal text such as {@code -12.50}, as typed on the keypad. {@code NaN}, {@code Infinity} and
+     * exponent notation are accepted as well.
+     */
+    public static HybridNumber parse(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = length > 0 && text.charAt(0) == '-';
+        if (negative)
+            i++;
+
+        // every partial value is below the final one, so if that is under 2^53 no digit was rounded away
+        double unscaled = 0;
+        int scale = -1;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+            } else if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                if (scale >= 0)
+                    scale++;
+            } else {
+                return parseSlow(text.toString());
+            }
+        }
+        HybridNumber compact = compact(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        return compact != null ? compact : parseSlow(text.toString());
+    }
+
+    private static HybridNumber parseSlow(String text) {
+        switch (text) {
+            case "NaN":
+                return special(Double.NaN);
+            case "Infinity":
+                return special(Double.POSITIVE_INFINITY);
+            case "-Infinity":
+                return special(Double.NEGATIVE_INFINITY);
+            default:
+                return big(new BigDecimal(text));
+        }
+    }
+
+    public boolean isCompact() {
+        return scale != NOT_COMPACT;
+    }
+
+    public boolean isFinite() {
+        return scale != NOT_COMPACT || big != null;
+    }
+
+    double getUnscaled() {
+        return unscaled;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    public double doubleValue() {
+        if (isCompact())
+            return unscaled / POWERS_OF_TEN[scale];
+        return big != null ? big.doubleValue() : unscaled;
+    }
+
+    /**
+     * The exact value; only defined for finite numbers.
+     */
+    public BigDecimal toBigDecimal() {
+        if (isCompact())
+            return BigDecimal.valueOf((long) unscaled, scale);
+        if (big == null)
+            throw new ArithmeticException(unscaled + " has no decimal value");
+        return big;
+    }
+
+    static double powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Writes this number with {@code formatter}. Special values, integers and compact numbers of up to 15 digits
+     * take its {@code double} path, since their shortest round-trip digits are their exact digits; anything longer
+     * is written digit for digit.
+     */
+    public StringBuilder format(DoubleFormatter formatter, StringBuilder out) {
+        if (!isFinite() || isCompact() && (scale == 0 || Math.abs(unscaled) < MAX_SHORTEST_UNSCALED))
+            return formatter.format(doubleValue(), out);
+        return formatter.format(toBigDecimal(), out);
+    }
+
+    /**
+     * The number as the calculator display shows it, see {@link DoubleFormatter#DISPLAY}.
+     */
+    @Override
+    public String toString() {
+        return format(DoubleFormatter.DISPLAY, new StringBuilder(24)).toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof HybridNumber))
+            return false;
+
+        HybridNumber that = (HybridNumber) other;
+        if (isCompact() && that.isCompact())
+            return unscaled == that.unscaled && scale == that.scale;
+        if (!isFinite() || !that.isFinite())
+            return !isFinite() && !that.isFinite() && Double.compare(unscaled, that.unscaled) == 0;
+        return toBigDecimal().compareTo(that.toBigDecimal()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (!isFinite())
+            return Double.hashCode(unscaled);
+        BigDecimal value = toBigDecimal().stripTrailingZeros();
+        BigInteger unscaledValue = value.unscaledValue();
+        return 31 * unscaledValue.hashCode() + value.scale();
+    }
+}
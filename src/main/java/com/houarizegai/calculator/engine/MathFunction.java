@@ -0,0 +1,49 @@
+package com.houarizegai.calculator.engine;
+
+public enum MathFunction {
+
+    NEGATE("-") {
+        @Override
+        public double apply(double value) {
+            return -value;
+        }
+    },
+    SQRT("sqrt") {
+        @Override
+        public double apply(double value) {
+            return Math.sqrt(value);
+        }
+    },
+    LN("ln") {
+        @Override
+        public double apply(double value) {
+            return Math.log(value);
+        }
+    };
+
+    private final String name;
+
+    MathFunction(String name) {
+        this.name = name;
+    }
+
+    public abstract double apply(double value);
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the function called {@code name} in an expression, or {@code null} when there is none.
+     */
+    public static MathFunction byName(String name) {
+        switch (name) {
+            case "sqrt":
+                return SQRT;
+            case "ln":
+                return LN;
+            default:
+                return null;
+        }
+    }
+}
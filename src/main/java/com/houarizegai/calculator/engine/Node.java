@@ -0,0 +1,10 @@
+package com.houarizegai.calculator.engine;
+
+/**
+ * Immutable node of a parsed expression tree. Variables are read from a slot array resolved at parse time, so
+ * evaluating a node never looks anything up by name.
+ */
+abstract class Node {
+
+    abstract double evaluate(double[] variables);
+}
@@ -0,0 +1,115 @@
+package com.houarizegai.calculator.engine;
+
+/**
+ * Parses decimal literals straight out of a {@link CharSequence} without building an intermediate {@code String}.
+ * Literals whose significand fits in 53 bits and whose decimal exponent is within the exactly representable powers
+ * of ten are converted with a single correctly rounded multiply or divide; anything else falls back to
+ * {@link Double#parseDouble(String)}.
+ */
+public class NumberParser {
+
+    private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Returns the index just past the decimal literal starting at {@code start}, or {@code start} when there is no
+     * literal there. Accepts {@code digits[.digits][e[+-]digits]} and {@code .digits}.
+     */
+    public static int scan(CharSequence text, int start, int end) {
+        int i = start;
+        int digits = 0;
+        while (i < end && isDigit(text.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(text.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0)
+            return start;
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < end && (text.charAt(j) == '+' || text.charAt(j) == '-'))
+                j++;
+            int exponentStart = j;
+            while (j < end && isDigit(text.charAt(j)))
+                j++;
+            if (j > exponentStart)
+                i = j;
+        }
+        return i;
+    }
+
+    /**
+     * Parses the literal occupying {@code [start, end)}, which must have been delimited by {@link #scan}.
+     */
+    public static double parse(CharSequence text, int start, int end) {
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean fraction = false;
+        int i = start;
+
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                fraction = true;
+                continue;
+            }
+            if (!isDigit(c))
+                break;
+            if (significantDigits < 19) {
+                significand = significand * 10 + (c - '0');
+                if (significand != 0)
+                    significantDigits++;
+                if (fraction)
+                    exponent--;
+            } else {
+                truncated |= c != '0';
+                if (!fraction)
+                    exponent++;
+            }
+        }
+
+        if (i < end) {
+            i++; // 'e' or 'E'
+            boolean negative = false;
+            if (text.charAt(i) == '+' || text.charAt(i) == '-') {
+                negative = text.charAt(i) == '-';
+                i++;
+            }
+            int explicit = 0;
+            for (; i < end; i++) {
+                explicit = Math.min(explicit * 10 + (text.charAt(i) - '0'), 100_000);
+            }
+            exponent += negative ? -explicit : explicit;
+        }
+
+        if (!truncated && significand <= MAX_EXACT_SIGNIFICAND) {
+            if (significand == 0)
+                return 0;
+            if (exponent >= 0 && exponent < POWERS_OF_TEN.length)
+                return significand * POWERS_OF_TEN[exponent];
+            if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+                return significand / POWERS_OF_TEN[-exponent];
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
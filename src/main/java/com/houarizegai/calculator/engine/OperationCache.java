@@ -0,0 +1,203 @@
+package com.houarizegai.calculator.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Bounded memo table for the expensive operations: {@code ^}, {@code √} and {@code ln}. Cheaper operators are
+ * computed directly, since a lookup would cost more than the arithmetic.
+ * <p>
+ * Entries are keyed on the operator and the raw bits of both operands and live in flat primitive arrays, so nothing
+ * is boxed. The table is set-associative: a key hashes to one set of {@value #WAYS} slots, and when the set is full
+ * a CLOCK hand evicts the first slot that has not been read since the hand last passed. Sets are guarded by striped
+ * {@link StampedLock}s; hits only take an optimistic read.
+ */
+public final class OperationCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int WAYS = 8;
+    private static final int MAX_STRIPES = 64;
+    private static final char NO_OPERAND = 0;
+
+    private final long[] firsts;
+    private final long[] seconds;
+    private final char[] operators;
+    private final double[] results;
+    private final boolean[] referenced;
+    private final byte[] hands;
+    private final int setMask;
+
+    private final StampedLock[] locks;
+    private final int lockMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OperationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding about {@code capacity} results, rounded down to a power of two of at least
+     * {@value #WAYS}.
+     */
+    public OperationCache(int capacity) {
+        if (capacity < WAYS)
+            throw new IllegalArgumentException("Capacity must be at least " + WAYS + ": " + capacity);
+
+        int sets = Integer.highestOneBit(capacity / WAYS);
+        int slots = sets * WAYS;
+        firsts = new long[slots];
+        seconds = new long[slots];
+        operators = new char[slots];
+        results = new double[slots];
+        referenced = new boolean[slots];
+        hands = new byte[sets];
+        setMask = sets - 1;
+
+        locks = new StampedLock[Math.min(sets, MAX_STRIPES)];
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new StampedLock();
+        lockMask = locks.length - 1;
+    }
+
+    /**
+     * Same contract as {@link Arithmetic#calculate(double, double, char)}.
+     */
+    public double calculate(double firstNumber, double secondNumber, char operator) {
+        if (operator != '^')
+            return Arithmetic.calculate(firstNumber, secondNumber, operator);
+        return lookup(operator, firstNumber, secondNumber);
+    }
+
+    public double sqrt(double value) {
+        return lookup('√', value, 0);
+    }
+
+    public double ln(double value) {
+        return lookup('l', value, 0);
+    }
+
+    /**
+     * Applies {@code function}, going through the cache for {@code sqrt} and {@code ln}.
+     */
+    public double apply(MathFunction function, double value) {
+        switch (function) {
+            case SQRT:
+                return sqrt(value);
+            case LN:
+                return ln(value);
+            default:
+                return function.apply(value);
+        }
+    }
+
+    public int getCapacity() {
+        return results.length;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private double lookup(char operator, double first, double second) {
+        long firstBits = Double.doubleToRawLongBits(first);
+        long secondBits = Double.doubleToRawLongBits(second);
+        int set = setOf(operator, firstBits, secondBits);
+        StampedLock lock = locks[set & lockMask];
+
+        long stamp = lock.tryOptimisticRead();
+        int slot = find(set, operator, firstBits, secondBits);
+        double result = slot < 0 ? 0 : results[slot];
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slot = find(set, operator, firstBits, secondBits);
+                result = slot < 0 ? 0 : results[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (slot >= 0) {
+            // a racy write: at worst it spares or dooms one entry on the next CLOCK sweep
+            referenced[slot] = true;
+            hits.increment();
+            return result;
+        }
+
+        misses.increment();
+        result = compute(operator, first, second);
+        stamp = lock.writeLock();
+        try {
+            if (find(set, operator, firstBits, secondBits) < 0)
+                store(set, operator, firstBits, secondBits, result);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return result;
+    }
+
+    private int find(int set, char operator, long firstBits, long secondBits) {
+        int base = set * WAYS;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (operators[slot] == operator && firsts[slot] == firstBits && seconds[slot] == secondBits)
+                return slot;
+        }
+        return -1;
+    }
+
+    private void store(int set, char operator, long firstBits, long secondBits, double result) {
+        int base = set * WAYS;
+        int slot = -1;
+        for (int i = base; i < base + WAYS; i++) {
+            if (operators[i] == NO_OPERAND) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            int hand = hands[set];
+            while (referenced[base + hand]) {
+                referenced[base + hand] = false;
+                hand = (hand + 1) & (WAYS - 1);
+            }
+            slot = base + hand;
+            hands[set] = (byte) ((hand + 1) & (WAYS - 1));
+            evictions.increment();
+        }
+        firsts[slot] = firstBits;
+        seconds[slot] = secondBits;
+        results[slot] = result;
+        referenced[slot] = false;
+        operators[slot] = operator;
+    }
+
+    private int setOf(char operator, long firstBits, long secondBits) {
+        long h = firstBits * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(secondBits, 31) ^ operator;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h & setMask;
+    }
+
+    private static double compute(char operator, double first, double second) {
+        switch (operator) {
+            case '√':
+                return Arithmetic.sqrt(first);
+            case 'l':
+                return Arithmetic.ln(first);
+            default:
+                return Arithmetic.calculate(first, second, operator);
+        }
+    }
+}
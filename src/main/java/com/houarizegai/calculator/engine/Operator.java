@@ -0,0 +1,86 @@
+package com.houarizegai.calculator.engine;
+
+public enum Operator {
+
+    ADD('+', 1) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return firstNumber + secondNumber;
+        }
+    },
+    SUBTRACT('-', 1) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return firstNumber - secondNumber;
+        }
+    },
+    MULTIPLY('*', 2) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return firstNumber * secondNumber;
+        }
+    },
+    DIVIDE('/', 2) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return firstNumber / secondNumber;
+        }
+    },
+    MODULO('%', 2) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return firstNumber % secondNumber;
+        }
+    },
+    POWER('^', 3) {
+        @Override
+        public double apply(double firstNumber, double secondNumber) {
+            return Math.pow(firstNumber, secondNumber);
+        }
+    };
+
+    private final char symbol;
+    private final int precedence;
+
+    Operator(char symbol, int precedence) {
+        this.symbol = symbol;
+        this.precedence = precedence;
+    }
+
+    public abstract double apply(double firstNumber, double secondNumber);
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public int getPrecedence() {
+        return precedence;
+    }
+
+    public boolean isRightAssociative() {
+        return this == POWER;
+    }
+
+    /**
+     * Returns the operator bound to the given symbol, or {@code null} when the symbol is not a binary operator
+     * (for example {@code ' '} or {@code '='}).
+     */
+    public static Operator of(char symbol) {
+        switch (symbol) {
+            case '+':
+                return ADD;
+            case '-':
+                return SUBTRACT;
+            case '*':
+                return MULTIPLY;
+            case '/':
+                return DIVIDE;
+            case '%':
+                return MODULO;
+            case '^':
+                return POWER;
+            default:
+                return null;
+        }
+    }
+}
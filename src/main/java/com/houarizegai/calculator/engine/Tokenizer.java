@@ -0,0 +1,102 @@
+package com.houarizegai.calculator.engine;
+
+/**
+ * Cursor over the tokens of an expression. The tokenizer does not allocate token objects: callers advance with
+ * {@link #next()} and read the current token through the accessors, which makes a single instance reusable across
+ * many inputs via {@link #reset(CharSequence)}.
+ */
+public class Tokenizer {
+
+    public enum Type {
+        NUMBER, IDENTIFIER, OPERATOR, ROOT, LEFT_PAREN, RIGHT_PAREN, END
+    }
+
+    private CharSequence text;
+    private int length;
+    private int position;
+
+    private Type type;
+    private int start;
+    private int end;
+    private double number;
+    private Operator operator;
+
+    public Tokenizer(CharSequence text) {
+        reset(text);
+    }
+
+    public void reset(CharSequence text) {
+        this.text = text;
+        this.length = text.length();
+        this.position = 0;
+        this.type = null;
+    }
+
+    public Type next() {
+        while (position < length && Character.isWhitespace(text.charAt(position)))
+            position++;
+
+        start = position;
+        number = 0;
+        operator = null;
+        if (position >= length) {
+            end = position;
+            return type = Type.END;
+        }
+
+        char c = text.charAt(position);
+        if (NumberParser.isDigit(c) || c == '.') {
+            end = NumberParser.scan(text, position, length);
+            if (end == position)
+                throw new ExpressionException("Malformed number", position);
+            number = NumberParser.parse(text, position, end);
+            position = end;
+            return type = Type.NUMBER;
+        }
+        if (Character.isLetter(c) || c == '_') {
+            while (position < length && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_'))
+                position++;
+            end = position;
+            return type = Type.IDENTIFIER;
+        }
+
+        end = ++position;
+        switch (c) {
+            case '(':
+                return type = Type.LEFT_PAREN;
+            case ')':
+                return type = Type.RIGHT_PAREN;
+            case '√':
+                return type = Type.ROOT;
+            default:
+                operator = Operator.of(c);
+                if (operator == null)
+                    throw new ExpressionException("Unexpected character '" + c + "'", start);
+                return type = Type.OPERATOR;
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public double getNumber() {
+        return number;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public String getText() {
+        return text.subSequence(start, end).toString();
+    }
+}
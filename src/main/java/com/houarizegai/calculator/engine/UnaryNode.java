@@ -0,0 +1,30 @@
+package com.houarizegai.calculator.engine;
+
+final class UnaryNode extends Node {
+
+    private final MathFunction function;
+    private final Node operand;
+
+    UnaryNode(MathFunction function, Node operand) {
+        this.function = function;
+        this.operand = operand;
+    }
+
+    MathFunction getFunction() {
+        return function;
+    }
+
+    Node getOperand() {
+        return operand;
+    }
+
+    @Override
+    double evaluate(double[] variables) {
+        return function.apply(operand.evaluate(variables));
+    }
+
+    @Override
+    public String toString() {
+        return function == MathFunction.NEGATE ? "(-" + operand + ")" : function.getName() + "(" + operand + ")";
+    }
+}
@@ -0,0 +1,30 @@
+package com.houarizegai.calculator.engine;
+
+final class VariableNode extends Node {
+
+    private final String name;
+    private final int slot;
+
+    VariableNode(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    @Override
+    double evaluate(double[] variables) {
+        return variables[slot];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
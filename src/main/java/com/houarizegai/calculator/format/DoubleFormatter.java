@@ -0,0 +1,249 @@
+package com.houarizegai.calculator.format;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Formats {@code double} results for display and bulk output.
+ * <p>
+ * By default a value is written with the fewest significant digits that still read back as the same
+ * {@code double} (see {@link Schubfach}), so {@code 0.1 + 0.2} prints as {@code 0.30000000000000004} and {@code 0.3}
+ * as {@code 0.3}. Integer values print without a fraction at any magnitude ({@code 1e15} is
+ * {@code 1000000000000000}), negative zero prints as {@code 0}, and non-finite values print as {@code NaN},
+ * {@code Infinity} and {@code -Infinity}.
+ * <p>
+ * Exact decimals with more digits than a {@code double} holds go through {@link #format(BigDecimal, StringBuilder)}
+ * with the same notation rules, so every result the calculator shows is written by one formatter.
+ * <p>
+ * Formatters are immutable and thread-safe. The {@code char[]} and {@link StringBuilder} overloads let a caller
+ * reuse one buffer for every value it formats; the {@link StringBuilder} one formats through a per-thread scratch
+ * buffer, so it allocates nothing once the builder has room.
+ */
+public final class DoubleFormatter {
+
+    public enum Notation {
+        /**
+         * Plain digits for magnitudes in [1e-7, 1e21), scientific otherwise.
+         */
+        AUTO,
+        PLAIN,
+        SCIENTIFIC
+    }
+
+    /**
+     * Shortest round-trip digits in {@link Notation#AUTO} notation; what the calculator display shows.
+     */
+    public static final DoubleFormatter DISPLAY = new DoubleFormatter(0, Notation.AUTO);
+
+    /**
+     * Enough room for any value formatted in {@link Notation#AUTO} or {@link Notation#SCIENTIFIC} notation.
+     */
+    public static final int MAX_LENGTH = 32;
+
+    private static final int MAX_PLAIN_LENGTH = 360;
+    private static final int MIN_PLAIN_EXPONENT = -7;
+    private static final int MAX_PLAIN_EXPONENT = 21;
+    // room for any notation, shared by all formatters on a thread
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[MAX_PLAIN_LENGTH]);
+
+    private final int precision;
+    private final Notation notation;
+
+    /**
+     * @param precision maximum number of significant digits, rounding half up; {@code 0} keeps the shortest
+     *                  round-trip digits
+     */
+    public DoubleFormatter(int precision, Notation notation) {
+        if (precision < 0 || precision > 17)
+            throw new IllegalArgumentException("Precision must be between 0 and 17: " + precision);
+        this.precision = precision;
+        this.notation = notation;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public Notation getNotation() {
+        return notation;
+    }
+
+    /**
+     * Number of chars {@link #format(double, char[], int)} may need.
+     */
+    public int getMaxLength() {
+        return notation == Notation.PLAIN ? MAX_PLAIN_LENGTH : MAX_LENGTH;
+    }
+
+    public String format(double value) {
+        char[] buffer = SCRATCH.get();
+        return new String(buffer, 0, format(value, buffer, 0));
+    }
+
+    public StringBuilder format(double value, StringBuilder out) {
+        char[] buffer = SCRATCH.get();
+        return out.append(buffer, 0, format(value, buffer, 0));
+    }
+
+    /**
+     * Writes {@code value} at {@code offset} and returns the index just past it. The destination must have
+     * {@link #getMaxLength()} chars available from {@code offset}; this overload allocates nothing.
+     */
+    public int format(double value, char[] destination, int offset) {
+        if (destination.length - offset < getMaxLength())
+            throw new IndexOutOfBoundsException("Need " + getMaxLength() + " chars from offset " + offset);
+
+        int i = offset;
+        if (Double.isNaN(value))
+            return put(destination, i, "NaN");
+        if (value == 0) {
+            destination[i] = '0';
+            return i + 1;
+        }
+        if (value < 0) {
+            destination[i++] = '-';
+            value = -value;
+        }
+        if (value == Double.POSITIVE_INFINITY)
+            return put(destination, i, "Infinity");
+
+        long significand = Schubfach.significand(value);
+        int exponent = Schubfach.exponent(value);
+        while (significand % 10 == 0) {
+            significand /= 10;
+            exponent++;
+        }
+        int length = digitCount(significand);
+
+        if (precision > 0 && length > precision) {
+            int dropped = length - precision;
+            long divisor = pow10(dropped);
+            long remainder = significand % divisor;
+            significand /= divisor;
+            exponent += dropped;
+            if (remainder >= divisor / 2)
+                significand++;
+            while (significand % 10 == 0) {
+                significand /= 10;
+                exponent++;
+            }
+            length = digitCount(significand);
+        }
+
+        // value = 0.d1d2...dn * 10^point
+        int point = exponent + length;
+        boolean plain = notation == Notation.PLAIN
+                || notation == Notation.AUTO && point > MIN_PLAIN_EXPONENT && point <= MAX_PLAIN_EXPONENT;
+        return plain
+                ? plain(significand, length, point, destination, i)
+                : scientific(significand, length, point, destination, i);
+    }
+
+    /**
+     * Writes an exact decimal with the same notation rules as a {@code double}, rounded half up to the precision when
+     * one is set. {@link Notation#PLAIN} turns scientific when it would need more than {@code 360} digits.
+     */
+    public StringBuilder format(BigDecimal value, StringBuilder out) {
+        if (value.signum() == 0)
+            return out.append('0');
+        if (precision > 0 && value.precision() > precision)
+            value = value.round(new MathContext(precision, RoundingMode.HALF_UP));
+        value = value.stripTrailingZeros();
+        if (value.signum() < 0) {
+            out.append('-');
+            value = value.negate();
+        }
+
+        String digits = value.unscaledValue().toString();
+        int length = digits.length();
+        // value = 0.d1d2...dn * 10^point
+        long point = (long) length - value.scale();
+        boolean plain = notation == Notation.PLAIN && Math.abs(point) <= MAX_PLAIN_LENGTH
+                || notation == Notation.AUTO && point > MIN_PLAIN_EXPONENT && point <= MAX_PLAIN_EXPONENT;
+        if (!plain) {
+            out.append(digits.charAt(0));
+            if (length > 1)
+                out.append('.').append(digits, 1, length);
+            return out.append('E').append(point - 1);
+        }
+        if (point <= 0) {
+            out.append("0.");
+            for (long z = point; z < 0; z++)
+                out.append('0');
+            return out.append(digits);
+        }
+        if (point >= length) {
+            out.append(digits);
+            for (long z = length; z < point; z++)
+                out.append('0');
+            return out;
+        }
+        return out.append(digits, 0, (int) point).append('.').append(digits, (int) point, length);
+    }
+
+    private static int plain(long significand, int length, int point, char[] out, int i) {
+        if (point <= 0) {
+            out[i++] = '0';
+            out[i++] = '.';
+            for (int z = 0; z < -point; z++)
+                out[i++] = '0';
+            return digits(significand, length, -1, out, i);
+        }
+        if (point >= length) {
+            i = digits(significand, length, -1, out, i);
+            for (int z = length; z < point; z++)
+                out[i++] = '0';
+            return i;
+        }
+        return digits(significand, length, point, out, i);
+    }
+
+    private static int scientific(long significand, int length, int point, char[] out, int i) {
+        i = digits(significand, length, length > 1 ? 1 : -1, out, i);
+        out[i++] = 'E';
+        int exponent = point - 1;
+        if (exponent < 0) {
+            out[i++] = '-';
+            exponent = -exponent;
+        }
+        return digits(exponent, digitCount(exponent), -1, out, i);
+    }
+
+    /**
+     * Writes the {@code length} digits of {@code value}, with a decimal point after the first {@code pointAfter}
+     * digits when {@code pointAfter} is positive.
+     */
+    private static int digits(long value, int length, int pointAfter, char[] out, int i) {
+        int end = i + length + (pointAfter > 0 ? 1 : 0);
+        int position = end;
+        for (int d = length; d > 0; d--) {
+            if (d == pointAfter)
+                out[--position] = '.';
+            out[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static int put(char[] out, int i, String text) {
+        text.getChars(0, text.length(), out, i);
+        return i + text.length();
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++)
+            result *= 10;
+        return result;
+    }
+}
@@ -0,0 +1,158 @@
+package com.houarizegai.calculator.format;
+
+import java.math.BigInteger;
+
+/**
+ * Shortest decimal that rounds back to a given {@code double}, after Raffaello Giulietti's Schubfach algorithm
+ * ("The Schubfach way to render doubles", 2020), the same one used by {@code Double.toString} since JDK 19.
+ * <p>
+ * For a positive finite {@code v}, {@code v} is the double nearest to {@code significand(v) * 10^exponent(v)},
+ * and no decimal with fewer digits has that property. The 126-bit powers of ten the algorithm needs are computed
+ * once with {@link BigInteger} when the class is initialized.
+ */
+final class Schubfach {
+
+    private static final int P = 53;
+    private static final int W = 11;
+    private static final int Q_MIN = (-1 << W - 1) - P + 3;
+    private static final long C_MIN = 1L << P - 1;
+    private static final int BQ_MASK = (1 << W) - 1;
+    private static final long T_MASK = (1L << P - 1) - 1;
+    private static final long C_TINY = 3;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G = powersOfTen();
+
+    private Schubfach() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Decimal significand of the shortest representation of a positive finite {@code v}. It may carry trailing
+     * zeros, which do not change its {@link #exponent}.
+     */
+    static long significand(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq & mq < P) {
+                long f = c >> mq;
+                if (f << mq == c)
+                    return f;
+            }
+            return significand(-mq, c);
+        }
+        return t < C_TINY ? significand(Q_MIN, 10 * t) : significand(Q_MIN, t);
+    }
+
+    /**
+     * Decimal exponent matching {@link #significand}.
+     */
+    static int exponent(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> P - 1) & BQ_MASK;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq & mq < P) {
+                long f = c >> mq;
+                if (f << mq == c)
+                    return 0;
+            }
+            return k(-mq, c);
+        }
+        return t < C_TINY ? k(Q_MIN, 10 * t) - 1 : k(Q_MIN, t);
+    }
+
+    private static int k(int q, long c) {
+        return c != C_MIN | q == Q_MIN ? flog10pow2(q) : flog10threeQuartersPow2(q);
+    }
+
+    private static long significand(int q, long c) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl = c != C_MIN | q == Q_MIN ? cb - 2 : cb - 1;
+        int k = k(q, c);
+
+        int h = q + flog2pow10(-k) + 2;
+        int index = (k - K_MIN) << 1;
+        long g1 = G[index];
+        long g0 = G[index + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return upin ? sp10 : tp10;
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return uin ? s : t;
+
+        long cmp = vb - (s + t << 1);
+        return cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t;
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * For each k in [K_MIN, K_MAX], g = floor(10^-k 2^-r) + 1 with r chosen so that 2^125 <= g < 2^126, split into
+     * its high and low 63 bits.
+     */
+    private static long[] powersOfTen() {
+        long[] table = new long[(K_MAX - K_MIN + 1) << 1];
+        BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int shift = 125 - flog2pow10(e);
+            BigInteger beta;
+            if (e >= 0) {
+                BigInteger power = BigInteger.TEN.pow(e);
+                beta = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(-e));
+            }
+            BigInteger g = beta.add(BigInteger.ONE);
+            int index = (k - K_MIN) << 1;
+            table[index] = g.shiftRight(63).longValueExact();
+            table[index + 1] = g.and(mask).longValue();
+        }
+        return table;
+    }
+}
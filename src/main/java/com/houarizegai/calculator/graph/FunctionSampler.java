@@ -0,0 +1,281 @@
+package com.houarizegai.calculator.graph;
+
+import com.houarizegai.calculator.engine.Formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Samples {@code y = f(x)} on a power-of-two grid and reduces the samples to the lowest and highest value per pixel
+ * column, so that drawing costs one vertical run per column however many samples there are.
+ * <p>
+ * The grid spacing is the power of two that gives each column between {@value #SAMPLES_PER_COLUMN} and twice as many
+ * samples, so x values are exact multiples of the spacing. Samples are kept in tiles of {@value #TILE_SAMPLES} in an
+ * LRU cache: panning only computes the tiles that scroll into view, and because a grid point at one spacing is also a
+ * grid point at half the spacing, zooming in by two reuses every other sample of the coarser tiles and zooming out
+ * reuses whole finer tiles. Missing tiles are computed in parallel on the common fork/join pool.
+ * <p>
+ * Instances are not thread-safe; the formula they evaluate may be shared.
+ */
+public final class FunctionSampler {
+
+    public static final int SAMPLES_PER_COLUMN = 2048;
+
+    static final int TILE_SAMPLES = 8192;
+    private static final int MAX_TILES = 256;
+    // suggested y ranges stay within this, so that their height, margins included, is finite
+    private static final double MAX_Y = Double.MAX_VALUE / 4;
+
+    /**
+     * Per-column extremes of the samples, {@code NaN} for columns without a finite sample.
+     */
+    public static final class Columns {
+
+        private final double[] min;
+        private final double[] max;
+        private final double[] last;
+        private final long samples;
+        private final long computed;
+
+        Columns(double[] min, double[] max, double[] last, long samples, long computed) {
+            this.min = min;
+            this.max = max;
+            this.last = last;
+            this.samples = samples;
+            this.computed = computed;
+        }
+
+        public int size() {
+            return min.length;
+        }
+
+        public double getMin(int column) {
+            return min[column];
+        }
+
+        public double getMax(int column) {
+            return max[column];
+        }
+
+        /**
+         * The rightmost finite sample of the column, which the next column's run is joined to.
+         */
+        public double getLast(int column) {
+            return last[column];
+        }
+
+        public long getSampleCount() {
+            return samples;
+        }
+
+        /**
+         * Samples that had to be evaluated; the rest came from the cache.
+         */
+        public long getComputedCount() {
+            return computed;
+        }
+
+        /**
+         * A y range covering most of the curve: the 2nd to the 98th percentile of the column extremes, so a pole
+         * does not flatten everything else. Values beyond {@code ±Double.MAX_VALUE / 4} are clamped so that the range
+         * always makes a {@link Viewport}. {@code null} when no column has a finite sample.
+         */
+        public double[] suggestYRange() {
+            double[] values = new double[min.length * 2];
+            int count = 0;
+            for (int i = 0; i < min.length; i++) {
+                if (!Double.isNaN(min[i])) {
+                    values[count++] = min[i];
+                    values[count++] = max[i];
+                }
+            }
+            if (count == 0)
+                return null;
+            Arrays.sort(values, 0, count);
+            double low = Math.max(-MAX_Y, values[(int) (count * 0.02)]);
+            double high = Math.min(MAX_Y, values[(int) Math.min(count - 1, count * 0.98)]);
+            double margin = (high - low) * 0.1;
+            if (!(margin > 0))
+                margin = Math.max(1, Math.abs(low));
+            return new double[]{low - margin, high + margin};
+        }
+    }
+
+    private static final class TileKey {
+
+        final int exponent;
+        final long index;
+
+        TileKey(int exponent, long index) {
+            this.exponent = exponent;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof TileKey))
+                return false;
+            TileKey key = (TileKey) other;
+            return exponent == key.exponent && index == key.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(exponent, index);
+        }
+    }
+
+    private final Formula formula;
+    private int capacity = MAX_TILES;
+    private final Map<TileKey, double[]> tiles = new LinkedHashMap<TileKey, double[]>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, double[]> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    /**
+     * @throws IllegalArgumentException if the formula has more than one variable
+     */
+    public FunctionSampler(Formula formula) {
+        if (formula.getVariableCount() > 1)
+            throw new IllegalArgumentException("Expected a function of one variable, got " + formula.getVariables());
+        this.formula = formula;
+    }
+
+    public Formula getFormula() {
+        return formula;
+    }
+
+    /**
+     * Extremes of {@code f} over each of {@code columns} equal slices of {@code [xMin, xMax)}.
+     */
+    public Columns sample(double xMin, double xMax, int columns) {
+        if (!(xMin < xMax) || columns < 1)
+            throw new IllegalArgumentException("Nothing to sample: " + xMin + ".." + xMax + " in " + columns
+                    + " columns");
+
+        double columnWidth = (xMax - xMin) / columns;
+        int exponent = Math.getExponent(columnWidth / SAMPLES_PER_COLUMN);
+        double spacing = Math.scalb(1.0, exponent);
+        long first = (long) Math.ceil(xMin / spacing);
+        long end = (long) Math.ceil(xMax / spacing);
+        long computed = fetchTiles(exponent, Math.floorDiv(first, TILE_SAMPLES), Math.floorDiv(end - 1, TILE_SAMPLES));
+
+        double[] min = new double[columns];
+        double[] max = new double[columns];
+        double[] last = new double[columns];
+        Arrays.fill(min, Double.NaN);
+        Arrays.fill(max, Double.NaN);
+        Arrays.fill(last, Double.NaN);
+        long n = first;
+        while (n < end) {
+            long tileIndex = Math.floorDiv(n, TILE_SAMPLES);
+            double[] tile = tiles.get(new TileKey(exponent, tileIndex));
+            long tileEnd = Math.min(end, (tileIndex + 1) * TILE_SAMPLES);
+            for (; n < tileEnd; n++) {
+                double y = tile[(int) (n - tileIndex * TILE_SAMPLES)];
+                if (Double.isNaN(y) || Double.isInfinite(y))
+                    continue;
+                int column = (int) ((n * spacing - xMin) / columnWidth);
+                if (column >= columns)
+                    column = columns - 1;
+                if (Double.isNaN(min[column])) {
+                    min[column] = y;
+                    max[column] = y;
+                } else if (y < min[column]) {
+                    min[column] = y;
+                } else if (y > max[column]) {
+                    max[column] = y;
+                }
+                last[column] = y;
+            }
+        }
+        return new Columns(min, max, last, end - first, computed);
+    }
+
+    /**
+     * Makes sure tiles {@code [from, to]} at the given spacing are cached. Returns the number of samples evaluated.
+     */
+    private long fetchTiles(int exponent, long from, long to) {
+        List<TileTask> missing = new ArrayList<>();
+        for (long index = from; index <= to; index++) {
+            TileKey key = new TileKey(exponent, index);
+            if (tiles.get(key) != null)
+                continue;
+            // the LRU map reorders on get, so the sources are looked up here rather than by the tasks
+            missing.add(new TileTask(formula, exponent, index,
+                    tiles.get(new TileKey(exponent + 1, Math.floorDiv(index, 2))),
+                    tiles.get(new TileKey(exponent - 1, index * 2)),
+                    tiles.get(new TileKey(exponent - 1, index * 2 + 1))));
+        }
+        // a very wide view must not evict its own tiles before they are read
+        capacity = (int) Math.max(MAX_TILES, 2 * (to - from + 1));
+        ForkJoinTask.invokeAll(missing);
+        long computed = 0;
+        for (TileTask task : missing) {
+            tiles.put(new TileKey(exponent, task.index), task.samples);
+            computed += task.computed;
+        }
+        return computed;
+    }
+
+    private static final class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Formula formula;
+        private final int exponent;
+        private final long index;
+        private final double[] coarse;
+        private final double[] fineLeft;
+        private final double[] fineRight;
+        private final double[] samples = new double[TILE_SAMPLES];
+        private int computed;
+
+        TileTask(Formula formula, int exponent, long index, double[] coarse, double[] fineLeft, double[] fineRight) {
+            this.formula = formula;
+            this.exponent = exponent;
+            this.index = index;
+            this.coarse = coarse;
+            this.fineLeft = fineLeft;
+            this.fineRight = fineRight;
+        }
+
+        @Override
+        protected void compute() {
+            int half = TILE_SAMPLES / 2;
+            if (fineLeft != null && fineRight != null) {
+                // every grid point here is every other grid point of the two finer tiles
+                for (int i = 0; i < half; i++) {
+                    samples[i] = fineLeft[2 * i];
+                    samples[half + i] = fineRight[2 * i];
+                }
+                return;
+            }
+
+            double spacing = Math.scalb(1.0, exponent);
+            long start = index * TILE_SAMPLES;
+            double[] x = new double[1];
+            int step = 1;
+            if (coarse != null) {
+                // the even grid points here are the coarser tile's, in its first or second half
+                int offset = (int) Math.floorMod(index, 2L) * half;
+                for (int i = 0; i < TILE_SAMPLES; i += 2)
+                    samples[i] = coarse[offset + i / 2];
+                step = 2;
+            }
+            for (int i = step - 1; i < TILE_SAMPLES; i += step) {
+                x[0] = (start + i) * spacing;
+                samples[i] = formula.evaluate(x);
+            }
+            computed = TILE_SAMPLES / step;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.houarizegai.calculator.graph;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws sampled {@link FunctionSampler.Columns} into an image. The curve is one vertical run of pixels per column,
+ * from the column's lowest to its highest sample and joined to the previous column's last one, written straight into
+ * the image's pixel array; only the axis labels go through {@link Graphics2D}. Safe to call from any thread.
+ */
+public final class GraphRenderer {
+
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+    private static final DoubleFormatter LABEL_FORMAT = new DoubleFormatter(4, DoubleFormatter.Notation.AUTO);
+
+    private GraphRenderer() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * @param columns samples of {@code viewport}'s x range in exactly {@code width} columns
+     */
+    public static BufferedImage render(FunctionSampler.Columns columns, Viewport viewport, int width, int height,
+                                       Color background, Color axes, Color curve) {
+        if (columns.size() != width)
+            throw new IllegalArgumentException(columns.size() + " columns for an image " + width + " wide");
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(pixels, background.getRGB());
+
+        int axisColor = axes.getRGB();
+        int xAxisRow = row(0, viewport, height);
+        if (xAxisRow >= 0 && xAxisRow < height)
+            Arrays.fill(pixels, xAxisRow * width, (xAxisRow + 1) * width, axisColor);
+        int yAxisColumn = (int) Math.floor(-viewport.getXMin() / viewport.getWidth() * width);
+        if (yAxisColumn >= 0 && yAxisColumn < width) {
+            for (int y = 0; y < height; y++)
+                pixels[y * width + yAxisColumn] = axisColor;
+        }
+
+        int curveColor = curve.getRGB();
+        double previous = Double.NaN;
+        for (int x = 0; x < width; x++) {
+            double min = columns.getMin(x);
+            if (Double.isNaN(min)) {
+                previous = Double.NaN;
+                continue;
+            }
+            double max = columns.getMax(x);
+            if (!Double.isNaN(previous)) {
+                min = Math.min(min, previous);
+                max = Math.max(max, previous);
+            }
+            previous = columns.getLast(x);
+
+            int top = Math.max(0, row(max, viewport, height));
+            int bottom = Math.min(height - 1, row(min, viewport, height));
+            for (int y = top; y <= bottom; y++)
+                pixels[y * width + x] = curveColor;
+        }
+
+        drawLabels(image, viewport, axes);
+        return image;
+    }
+
+    /**
+     * Pixel row of {@code y}, clamped just outside the image so that far-off values cannot overflow.
+     */
+    private static int row(double y, Viewport viewport, int height) {
+        double row = Math.floor((viewport.getYMax() - y) / viewport.getHeight() * height);
+        return (int) Math.max(-1, Math.min(height, row));
+    }
+
+    private static void drawLabels(BufferedImage image, Viewport viewport, Color color) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(LABEL_FONT);
+            g.setColor(color);
+            int ascent = g.getFontMetrics().getAscent();
+            int width = image.getWidth();
+            int height = image.getHeight();
+            String xMax = LABEL_FORMAT.format(viewport.getXMax());
+            String yMin = LABEL_FORMAT.format(viewport.getYMin());
+            g.drawString(LABEL_FORMAT.format(viewport.getYMax()), 3, ascent + 2);
+            g.drawString(yMin, 3, height - ascent - 6);
+            g.drawString(LABEL_FORMAT.format(viewport.getXMin()), 3, height - 3);
+            g.drawString(xMax, width - g.getFontMetrics().stringWidth(xMax) - 3, height - 3);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.houarizegai.calculator.graph;
+
+/**
+ * The rectangle of the plane a graph shows. Immutable; panning and zooming return a new viewport.
+ */
+public final class Viewport {
+
+    // below this width relative to the coordinates, samples would no longer be distinct doubles
+    private static final double MIN_RELATIVE_WIDTH = 1e-10;
+    private static final double MAX_WIDTH = 1e12;
+
+    private final double xMin;
+    private final double xMax;
+    private final double yMin;
+    private final double yMax;
+
+    public Viewport(double xMin, double xMax, double yMin, double yMax) {
+        if (!(xMin < xMax) || !(yMin < yMax) || Double.isInfinite(xMax - xMin) || Double.isInfinite(yMax - yMin))
+            throw new IllegalArgumentException("Empty or infinite viewport: x " + xMin + ".." + xMax + ", y " + yMin
+                    + ".." + yMax);
+        this.xMin = xMin;
+        this.xMax = xMax;
+        this.yMin = yMin;
+        this.yMax = yMax;
+    }
+
+    public double getXMin() {
+        return xMin;
+    }
+
+    public double getXMax() {
+        return xMax;
+    }
+
+    public double getYMin() {
+        return yMin;
+    }
+
+    public double getYMax() {
+        return yMax;
+    }
+
+    public double getWidth() {
+        return xMax - xMin;
+    }
+
+    public double getHeight() {
+        return yMax - yMin;
+    }
+
+    /**
+     * Same x range, y range replaced.
+     */
+    public Viewport withYRange(double min, double max) {
+        return new Viewport(xMin, xMax, min, max);
+    }
+
+    /**
+     * Moved by {@code dx} and {@code dy} in plane units.
+     */
+    public Viewport pan(double dx, double dy) {
+        return new Viewport(xMin + dx, xMax + dx, yMin + dy, yMax + dy);
+    }
+
+    /**
+     * Scaled by {@code factor} (below 1 zooms in) around {@code (x, y)}, which stays at the same place on screen. The
+     * zoom stops where samples would become too close to tell apart, or the range too wide.
+     */
+    public Viewport zoom(double factor, double x, double y) {
+        double scale = factor;
+        double magnitude = Math.max(1, Math.max(Math.abs(xMin), Math.abs(xMax)));
+        if (getWidth() * scale < magnitude * MIN_RELATIVE_WIDTH)
+            scale = magnitude * MIN_RELATIVE_WIDTH / getWidth();
+        if (Math.max(getWidth(), getHeight()) * scale > MAX_WIDTH)
+            scale = MAX_WIDTH / Math.max(getWidth(), getHeight());
+        return new Viewport(x - (x - xMin) * scale, x + (xMax - x) * scale,
+                y - (y - yMin) * scale, y + (yMax - y) * scale);
+    }
+
+    @Override
+    public String toString() {
+        return "x " + xMin + ".." + xMax + ", y " + yMin + ".." + yMax;
+    }
+}
@@ -0,0 +1,58 @@
+package com.houarizegai.calculator.history;
+
+/**
+ * Mutable view of one {@link HistoryLog} record. A single instance is meant to be refilled by
+ * {@link HistoryLog#read(long, HistoryEntry)} for every row read, so scrolling through the history allocates nothing.
+ */
+public final class HistoryEntry {
+
+    private long index;
+    private long timestamp;
+    private double first;
+    private char operator;
+    private double second;
+    private double result;
+
+    void set(long index, long timestamp, double first, char operator, double second, double result) {
+        this.index = index;
+        this.timestamp = timestamp;
+        this.first = first;
+        this.operator = operator;
+        this.second = second;
+        this.result = result;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Milliseconds since the epoch. Timestamps never decrease along the log.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getFirst() {
+        return first;
+    }
+
+    public char getOperator() {
+        return operator;
+    }
+
+    /**
+     * The second operand, or {@code NaN} for {@code √} and {@code ln}, which only have one.
+     */
+    public double getSecond() {
+        return second;
+    }
+
+    public double getResult() {
+        return result;
+    }
+
+    public boolean isUnary() {
+        return HistoryLog.isUnary(operator);
+    }
+}
@@ -0,0 +1,341 @@
+package com.houarizegai.calculator.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Append-only log of completed operations in a memory-mapped file of fixed-width binary records.
+ * <p>
+ * The file is a {@value #HEADER_SIZE} byte header (magic, version, record size and the committed record count)
+ * followed by {@value #RECORD_SIZE} byte records: timestamp, first operand, second operand, result and operator. It
+ * is mapped {@value #SEGMENT_RECORDS} records at a time, and at most {@value #MAX_MAPPED_SEGMENTS} segments stay
+ * mapped, the oldest mapping being dropped first, so neither appending nor querying millions of records puts them on
+ * the heap or pins the whole file in memory. The latest records are also kept in a {@link RecentHistory} ring, which
+ * serves the rows a history view shows most.
+ * <p>
+ * The file is locked exclusively while open. When another process already holds the lock, the log is opened
+ * {@linkplain #isReadOnly() read-only}: it shows the records committed so far and {@code append} fails, so two
+ * calculators never interleave records.
+ * <p>
+ * One thread at a time appends; any number of threads may read concurrently. A record is visible to readers once
+ * {@link #size()} covers it, and the header count is only advanced after the record is written, so a crash loses at
+ * most the record being appended.
+ */
+public final class HistoryLog implements Closeable {
+
+    public static final String FILE_PROPERTY = "calculator.history.file";
+    public static final int DEFAULT_RECENT_CAPACITY = 1 << 12;
+
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 40;
+    static final int SEGMENT_RECORDS = 1 << 16;
+    static final int MAX_MAPPED_SEGMENTS = 4;
+
+    private static final int MAGIC = 0x43485354; // "CHST"
+    private static final int VERSION = 1;
+    private static final int COUNT_OFFSET = 16;
+
+    private static final int TIMESTAMP = 0;
+    private static final int FIRST = 8;
+    private static final int SECOND = 16;
+    private static final int RESULT = 24;
+    private static final int OPERATOR = 32;
+
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final MappedByteBuffer header;
+    private final RecentHistory recent;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    // segment numbers in the order they were mapped, for eviction
+    private final int[] mappedOrder = new int[MAX_MAPPED_SEGMENTS];
+    private int mappedCount;
+    private volatile long size;
+    private long lastTimestamp;
+
+    private HistoryLog(FileChannel channel, boolean readOnly, int recentCapacity) throws IOException {
+        this.channel = channel;
+        this.readOnly = readOnly;
+        this.recent = new RecentHistory(recentCapacity);
+        if (readOnly && channel.size() < HEADER_SIZE)
+            throw new IOException("History log is being created by another process");
+        this.header = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE);
+
+        if (header.getInt(0) == 0 && !readOnly) {
+            header.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE).putLong(COUNT_OFFSET, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Not a history log, or one written by another version");
+        }
+
+        long count = header.getLong(COUNT_OFFSET);
+        long stored = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        size = Math.max(0, Math.min(count, stored));
+        if (size > 0)
+            lastTimestamp = getTimestamp(size - 1);
+        for (long i = Math.max(0, size - recent.capacity()); i < size; i++) {
+            recent.put(i, getTimestamp(i), getFirst(i), getOperator(i), getSecond(i), getResult(i));
+        }
+    }
+
+    public static HistoryLog open(Path file) throws IOException {
+        return open(file, DEFAULT_RECENT_CAPACITY);
+    }
+
+    /**
+     * Opens {@code file}, creating it (and its parent directories) when missing, and keeps the last
+     * {@code recentCapacity} records in memory. The log is read-only when another process has the file open.
+     */
+    public static HistoryLog open(Path file, int recentCapacity) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // already open in this process
+                lock = null;
+            }
+            return new HistoryLog(channel, lock == null, recentCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The log file named by the {@value #FILE_PROPERTY} system property, {@code ~/.calculator/history.log} by
+     * default.
+     */
+    public static Path defaultFile() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null)
+            return Paths.get(file);
+        return Paths.get(System.getProperty("user.home"), ".calculator", "history.log");
+    }
+
+    /**
+     * Whether another process holds the log, so this one can read the records committed when it was opened but not
+     * append.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public static boolean isUnary(char operator) {
+        return operator == '√' || operator == 'l';
+    }
+
+    /**
+     * Appends a binary operation, stamped with the current time. Returns the index of the new record.
+     */
+    public long append(double first, char operator, double second, double result) throws IOException {
+        return append(System.currentTimeMillis(), first, operator, second, result);
+    }
+
+    /**
+     * Appends {@code √} or {@code ln} of {@code value}.
+     */
+    public long appendUnary(char operator, double value, double result) throws IOException {
+        return append(System.currentTimeMillis(), value, operator, Double.NaN, result);
+    }
+
+    /**
+     * Appends a record with an explicit timestamp, which is raised to the previous record's if the clock went back,
+     * so that timestamps stay sorted and {@link #indexOf(long)} can binary search them.
+     */
+    public synchronized long append(long timestamp, double first, char operator, double second, double result)
+            throws IOException {
+        if (readOnly)
+            throw new IOException("History log is open in another process");
+        long index = size;
+        timestamp = Math.max(timestamp, lastTimestamp);
+        MappedByteBuffer segment = segment(index);
+        int offset = offset(index);
+        segment.putLong(offset + TIMESTAMP, timestamp)
+                .putDouble(offset + FIRST, first)
+                .putDouble(offset + SECOND, second)
+                .putDouble(offset + RESULT, result)
+                .putChar(offset + OPERATOR, operator);
+        recent.put(index, timestamp, first, operator, second, result);
+
+        lastTimestamp = timestamp;
+        header.putLong(COUNT_OFFSET, index + 1);
+        size = index + 1;
+        return index;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Fills {@code entry} with record {@code index}, from memory for recent records and from the mapped file
+     * otherwise.
+     */
+    public HistoryEntry read(long index, HistoryEntry entry) {
+        checkIndex(index);
+        if (!recent.read(index, entry)) {
+            entry.set(index, getTimestamp(index), getFirst(index), getOperator(index), getSecond(index),
+                    getResult(index));
+        }
+        return entry;
+    }
+
+    public long getTimestamp(long index) {
+        checkIndex(index);
+        return buffer(index).getLong(offset(index) + TIMESTAMP);
+    }
+
+    public double getFirst(long index) {
+        checkIndex(index);
+        return buffer(index).getDouble(offset(index) + FIRST);
+    }
+
+    public double getSecond(long index) {
+        checkIndex(index);
+        return buffer(index).getDouble(offset(index) + SECOND);
+    }
+
+    public double getResult(long index) {
+        checkIndex(index);
+        return buffer(index).getDouble(offset(index) + RESULT);
+    }
+
+    public char getOperator(long index) {
+        checkIndex(index);
+        return buffer(index).getChar(offset(index) + OPERATOR);
+    }
+
+    /**
+     * Index of the first record stamped at or after {@code timestamp}, or {@link #size()} when there is none. Records
+     * in {@code [from, to)} are therefore {@code indexOf(from)} up to {@code indexOf(to)}.
+     */
+    public long indexOf(long timestamp) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (getTimestamp(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Visits, in order, the index of every record in {@code [from, to)} whose result lies in {@code [min, max]},
+     * until the visitor returns {@code false}. Returns the number of matches visited. Only one mapped segment is
+     * touched at a time.
+     */
+    public long findResults(long from, long to, double min, double max, LongPredicate visitor) {
+        long end = Math.min(to, size);
+        long matches = 0;
+        long index = Math.max(0, from);
+        while (index < end) {
+            ByteBuffer segment = buffer(index);
+            long segmentEnd = Math.min(end, (index / SEGMENT_RECORDS + 1) * SEGMENT_RECORDS);
+            for (; index < segmentEnd; index++) {
+                double result = segment.getDouble(offset(index) + RESULT);
+                if (result >= min && result <= max) {
+                    matches++;
+                    if (!visitor.test(index))
+                        return matches;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Number of records in {@code [from, to)} whose result lies in {@code [min, max]}.
+     */
+    public long countResults(long from, long to, double min, double max) {
+        return findResults(from, to, min, max, index -> true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!readOnly)
+            header.force();
+        // releases the lock as well
+        channel.close();
+    }
+
+    int getMappedSegmentCount() {
+        int count = 0;
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null)
+                count++;
+        }
+        return count;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Record " + index + " of " + size);
+    }
+
+    private static int offset(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    private ByteBuffer buffer(long index) {
+        try {
+            return segment(index);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map history segment of record " + index, e);
+        }
+    }
+
+    private MappedByteBuffer segment(long index) throws IOException {
+        int number = (int) (index / SEGMENT_RECORDS);
+        MappedByteBuffer[] mapped = segments;
+        if (number < mapped.length && mapped[number] != null)
+            return mapped[number];
+        return mapSegment(number);
+    }
+
+    private synchronized MappedByteBuffer mapSegment(int number) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (number < mapped.length && mapped[number] != null)
+            return mapped[number];
+
+        long position = HEADER_SIZE + (long) number * SEGMENT_RECORDS * RECORD_SIZE;
+        MappedByteBuffer segment;
+        if (readOnly) {
+            // a read-only mapping must not reach past the end of the file
+            long records = Math.min(SEGMENT_RECORDS, size - (long) number * SEGMENT_RECORDS);
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, position, records * RECORD_SIZE);
+        } else {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_RECORDS * RECORD_SIZE);
+        }
+        mapped = Arrays.copyOf(mapped, Math.max(mapped.length, number + 1));
+        if (mappedCount == MAX_MAPPED_SEGMENTS) {
+            // readers still holding the evicted buffer keep it alive; it is unmapped once collected
+            mapped[mappedOrder[0]] = null;
+            System.arraycopy(mappedOrder, 1, mappedOrder, 0, --mappedCount);
+        }
+        mappedOrder[mappedCount++] = number;
+        mapped[number] = segment;
+        segments = mapped;
+        return segment;
+    }
+}
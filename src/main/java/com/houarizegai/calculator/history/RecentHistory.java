@@ -0,0 +1,77 @@
+package com.houarizegai.calculator.history;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed-size ring of the latest history records, held in parallel primitive arrays. Record {@code i} lives in slot
+ * {@code i mod capacity} until it is overwritten; readers take an optimistic {@link StampedLock} read, so the EDT
+ * appending records never waits for them.
+ */
+final class RecentHistory {
+
+    private final long[] indexes;
+    private final long[] timestamps;
+    private final double[] firsts;
+    private final double[] seconds;
+    private final double[] results;
+    private final char[] operators;
+    private final int mask;
+    private final StampedLock lock = new StampedLock();
+
+    RecentHistory(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        indexes = new long[size];
+        Arrays.fill(indexes, -1);
+        timestamps = new long[size];
+        firsts = new double[size];
+        seconds = new double[size];
+        results = new double[size];
+        operators = new char[size];
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return indexes.length;
+    }
+
+    void put(long index, long timestamp, double first, char operator, double second, double result) {
+        int slot = (int) index & mask;
+        long stamp = lock.writeLock();
+        try {
+            indexes[slot] = index;
+            timestamps[slot] = timestamp;
+            firsts[slot] = first;
+            seconds[slot] = second;
+            results[slot] = result;
+            operators[slot] = operator;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies record {@code index} into {@code entry}. Returns {@code false} when the record is no longer (or not yet)
+     * in the ring, in which case the entry must be filled from elsewhere.
+     */
+    boolean read(long index, HistoryEntry entry) {
+        int slot = (int) index & mask;
+        long stamp = lock.tryOptimisticRead();
+        if (read(slot, index, entry) && lock.validate(stamp))
+            return true;
+
+        stamp = lock.readLock();
+        try {
+            return read(slot, index, entry);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean read(int slot, long index, HistoryEntry entry) {
+        if (indexes[slot] != index)
+            return false;
+        entry.set(index, timestamps[slot], firsts[slot], operators[slot], seconds[slot], results[slot]);
+        return true;
+    }
+}
@@ -0,0 +1,263 @@
+package com.houarizegai.calculator.input;
+
+import com.houarizegai.calculator.engine.NumberParser;
+
+import java.util.Arrays;
+
+/**
+ * The number shown on the calculator display, kept as a {@code char[]} together with everything needed to validate
+ * it and convert it to a {@code double}: sign, decimal point position and a running significand. Every keystroke
+ * updates that state in O(1), so the keypad never needs a regex, a matcher or {@link Double#parseDouble(String)}.
+ * <p>
+ * A value is {@linkplain #isValid() valid} when it has the shape {@code -?digits[.digits]}, which is what the
+ * operator keys accept. Results that do not have that shape ({@code NaN}, {@code Infinity}, exponent notation) can
+ * still be {@linkplain #set(CharSequence) shown}, but are not valid operands.
+ */
+public class NumberInput implements CharSequence {
+
+    private static final int MAX_EXACT_DIGITS = 18;
+    private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private char[] chars = new char[32];
+    private int length;
+
+    private boolean negative;
+    private int pointIndex;
+    private int integerDigits;
+    private int fractionDigits;
+    private long significand;
+    private boolean wellFormed;
+
+    public NumberInput() {
+        clear();
+    }
+
+    /**
+     * Resets the entry to {@code 0}.
+     */
+    public void clear() {
+        length = 0;
+        negative = false;
+        pointIndex = -1;
+        integerDigits = 0;
+        fractionDigits = 0;
+        significand = 0;
+        wellFormed = true;
+        appendDigit(0);
+    }
+
+    /**
+     * Types a digit: a lone {@code 0} is replaced rather than followed, anything else is extended.
+     */
+    public void appendDigit(int digit) {
+        if (digit < 0 || digit > 9)
+            throw new IllegalArgumentException("Not a digit: " + digit);
+
+        if (isZero())
+            length = integerDigits = 0;
+        push((char) ('0' + digit));
+        if (pointIndex < 0) {
+            integerDigits++;
+        } else {
+            fractionDigits++;
+        }
+        if (integerDigits + fractionDigits <= MAX_EXACT_DIGITS)
+            significand = significand * 10 + digit;
+    }
+
+    /**
+     * Types the decimal point; ignored when the entry already has one.
+     */
+    public void appendPoint() {
+        if (pointIndex >= 0)
+            return;
+
+        pointIndex = length;
+        push('.');
+    }
+
+    /**
+     * Starts a fresh entry with a single digit, as when typing right after a result.
+     */
+    public void startWith(int digit) {
+        clear();
+        appendDigit(digit);
+    }
+
+    /**
+     * Starts a fresh entry with {@code 0.}.
+     */
+    public void startWithPoint() {
+        clear();
+        appendPoint();
+    }
+
+    /**
+     * Deletes the last character; deleting the only character leaves {@code 0}.
+     */
+    public void backspace() {
+        if (length <= 1) {
+            clear();
+            return;
+        }
+
+        char removed = chars[--length];
+        if (!wellFormed) {
+            // trimming a display such as "1.0E10" may or may not leave a number behind
+            wellFormed = isNumericShape();
+            recount();
+        } else if (removed == '.') {
+            pointIndex = -1;
+        } else {
+            int digits = integerDigits + fractionDigits;
+            if (pointIndex < 0) {
+                integerDigits--;
+            } else {
+                fractionDigits--;
+            }
+            if (digits > MAX_EXACT_DIGITS + 1) {
+                return;
+            }
+            if (digits == MAX_EXACT_DIGITS + 1) {
+                recount();
+            } else {
+                significand /= 10;
+            }
+        }
+    }
+
+    /**
+     * Replaces the entry with an arbitrary display text, typically a formatted result.
+     */
+    public void set(CharSequence text) {
+        length = 0;
+        for (int i = 0; i < text.length(); i++)
+            push(text.charAt(i));
+        afterSet();
+    }
+
+    /**
+     * Replaces the entry with {@code length} chars of {@code text} starting at {@code offset}.
+     */
+    public void set(char[] text, int offset, int length) {
+        if (chars.length < length)
+            chars = new char[Math.max(length, chars.length * 2)];
+        System.arraycopy(text, offset, chars, 0, length);
+        this.length = length;
+        afterSet();
+    }
+
+    private void afterSet() {
+        if (length == 0) {
+            clear();
+            return;
+        }
+        wellFormed = isNumericShape();
+        recount();
+    }
+
+    /**
+     * Whether the entry is a complete number an operator can use: {@code -?digits[.digits]}.
+     */
+    public boolean isValid() {
+        return wellFormed && integerDigits > 0;
+    }
+
+    /**
+     * The value of a {@linkplain #isValid() valid} entry. Entries up to 18 significant digits with at most 22
+     * decimals convert with a single correctly rounded division of the running significand; longer ones are
+     * converted by {@link NumberParser} from the buffer itself.
+     */
+    public double doubleValue() {
+        if (!isValid())
+            throw new NumberFormatException("Not a number: " + this);
+
+        double value;
+        if (integerDigits + fractionDigits <= MAX_EXACT_DIGITS && significand <= MAX_EXACT_SIGNIFICAND
+                && fractionDigits < POWERS_OF_TEN.length) {
+            value = significand / POWERS_OF_TEN[fractionDigits];
+        } else {
+            int start = negative ? 1 : 0;
+            value = NumberParser.parse(this, start, length);
+        }
+        return negative ? -value : value;
+    }
+
+    private boolean isZero() {
+        return !negative && length == 1 && chars[0] == '0';
+    }
+
+    private void push(char c) {
+        if (length == chars.length)
+            chars = Arrays.copyOf(chars, length * 2);
+        chars[length++] = c;
+    }
+
+    private boolean isNumericShape() {
+        int i = chars[0] == '-' ? 1 : 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = chars[i];
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds sign, point and significand from the characters, after a bulk {@link #set}.
+     */
+    private void recount() {
+        negative = chars[0] == '-';
+        pointIndex = -1;
+        integerDigits = 0;
+        fractionDigits = 0;
+        significand = 0;
+        if (!wellFormed)
+            return;
+
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            char c = chars[i];
+            if (c == '.') {
+                pointIndex = i;
+                continue;
+            }
+            if (pointIndex < 0) {
+                integerDigits++;
+            } else {
+                fractionDigits++;
+            }
+            if (integerDigits + fractionDigits <= MAX_EXACT_DIGITS)
+                significand = significand * 10 + (c - '0');
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
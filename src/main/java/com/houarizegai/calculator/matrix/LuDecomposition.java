@@ -0,0 +1,197 @@
+package com.houarizegai.calculator.matrix;
+
+import com.houarizegai.calculator.util.Ranges;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * {@code P·A = L·U} with partial pivoting: at each step the row with the largest value in the pivot column is
+ * swapped up, which keeps the multipliers at most 1 in magnitude and the factorization stable.
+ * <p>
+ * {@code L} (unit diagonal, not stored) and {@code U} share one row-major array. Each elimination step updates the
+ * rows below the pivot in parallel, every row being a contiguous {@code row -= factor × pivotRow}. Substitution
+ * splits the right-hand side by column ranges, which are independent, so {@link #solve} with many columns (an
+ * inverse) scales across cores too. A zero multiplier skips its row update only when the row it would subtract is
+ * finite, so infinities and NaN propagate as they would without the shortcut.
+ */
+public final class LuDecomposition {
+
+    private static final int MIN_ROWS_PER_TASK = 16;
+    private static final int MIN_COLUMNS_PER_TASK = 32;
+    private static final long PARALLEL_WORK = 1L << 16;
+
+    private final int size;
+    private final double[] lu;
+    private final int[] permutation;
+    private final boolean singular;
+    private final int sign;
+
+    private LuDecomposition(int size, double[] lu, int[] permutation, boolean singular, int sign) {
+        this.size = size;
+        this.lu = lu;
+        this.permutation = permutation;
+        this.singular = singular;
+        this.sign = sign;
+    }
+
+    /**
+     * Factors a copy of {@code matrix}, reporting the fraction of the work done to {@code progress}.
+     */
+    public static LuDecomposition of(Matrix matrix, DoubleConsumer progress) {
+        if (!matrix.isSquare())
+            throw new IllegalArgumentException("Matrix is not square: " + matrix.shape());
+
+        int n = matrix.getRows();
+        double[] lu = matrix.toArray();
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++)
+            permutation[i] = i;
+        boolean singular = false;
+        int sign = 1;
+        double totalWork = (double) n * n * n;
+
+        for (int k = 0; k < n; k++) {
+            int pivot = k;
+            double largest = Math.abs(lu[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double candidate = Math.abs(lu[i * n + k]);
+                if (candidate > largest) {
+                    largest = candidate;
+                    pivot = i;
+                }
+            }
+            if (largest == 0) {
+                // nothing to eliminate in this column: U gets a zero on its diagonal
+                singular = true;
+                continue;
+            }
+            if (pivot != k) {
+                swapRows(lu, n, k, pivot);
+                int swapped = permutation[k];
+                permutation[k] = permutation[pivot];
+                permutation[pivot] = swapped;
+                sign = -sign;
+            }
+
+            int step = k;
+            double pivotValue = lu[k * n + k];
+            boolean pivotFinite = Matrix.isFinite(lu, k * n + k + 1, (k + 1) * n);
+            Ranges.RangeKernel eliminate = (from, to) -> {
+                int pivotRow = step * n;
+                for (int i = from; i < to; i++) {
+                    int row = i * n;
+                    double factor = lu[row + step] / pivotValue;
+                    lu[row + step] = factor;
+                    if (factor == 0 && pivotFinite)
+                        continue;
+                    for (int j = step + 1; j < n; j++)
+                        lu[row + j] -= factor * lu[pivotRow + j];
+                }
+            };
+            int below = n - k - 1;
+            if ((long) below * (n - k) < PARALLEL_WORK) {
+                eliminate.apply(k + 1, n);
+            } else {
+                Ranges.forEach(k + 1, n, Ranges.grain(below, MIN_ROWS_PER_TASK), eliminate);
+            }
+
+            double remaining = n - k - 1;
+            progress.accept(1 - remaining * remaining * remaining / totalWork);
+        }
+        progress.accept(1);
+        return new LuDecomposition(n, lu, permutation, singular, sign);
+    }
+
+    public boolean isSingular() {
+        return singular;
+    }
+
+    public double determinant() {
+        if (singular)
+            return 0;
+        double determinant = sign;
+        for (int i = 0; i < size; i++)
+            determinant *= lu[i * size + i];
+        return determinant;
+    }
+
+    /**
+     * {@code X} such that {@code A × X = b}, reporting the fraction of the work done to {@code progress}.
+     *
+     * @throws ArithmeticException if {@code A} is singular
+     */
+    public Matrix solve(Matrix b, DoubleConsumer progress) {
+        if (b.getRows() != size)
+            throw new IllegalArgumentException("Right-hand side has " + b.getRows() + " rows, expected " + size);
+        if (singular)
+            throw new ArithmeticException("Matrix is singular");
+
+        int width = b.getColumns();
+        double[] source = b.data();
+        double[] x = new double[size * width];
+        for (int i = 0; i < size; i++)
+            System.arraycopy(source, permutation[i] * width, x, i * width, width);
+
+        int chunks = (width + MIN_COLUMNS_PER_TASK - 1) / MIN_COLUMNS_PER_TASK;
+        int[] done = new int[1];
+        Ranges.RangeKernel substitute = (from, to) -> {
+            substitute(x, width, from, to);
+            synchronized (done) {
+                done[0] += to - from;
+                progress.accept((double) done[0] / width);
+            }
+        };
+        if ((long) size * size * width < PARALLEL_WORK || chunks < 2) {
+            substitute.apply(0, width);
+        } else {
+            Ranges.forEach(0, width, Ranges.grain(width, MIN_COLUMNS_PER_TASK), substitute);
+        }
+        return Matrix.wrap(size, width, x);
+    }
+
+    /**
+     * Forward then back substitution of columns {@code [from, to)} of {@code x}, in place.
+     */
+    private void substitute(double[] x, int width, int from, int to) {
+        int n = size;
+        // whether each solved row of x is finite within the columns, so a zero factor can skip it
+        boolean[] finite = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int row = i * width;
+            for (int k = 0; k < i; k++) {
+                double factor = lu[i * n + k];
+                if (factor == 0 && finite[k])
+                    continue;
+                int other = k * width;
+                for (int j = from; j < to; j++)
+                    x[row + j] -= factor * x[other + j];
+            }
+            finite[i] = Matrix.isFinite(x, row + from, row + to);
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int row = i * width;
+            for (int k = i + 1; k < n; k++) {
+                double factor = lu[i * n + k];
+                if (factor == 0 && finite[k])
+                    continue;
+                int other = k * width;
+                for (int j = from; j < to; j++)
+                    x[row + j] -= factor * x[other + j];
+            }
+            double diagonal = lu[i * n + i];
+            for (int j = from; j < to; j++)
+                x[row + j] /= diagonal;
+            finite[i] = Matrix.isFinite(x, row + from, row + to);
+        }
+    }
+
+    private static void swapRows(double[] values, int n, int first, int second) {
+        int a = first * n;
+        int b = second * n;
+        for (int j = 0; j < n; j++) {
+            double swapped = values[a + j];
+            values[a + j] = values[b + j];
+            values[b + j] = swapped;
+        }
+    }
+}
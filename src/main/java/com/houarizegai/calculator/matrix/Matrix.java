@@ -0,0 +1,412 @@
+package com.houarizegai.calculator.matrix;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.util.Ranges;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Dense {@code double} matrix stored row-major in one flat array, so a row is a contiguous run the JIT can vectorize
+ * over and a matrix of a few thousand rows is a single allocation rather than thousands of row arrays.
+ * <p>
+ * Operations return new matrices and never modify their operands. Products are cache-blocked and split across the
+ * common fork/join pool; {@link #determinant()}, {@link #inverse()} and {@link #solve} go through a
+ * {@link LuDecomposition}. The methods taking a {@link DoubleConsumer} report the fraction of work done, from any
+ * thread, as the computation proceeds; an exception thrown by the consumer abandons the computation.
+ */
+public final class Matrix {
+
+    // C tile rows per task, and the depth and width of the A and B tiles that stay in cache while it is computed
+    private static final int ROW_BLOCK = 64;
+    private static final int DEPTH_BLOCK = 256;
+    private static final int COLUMN_BLOCK = 512;
+    private static final int TRANSPOSE_BLOCK = 32;
+    private static final long PARALLEL_WORK = 1L << 18;
+    private static final DoubleConsumer NO_PROGRESS = fraction -> {
+    };
+
+    private final int rows;
+    private final int columns;
+    private final double[] data;
+
+    public Matrix(int rows, int columns) {
+        this(rows, columns, new double[checkedSize(rows, columns)]);
+    }
+
+    private Matrix(int rows, int columns, double[] data) {
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * A {@code rows × columns} matrix holding {@code values} in row-major order.
+     */
+    public static Matrix of(int rows, int columns, double... values) {
+        if (values.length != checkedSize(rows, columns))
+            throw new IllegalArgumentException(rows + " × " + columns + " matrix needs " + rows * columns
+                    + " values, not " + values.length);
+        return new Matrix(rows, columns, values.clone());
+    }
+
+    public static Matrix identity(int size) {
+        Matrix identity = new Matrix(size, size);
+        for (int i = 0; i < size; i++)
+            identity.data[i * size + i] = 1;
+        return identity;
+    }
+
+    /**
+     * Values uniformly drawn from {@code [-1, 1)}; the same seed gives the same matrix.
+     */
+    public static Matrix random(int rows, int columns, long seed) {
+        Matrix matrix = new Matrix(rows, columns);
+        Random random = new Random(seed);
+        for (int i = 0; i < matrix.data.length; i++)
+            matrix.data[i] = random.nextDouble() * 2 - 1;
+        return matrix;
+    }
+
+    /**
+     * Parses rows separated by new lines or {@code ;}, with values separated by blanks or commas, e.g.
+     * {@code "1 2; 3 4"}. {@code identity n} and {@code random rows [columns]} stand for the matching matrices, so
+     * large operands need not be typed in.
+     */
+    public static Matrix parse(CharSequence text) {
+        String[] lines = text.toString().trim().split("\\s*[;\\n]\\s*");
+        String[] words = lines[0].split("[\\s,]+");
+        if (lines.length == 1 && (words[0].equals("identity") || words[0].equals("random"))) {
+            if (words.length < 2 || words.length > (words[0].equals("random") ? 3 : 2))
+                throw new IllegalArgumentException("Expected " + words[0] + (words[0].equals("random") ? " n [m]" : " n"));
+            int size = parseSize(words[1]);
+            return words[0].equals("identity") ? identity(size)
+                    : random(size, words.length == 3 ? parseSize(words[2]) : size, System.nanoTime());
+        }
+
+        int columns = -1;
+        double[] values = null;
+        for (int row = 0; row < lines.length; row++) {
+            String[] cells = lines[row].split("[\\s,]+");
+            if (columns < 0) {
+                columns = cells.length;
+                values = new double[checkedSize(lines.length, columns)];
+            } else if (cells.length != columns) {
+                throw new IllegalArgumentException("Row " + (row + 1) + " has " + cells.length + " values, expected "
+                        + columns);
+            }
+            for (int column = 0; column < columns; column++) {
+                try {
+                    values[row * columns + column] = Double.parseDouble(cells[column]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Not a number: " + cells[column]);
+                }
+            }
+        }
+        return new Matrix(lines.length, columns, values);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public boolean isSquare() {
+        return rows == columns;
+    }
+
+    public double get(int row, int column) {
+        return data[index(row, column)];
+    }
+
+    public void set(int row, int column, double value) {
+        data[index(row, column)] = value;
+    }
+
+    /**
+     * Copy of the values in row-major order.
+     */
+    public double[] toArray() {
+        return data.clone();
+    }
+
+    public Matrix add(Matrix other) {
+        checkSameShape(other);
+        Matrix sum = new Matrix(rows, columns);
+        for (int i = 0; i < data.length; i++)
+            sum.data[i] = data[i] + other.data[i];
+        return sum;
+    }
+
+    public Matrix subtract(Matrix other) {
+        checkSameShape(other);
+        Matrix difference = new Matrix(rows, columns);
+        for (int i = 0; i < data.length; i++)
+            difference.data[i] = data[i] - other.data[i];
+        return difference;
+    }
+
+    public Matrix multiply(double factor) {
+        Matrix product = new Matrix(rows, columns);
+        for (int i = 0; i < data.length; i++)
+            product.data[i] = data[i] * factor;
+        return product;
+    }
+
+    public Matrix multiply(Matrix other) {
+        return multiply(other, NO_PROGRESS);
+    }
+
+    /**
+     * Matrix product. Each task computes {@value #ROW_BLOCK} rows of the result in tiles, so the rows of
+     * {@code other} it streams over stay in cache across those rows; the innermost loop runs along a row of
+     * {@code other} and of the result, both contiguous, and is vectorized.
+     */
+    public Matrix multiply(Matrix other, DoubleConsumer progress) {
+        if (columns != other.rows)
+            throw new IllegalArgumentException("Cannot multiply " + shape() + " by " + other.shape());
+
+        Matrix product = new Matrix(rows, other.columns);
+        boolean[] finiteRows = new boolean[other.rows];
+        for (int k = 0; k < other.rows; k++)
+            finiteRows[k] = isFinite(other.data, k * other.columns, (k + 1) * other.columns);
+        int blocks = (rows + ROW_BLOCK - 1) / ROW_BLOCK;
+        AtomicInteger done = new AtomicInteger();
+        Ranges.RangeKernel kernel = (from, to) -> {
+            for (int block = from; block < to; block++) {
+                multiplyRows(other, finiteRows, product, block * ROW_BLOCK,
+                        Math.min(rows, (block + 1) * ROW_BLOCK));
+                progress.accept((double) done.incrementAndGet() / blocks);
+            }
+        };
+        if ((long) rows * columns * other.columns < PARALLEL_WORK) {
+            kernel.apply(0, blocks);
+        } else {
+            Ranges.forEach(0, blocks, 1, kernel);
+        }
+        return product;
+    }
+
+    /**
+     * Adds rows {@code [fromRow, toRow)} of {@code this × other} to {@code product}. A zero in {@code this} skips a
+     * row of {@code other} only when that row is finite, as {@code 0 × ∞} and {@code 0 × NaN} are NaN.
+     */
+    private void multiplyRows(Matrix other, boolean[] finiteRows, Matrix product, int fromRow, int toRow) {
+        double[] a = data;
+        double[] b = other.data;
+        double[] c = product.data;
+        int depth = columns;
+        int width = other.columns;
+        for (int k0 = 0; k0 < depth; k0 += DEPTH_BLOCK) {
+            int k1 = Math.min(depth, k0 + DEPTH_BLOCK);
+            for (int j0 = 0; j0 < width; j0 += COLUMN_BLOCK) {
+                int j1 = Math.min(width, j0 + COLUMN_BLOCK);
+                for (int i = fromRow; i < toRow; i++) {
+                    int aRow = i * depth;
+                    int cRow = i * width;
+                    for (int k = k0; k < k1; k++) {
+                        double aik = a[aRow + k];
+                        if (aik == 0 && finiteRows[k])
+                            continue;
+                        int bRow = k * width;
+                        for (int j = j0; j < j1; j++)
+                            c[cRow + j] += aik * b[bRow + j];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether {@code values[from, to)} holds neither infinities nor NaN.
+     */
+    static boolean isFinite(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Double.isNaN(values[i]) || Double.isInfinite(values[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Transposed copy, built in square tiles so that neither the reads nor the writes stride through memory a whole
+     * row at a time.
+     */
+    public Matrix transpose() {
+        Matrix transposed = new Matrix(columns, rows);
+        for (int i0 = 0; i0 < rows; i0 += TRANSPOSE_BLOCK) {
+            int i1 = Math.min(rows, i0 + TRANSPOSE_BLOCK);
+            for (int j0 = 0; j0 < columns; j0 += TRANSPOSE_BLOCK) {
+                int j1 = Math.min(columns, j0 + TRANSPOSE_BLOCK);
+                for (int i = i0; i < i1; i++) {
+                    for (int j = j0; j < j1; j++)
+                        transposed.data[j * rows + i] = data[i * columns + j];
+                }
+            }
+        }
+        return transposed;
+    }
+
+    public LuDecomposition lu() {
+        return LuDecomposition.of(this, NO_PROGRESS);
+    }
+
+    public double determinant() {
+        return lu().determinant();
+    }
+
+    public Matrix inverse() {
+        return inverse(NO_PROGRESS);
+    }
+
+    /**
+     * Inverse, by solving against the identity.
+     *
+     * @throws ArithmeticException if the matrix is singular
+     */
+    public Matrix inverse(DoubleConsumer progress) {
+        // factoring is about a quarter of the work, the two substitutions the rest
+        LuDecomposition lu = LuDecomposition.of(this, fraction -> progress.accept(fraction / 4));
+        return lu.solve(identity(rows), fraction -> progress.accept(0.25 + fraction * 3 / 4));
+    }
+
+    /**
+     * {@code X} such that {@code this × X = b}.
+     *
+     * @throws ArithmeticException if the matrix is singular
+     */
+    public Matrix solve(Matrix b) {
+        return solve(b, NO_PROGRESS);
+    }
+
+    public Matrix solve(Matrix b, DoubleConsumer progress) {
+        LuDecomposition lu = LuDecomposition.of(this, fraction -> progress.accept(fraction / 2));
+        return lu.solve(b, fraction -> progress.accept(0.5 + fraction / 2));
+    }
+
+    /**
+     * Rows and columns as {@code rows × columns}.
+     */
+    public String shape() {
+        return rows + " × " + columns;
+    }
+
+    /**
+     * The values as text in right-aligned columns, eliding the middle rows and columns beyond {@code maxRows} and
+     * {@code maxColumns}.
+     */
+    public String format(DoubleFormatter formatter, int maxRows, int maxColumns) {
+        int[] shownRows = shown(rows, maxRows);
+        int[] shownColumns = shown(columns, maxColumns);
+        String[] cells = new String[shownRows.length * shownColumns.length];
+        int[] widths = new int[shownColumns.length];
+        int length = 0;
+        for (int r = 0; r < shownRows.length; r++) {
+            for (int c = 0; c < shownColumns.length; c++) {
+                String cell = shownRows[r] < 0 ? "⋮" : shownColumns[c] < 0 ? "…"
+                        : formatter.format(get(shownRows[r], shownColumns[c]));
+                cells[r * shownColumns.length + c] = cell;
+                widths[c] = Math.max(widths[c], cell.length());
+                length += cell.length() + 2;
+            }
+        }
+
+        StringBuilder text = new StringBuilder(length);
+        for (int r = 0; r < shownRows.length; r++) {
+            if (r > 0)
+                text.append('\n');
+            for (int c = 0; c < shownColumns.length; c++) {
+                String cell = cells[r * shownColumns.length + c];
+                if (c > 0)
+                    text.append("  ");
+                for (int pad = cell.length(); pad < widths[c]; pad++)
+                    text.append(' ');
+                text.append(cell);
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Matrix))
+            return false;
+        Matrix matrix = (Matrix) other;
+        return rows == matrix.rows && columns == matrix.columns && Arrays.equals(data, matrix.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + columns) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return format(DoubleFormatter.DISPLAY, 8, 8);
+    }
+
+    double[] data() {
+        return data;
+    }
+
+    static Matrix wrap(int rows, int columns, double[] data) {
+        return new Matrix(rows, columns, data);
+    }
+
+    /**
+     * Indexes to show out of {@code length}, with {@code -1} standing for the elided middle.
+     */
+    private static int[] shown(int length, int max) {
+        if (length <= max) {
+            int[] indexes = new int[length];
+            for (int i = 0; i < length; i++)
+                indexes[i] = i;
+            return indexes;
+        }
+        int head = (max + 1) / 2;
+        int tail = max - head;
+        int[] indexes = new int[max + 1];
+        for (int i = 0; i < head; i++)
+            indexes[i] = i;
+        indexes[head] = -1;
+        for (int i = 0; i < tail; i++)
+            indexes[head + 1 + i] = length - tail + i;
+        return indexes;
+    }
+
+    private int index(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns)
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside a " + shape() + " matrix");
+        return row * columns + column;
+    }
+
+    private void checkSameShape(Matrix other) {
+        if (rows != other.rows || columns != other.columns)
+            throw new IllegalArgumentException("Shapes differ: " + shape() + " and " + other.shape());
+    }
+
+    private static int parseSize(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a size: " + text);
+        }
+    }
+
+    private static int checkedSize(int rows, int columns) {
+        if (rows < 1 || columns < 1)
+            throw new IllegalArgumentException("Matrix must have at least one row and one column: " + rows + " × "
+                    + columns);
+        long size = (long) rows * columns;
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Matrix is too large: " + rows + " × " + columns);
+        return (int) size;
+    }
+}
@@ -0,0 +1,153 @@
+package com.houarizegai.calculator.monitoring;
+
+import com.houarizegai.calculator.engine.ExpressionCompiler;
+import com.houarizegai.calculator.session.Key;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operator and key counts plus latency histograms of calculations, key handling and theme changes, published as a
+ * platform MXBean named {@value #OBJECT_NAME}.
+ * <p>
+ * Counters are {@link LongAdder}s, so recording never contends between threads. Metrics are on unless the application
+ * runs with {@code -D}{@value #ENABLED_PROPERTY}{@code =false}; the flag is a {@code static final} constant, so when it
+ * is off the JIT drops the instrumentation and not even {@link System#nanoTime()} is called.
+ */
+public final class CalculatorMetrics implements CalculatorMetricsMXBean {
+
+    public static final String ENABLED_PROPERTY = "calculator.metrics";
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    public static final String OBJECT_NAME = "com.houarizegai.calculator:type=Metrics";
+
+    private static final String OPERATORS = "+-*/%^√l";
+    private static final Key[] KEYS = Key.values();
+    private static final CalculatorMetrics INSTANCE = new CalculatorMetrics();
+
+    private final LongAdder[] operatorCounts = adders(OPERATORS.length());
+    private final LongAdder[] keyCounts = adders(KEYS.length);
+    private final LatencyHistogram calculationLatency = new LatencyHistogram();
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    private final LatencyHistogram themeLatency = new LatencyHistogram();
+
+    private CalculatorMetrics() {
+    }
+
+    public static CalculatorMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the MXBean with the platform MBean server, unless metrics are off or it is registered already.
+     */
+    public static synchronized void register() {
+        if (!ENABLED)
+            return;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(INSTANCE, name);
+        } catch (JMException e) {
+            System.err.println("Cannot publish metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Start time to pass to the {@code record} methods, or 0 without reading the clock when metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a calculation with {@code operator} (one of {@code +-*}{@code /%^√l}) started at {@code start}.
+     */
+    public static void recordCalculation(char operator, long start) {
+        if (!ENABLED)
+            return;
+
+        INSTANCE.calculationLatency.record(System.nanoTime() - start);
+        int index = OPERATORS.indexOf(operator);
+        if (index >= 0)
+            INSTANCE.operatorCounts[index].increment();
+    }
+
+    public static void recordKey(Key key, long start) {
+        if (!ENABLED)
+            return;
+
+        INSTANCE.inputLatency.record(System.nanoTime() - start);
+        INSTANCE.keyCounts[key.ordinal()].increment();
+    }
+
+    public static void recordTheme(long start) {
+        if (ENABLED)
+            INSTANCE.themeLatency.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public Map<String, Long> getOperatorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < OPERATORS.length(); i++)
+            counts.put(String.valueOf(OPERATORS.charAt(i)), operatorCounts[i].sum());
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getKeyCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Key key : KEYS)
+            counts.put(key.name(), keyCounts[key.ordinal()].sum());
+        return counts;
+    }
+
+    @Override
+    public LatencySnapshot getCalculationLatency() {
+        return calculationLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getInputLatency() {
+        return inputLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getThemeLatency() {
+        return themeLatency.snapshot();
+    }
+
+    @Override
+    public long getCompiledFormulaCount() {
+        return ExpressionCompiler.getCompiledCount();
+    }
+
+    @Override
+    public long getFormulaCompileTime() {
+        return ExpressionCompiler.getCompileNanos();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder count : operatorCounts)
+            count.reset();
+        for (LongAdder count : keyCounts)
+            count.reset();
+        calculationLatency.reset();
+        inputLatency.reset();
+        themeLatency.reset();
+    }
+
+    private static LongAdder[] adders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++)
+            adders[i] = new LongAdder();
+        return adders;
+    }
+}
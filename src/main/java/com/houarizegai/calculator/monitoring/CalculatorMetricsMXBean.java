@@ -0,0 +1,38 @@
+package com.houarizegai.calculator.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link CalculatorMetrics}, registered as {@value CalculatorMetrics#OBJECT_NAME}.
+ * Latencies are in nanoseconds.
+ */
+public interface CalculatorMetricsMXBean {
+
+    /**
+     * Completed calculations per operator symbol ({@code l} is ln).
+     */
+    Map<String, Long> getOperatorCounts();
+
+    /**
+     * Key presses per {@code Key} name.
+     */
+    Map<String, Long> getKeyCounts();
+
+    LatencySnapshot getCalculationLatency();
+
+    LatencySnapshot getInputLatency();
+
+    LatencySnapshot getThemeLatency();
+
+    /**
+     * Formulas compiled by the {@code ExpressionCompiler} since startup; not affected by {@link #reset()}.
+     */
+    long getCompiledFormulaCount();
+
+    /**
+     * Time spent compiling formulas since startup.
+     */
+    long getFormulaCompileTime();
+
+    void reset();
+}
@@ -0,0 +1,173 @@
+package com.houarizegai.calculator.monitoring;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches the Event Dispatch Thread for events whose listeners run longer than a budget.
+ * <p>
+ * A replacement {@link EventQueue} timestamps every event it dispatches, which costs two {@link System#nanoTime()}
+ * calls per event. A daemon thread checks the running dispatch every quarter budget; once it has run past the budget
+ * the EDT's stack is sampled and logged as a warning, naming the event and the first calculator frame on the stack,
+ * which is normally the offending listener. Every dispatch also goes into a {@link LatencyHistogram} that is logged
+ * and reset once per summary period, giving a rolling view of responsiveness.
+ * <p>
+ * While a modal dialog is open its listener's dispatch is suspended in a nested event loop, which is idle most of the
+ * time. The watch therefore ends when a nested dispatch returns, so an open dialog is never taken for a stall; the
+ * rest of the listener that opened the dialog goes unwatched.
+ */
+public final class EdtWatchdog {
+
+    public static final String BUDGET_PROPERTY = "calculator.edt.budgetMillis";
+    public static final long DEFAULT_BUDGET_MILLIS = 100;
+
+    private static final Logger LOGGER = Logger.getLogger(EdtWatchdog.class.getName());
+    private static final String APPLICATION_PACKAGE = "com.houarizegai.calculator.";
+
+    private final long budgetNanos;
+    private final WatchedEventQueue queue = new WatchedEventQueue();
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private final LongAdder stalls = new LongAdder();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "edt-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // published as one immutable snapshot so the sampler never mixes two dispatches
+    private volatile Dispatch current;
+    private Dispatch reported;
+
+    private EdtWatchdog(long budgetMillis) {
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Installs a watchdog with the budget given by {@value #BUDGET_PROPERTY} ({@value #DEFAULT_BUDGET_MILLIS} ms by
+     * default). Returns {@code null}, installing nothing, when the budget is 0 or less.
+     */
+    public static EdtWatchdog install() {
+        long budget = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MILLIS);
+        return budget > 0 ? install(budget, TimeUnit.MINUTES.toMillis(1)) : null;
+    }
+
+    /**
+     * Installs a watchdog reporting dispatches longer than {@code budgetMillis} and summarizing responsiveness every
+     * {@code summaryMillis}.
+     */
+    public static EdtWatchdog install(long budgetMillis, long summaryMillis) {
+        EdtWatchdog watchdog = new EdtWatchdog(budgetMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.queue);
+        long period = Math.max(1, budgetMillis / 4);
+        watchdog.scheduler.scheduleAtFixedRate(watchdog::sample, period, period, TimeUnit.MILLISECONDS);
+        watchdog.scheduler.scheduleAtFixedRate(watchdog::summarize, summaryMillis, summaryMillis,
+                TimeUnit.MILLISECONDS);
+        return watchdog;
+    }
+
+    /**
+     * Restores the previous event queue and stops sampling.
+     */
+    public void uninstall() {
+        scheduler.shutdownNow();
+        queue.remove();
+    }
+
+    public long getStallCount() {
+        return stalls.sum();
+    }
+
+    /**
+     * Dispatch times since the last summary.
+     */
+    public LatencySnapshot getDispatchLatency() {
+        return dispatchLatency.snapshot();
+    }
+
+    private void sample() {
+        Dispatch dispatch = current;
+        if (dispatch == null || dispatch == reported || System.nanoTime() - dispatch.start < budgetNanos)
+            return;
+
+        reported = dispatch;
+        stalls.increment();
+        StackTraceElement[] stack = dispatch.thread.getStackTrace();
+        // the stack is only that of the stall if the dispatch is still running
+        if (current != dispatch || !LOGGER.isLoggable(Level.WARNING))
+            return;
+
+        StringBuilder message = new StringBuilder(1024)
+                .append("EDT blocked for more than ").append(TimeUnit.NANOSECONDS.toMillis(budgetNanos))
+                .append(" ms by ").append(describe(dispatch.event));
+        StackTraceElement listener = firstApplicationFrame(stack);
+        if (listener != null)
+            message.append(" in ").append(listener.getClassName()).append('.').append(listener.getMethodName())
+                    .append('(').append(listener.getFileName()).append(':').append(listener.getLineNumber()).append(')');
+        for (StackTraceElement frame : stack)
+            message.append(System.lineSeparator()).append("\tat ").append(frame);
+        LOGGER.warning(message.toString());
+    }
+
+    private void summarize() {
+        LatencySnapshot snapshot = dispatchLatency.snapshot();
+        dispatchLatency.reset();
+        if (snapshot.getCount() > 0 && LOGGER.isLoggable(Level.INFO))
+            LOGGER.info("EDT responsiveness: " + snapshot + ", " + stalls.sum() + " stalls so far");
+    }
+
+    private static String describe(AWTEvent event) {
+        if (event == null)
+            return "an unknown event";
+        return event.getClass().getSimpleName() + "[" + event.paramString() + "] on "
+                + event.getSource().getClass().getName();
+    }
+
+    private static StackTraceElement firstApplicationFrame(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith(APPLICATION_PACKAGE) && !className.equals(WatchedEventQueue.class.getName()))
+                return frame;
+        }
+        return null;
+    }
+
+    private static final class Dispatch {
+
+        final Thread thread;
+        final AWTEvent event;
+        final long start;
+
+        Dispatch(Thread thread, AWTEvent event, long start) {
+            this.thread = thread;
+            this.event = event;
+            this.start = start;
+        }
+    }
+
+    private final class WatchedEventQueue extends EventQueue {
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            current = new Dispatch(Thread.currentThread(), event, start);
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                dispatchLatency.record(System.nanoTime() - start);
+                // back to idle, or to a modal dialog's event loop waiting for its next event
+                current = null;
+            }
+        }
+
+        void remove() {
+            pop();
+        }
+    }
+}
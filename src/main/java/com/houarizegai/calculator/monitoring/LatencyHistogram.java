@@ -0,0 +1,84 @@
+package com.houarizegai.calculator.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size log-linear histogram of nanosecond latencies, in the spirit of HdrHistogram: values below 16 ns have a
+ * bucket each, and every power of two above is split into 16 buckets, so any percentile is reported within 1/16 of
+ * the true value. Values above 2^40 ns (about 18 minutes) share the last bucket. Buckets are {@link LongAdder}s, so
+ * concurrent recorders never contend on one cache line.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_OCTAVE = 40;
+    private static final int BUCKETS = (MAX_OCTAVE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        buckets[indexOf(nanos)].increment();
+        total.add(nanos);
+    }
+
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        double mean = count == 0 ? 0 : (double) total.sum() / count;
+        return new LatencySnapshot(count, mean, percentile(counts, count, 0.5), percentile(counts, count, 0.9),
+                percentile(counts, count, 0.99), percentile(counts, count, 0.999), percentile(counts, count, 1));
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets)
+            bucket.reset();
+        total.reset();
+    }
+
+    static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) Math.max(0, nanos);
+
+        int octave = Math.min(MAX_OCTAVE, 63 - Long.numberOfLeadingZeros(nanos));
+        int sub = nanos >= 1L << (MAX_OCTAVE + 1) ? SUB_BUCKETS - 1
+                : (int) (nanos >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Largest value that falls into bucket {@code index}.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int octave = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (octave - SUB_BUCKET_BITS);
+        return (1L << octave) + (index % SUB_BUCKETS + 1) * width - 1;
+    }
+
+    private static long percentile(long[] counts, long count, double fraction) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return highestValueOf(i);
+        }
+        return highestValueOf(counts.length - 1);
+    }
+}
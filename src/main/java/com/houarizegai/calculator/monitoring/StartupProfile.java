@@ -0,0 +1,83 @@
+package com.houarizegai.calculator.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timestamps of the startup phases, from JVM start to the first paint of the window.
+ * <p>
+ * Marking a phase costs one {@link System#nanoTime()} call and is always on; the report is only printed (to
+ * stderr, once the window has painted) when the application runs with {@value #OPTION}.
+ */
+public class StartupProfile {
+
+    public static final String OPTION = "--startup-profile";
+
+    public enum Phase {
+        MAIN("main entered"),
+        THEMES_LOADING("theme load started"),
+        THEMES_LOADED("themes loaded"),
+        COMPONENTS_BUILT("components built"),
+        WINDOW_SHOWN("window shown"),
+        FIRST_PAINT("first paint");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final AtomicLongArray marks = new AtomicLongArray(Phase.values().length);
+    private static volatile boolean reportEnabled;
+
+    private StartupProfile() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Records the first occurrence of a phase; later calls for the same phase are ignored.
+     */
+    public static void mark(Phase phase) {
+        if (marks.compareAndSet(phase.ordinal(), 0, System.nanoTime()) && phase == Phase.FIRST_PAINT && reportEnabled)
+            System.err.print(report());
+    }
+
+    public static void enableReport() {
+        reportEnabled = true;
+    }
+
+    /**
+     * Milliseconds from JVM start to the phase, or -1 when the phase has not happened yet.
+     */
+    public static double millisSinceJvmStart(Phase phase) {
+        long mark = marks.get(phase.ordinal());
+        if (mark == 0)
+            return -1;
+
+        long now = System.nanoTime();
+        double uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        return uptime - (now - mark) / 1e6;
+    }
+
+    public static String report() {
+        StringBuilder report = new StringBuilder("Startup profile (ms since JVM start):\n");
+        double previous = 0;
+        for (Phase phase : Phase.values()) {
+            double at = millisSinceJvmStart(phase);
+            if (at < 0)
+                continue;
+
+            report.append(String.format(Locale.ROOT, "  %-20s %9.1f  (+%.1f)%n", phase.label, at, at - previous));
+            if (phase != Phase.THEMES_LOADING && phase != Phase.THEMES_LOADED)
+                previous = at;
+        }
+
+        double loading = millisSinceJvmStart(Phase.THEMES_LOADING);
+        double loaded = millisSinceJvmStart(Phase.THEMES_LOADED);
+        if (loading >= 0 && loaded >= 0)
+            report.append(String.format(Locale.ROOT, "  theme load took %.1f ms on a background thread%n", loaded - loading));
+        return report.toString();
+    }
+}
@@ -0,0 +1,427 @@
+package com.houarizegai.calculator.server;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.houarizegai.calculator.engine.Arithmetic;
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.engine.ExpressionParser;
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.monitoring.CalculatorMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP front end of the calculator, bound to the loopback interface.
+ * <p>
+ * Endpoints:
+ * <ul>
+ * <li>{@code GET /calculate?a=44.5&b=10&op=*} applies one keypad operator, with
+ * {@link Arithmetic#calculate(double, double, char)} semantics;</li>
+ * <li>{@code GET /evaluate?expr=...} or {@code POST /evaluate} with the expression as the body evaluates one
+ * expression;</li>
+ * <li>{@code POST /batch} evaluates many expressions: one per line in and out for {@code text/plain}, or a JSON array
+ * of strings answered by an array of {@code {"result": ...}} / {@code {"error": ...}} objects for
+ * {@code application/json}. Both are streamed, so a batch never sits in memory as a whole.</li>
+ * </ul>
+ * Requests run on virtual threads when the runtime has them and on a bounded pool otherwise. A request takes one of
+ * {@code maxInFlight} permits before it is handed to either, and keeps it while it waits in the pool's queue and
+ * while it runs. Without a permit it is answered {@code 503} with a {@code Retry-After} header on the accepting
+ * thread, and the connection is closed rather than its body read. Other connections are kept alive, so a client may
+ * pipeline requests on one connection.
+ */
+public class CalculatorServer {
+
+    public static final String SERVE_OPTION = "--serve";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+    private static final int MAX_EXPRESSION_LENGTH = 1 << 16;
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final String JSON = "application/json";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    // set while a request that found no permit runs on the accepting thread
+    private final ThreadLocal<Boolean> rejected = new ThreadLocal<>();
+    // the request body stays open, so what the parser leaves unread can still be drained
+    private final JsonFactory jsonFactory = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    public CalculatorServer(int port) throws IOException {
+        this(port, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public CalculatorServer(int port, int maxInFlight) throws IOException {
+        this.maxInFlight = maxInFlight;
+        inFlight = new Semaphore(maxInFlight);
+        executor = createExecutor(maxInFlight);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxInFlight);
+        server.setExecutor(this::admit);
+        server.createContext("/calculate", guarded(this::calculate));
+        server.createContext("/evaluate", guarded(this::evaluate));
+        server.createContext("/batch", guarded(this::batch));
+    }
+
+    /**
+     * Entry point for {@code --serve port}: serves until the process is stopped.
+     */
+    public static int run(String[] args) {
+        int port = -1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(SERVE_OPTION) && i + 1 < args.length) {
+                try {
+                    port = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+            }
+        }
+        if (port < 0 || port > 0xFFFF) {
+            System.err.println("Usage: " + SERVE_OPTION + " <port>");
+            return 2;
+        }
+
+        try {
+            CalculatorServer server = new CalculatorServer(port);
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            System.err.println("Serving on http://127.0.0.1:" + server.getPort());
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Cannot serve on port " + port + ": " + e.getMessage());
+            return 2;
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to {@code delaySeconds} for the running ones and shuts the executor down.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    int getRequestsInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * Virtual threads are looked up reflectively so the code still compiles and runs on Java 11. The fallback pool
+     * queues at most {@code maxInFlight} requests, which is as many as can hold a permit, so it never rejects one.
+     */
+    private static ExecutorService createExecutor(int maxInFlight) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(1, Math.min(maxInFlight, Runtime.getRuntime().availableProcessors() * 2));
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, maxInFlight)));
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    /**
+     * The {@link Executor} of the HTTP server: hands a request to {@link #executor} only with a permit, and otherwise
+     * runs it on the calling dispatcher thread, where {@link #guarded} answers {@code 503} without reading its body.
+     */
+    private void admit(Runnable request) {
+        if (inFlight.tryAcquire()) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        request.run();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                inFlight.release();
+            }
+        }
+        rejected.set(Boolean.TRUE);
+        try {
+            request.run();
+        } finally {
+            rejected.remove();
+        }
+    }
+
+    private HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            try {
+                if (rejected.get() != null) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    exchange.getResponseHeaders().set("Connection", "close");
+                    send(exchange, 503, "Too many requests in flight\n");
+                    return;
+                }
+                try {
+                    handler.handle(exchange);
+                } catch (BadRequestException e) {
+                    drain(exchange.getRequestBody());
+                    send(exchange, e.status, e.getMessage() + "\n");
+                } catch (RuntimeException | StackOverflowError e) {
+                    // every exchange gets an answer, unless its status line is already out
+                    if (exchange.getResponseCode() == -1)
+                        send(exchange, 500, "Internal error: " + describe(e) + "\n");
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void calculate(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "GET");
+        Map<String, String> query = query(exchange);
+        String op = query.get("op");
+        if (op == null || op.length() != 1)
+            throw new BadRequestException(400, "Parameter 'op' must be one operator character");
+
+        double first = number(query, "a");
+        double second = number(query, "b");
+        long start = CalculatorMetrics.start();
+        double result = Arithmetic.calculate(first, second, op.charAt(0));
+        CalculatorMetrics.recordCalculation(op.charAt(0), start);
+        send(exchange, 200, DoubleFormatter.DISPLAY.format(result) + "\n");
+    }
+
+    private void evaluate(HttpExchange exchange) throws IOException {
+        String expression;
+        if (exchange.getRequestMethod().equals("GET")) {
+            expression = query(exchange).get("expr");
+            if (expression == null)
+                throw new BadRequestException(400, "Missing parameter 'expr'");
+        } else {
+            requireMethod(exchange, "POST");
+            expression = readBody(exchange.getRequestBody());
+        }
+
+        double result;
+        try {
+            result = new ExpressionParser().evaluate(expression.trim());
+        } catch (ExpressionException e) {
+            send(exchange, 400, "error: " + e.getMessage() + "\n");
+            return;
+        } catch (RuntimeException | StackOverflowError e) {
+            send(exchange, 400, "error: " + describe(e) + "\n");
+            return;
+        }
+        send(exchange, 200, DoubleFormatter.DISPLAY.format(result) + "\n");
+    }
+
+    private void batch(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.startsWith(JSON)) {
+            batchJson(exchange);
+        } else {
+            batchText(exchange);
+        }
+    }
+
+    private void batchText(HttpExchange exchange) throws IOException {
+        ExpressionParser parser = new ExpressionParser();
+        char[] buffer = new char[DoubleFormatter.MAX_LENGTH];
+        BufferedReader in = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        exchange.getResponseHeaders().set("Content-Type", TEXT);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    try {
+                        out.write(buffer, 0, DoubleFormatter.DISPLAY.format(parser.evaluate(line), buffer, 0));
+                    } catch (ExpressionException e) {
+                        out.write("error: ");
+                        out.write(e.getMessage());
+                    } catch (RuntimeException | StackOverflowError e) {
+                        // one pathological line must not cut the rest of the response
+                        out.write("error: ");
+                        out.write(describe(e));
+                    }
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    private void batchJson(HttpExchange exchange) throws IOException {
+        ExpressionParser parser = new ExpressionParser();
+        try (JsonParser in = jsonFactory.createParser(exchange.getRequestBody())) {
+            if (firstToken(in) != JsonToken.START_ARRAY)
+                throw new BadRequestException(400, "Expected a JSON array of expressions");
+
+            exchange.getResponseHeaders().set("Content-Type", JSON);
+            exchange.sendResponseHeaders(200, 0);
+            try (JsonGenerator out = jsonFactory.createGenerator(exchange.getResponseBody(), JsonEncoding.UTF8)) {
+                out.writeStartArray();
+                String problem = null;
+                while (problem == null) {
+                    JsonToken token;
+                    try {
+                        token = in.nextToken();
+                    } catch (JsonParseException e) {
+                        problem = "Malformed JSON: " + e.getOriginalMessage();
+                        break;
+                    }
+                    if (token == JsonToken.END_ARRAY)
+                        break;
+                    if (token != JsonToken.VALUE_STRING) {
+                        problem = "Expected a string but found " + token;
+                        break;
+                    }
+                    out.writeStartObject();
+                    try {
+                        writeResult(out, parser.evaluate(in.getText()));
+                    } catch (ExpressionException e) {
+                        out.writeStringField("error", e.getMessage());
+                    } catch (RuntimeException | StackOverflowError e) {
+                        out.writeStringField("error", describe(e));
+                    }
+                    out.writeEndObject();
+                }
+                if (problem != null) {
+                    // the status is already sent: report the problem in place, and read the rest of the body so
+                    // that the connection can carry the next request
+                    drain(exchange.getRequestBody());
+                    out.writeStartObject();
+                    out.writeStringField("error", problem);
+                    out.writeEndObject();
+                }
+                out.writeEndArray();
+            }
+        }
+    }
+
+    private static JsonToken firstToken(JsonParser in) throws IOException {
+        try {
+            return in.nextToken();
+        } catch (JsonParseException e) {
+            throw new BadRequestException(400, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void writeResult(JsonGenerator out, double result) throws IOException {
+        if (Double.isFinite(result)) {
+            out.writeNumberField("result", result);
+        } else {
+            // JSON has no NaN or Infinity literals
+            out.writeStringField("result", Double.toString(result));
+        }
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method))
+            throw new BadRequestException(405, "Use " + method);
+    }
+
+    private static double number(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null)
+            throw new BadRequestException(400, "Missing parameter '" + name + "'");
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(400, "Parameter '" + name + "' is not a number");
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null)
+            return parameters;
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_EXPRESSION_LENGTH + 1);
+        if (body.length > MAX_EXPRESSION_LENGTH) {
+            drain(in);
+            throw new BadRequestException(413, "Expression longer than " + MAX_EXPRESSION_LENGTH + " bytes");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads what is left of a request body, so that the connection can carry the next request.
+     */
+    private static void drain(InputStream in) throws IOException {
+        byte[] skip = new byte[8192];
+        while (in.read(skip) >= 0) {
+            // discard
+        }
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class BadRequestException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.houarizegai.calculator.session;
+
+import com.houarizegai.calculator.engine.HybridCalculator;
+import com.houarizegai.calculator.engine.HybridNumber;
+
+import java.math.MathContext;
+
+/**
+ * One calculator's state, safe to drive from any thread. Each session guards its {@link Keypad} with its own monitor,
+ * so sessions never contend with each other and keys sent to one session from several threads are applied one at a
+ * time, in some order. A session is a few hundred bytes; the {@link HybridCalculator} is shared when sessions come
+ * from a {@link SessionRegistry}.
+ */
+public final class CalculatorSession {
+
+    private final long id;
+    private final Keypad keypad;
+    private volatile long lastUsed = System.nanoTime();
+
+    public CalculatorSession() {
+        this(0, new HybridCalculator(MathContext.DECIMAL64));
+    }
+
+    CalculatorSession(long id, HybridCalculator calculator) {
+        this.id = id;
+        this.keypad = new Keypad(calculator);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Presses {@code key} and returns the display it leaves.
+     */
+    public synchronized String press(Key key) {
+        keypad.press(key);
+        return touch();
+    }
+
+    /**
+     * Presses the keys typed as {@code symbols} (see {@link Key#ofSymbol(char)}) atomically: no other thread's key
+     * lands in between, and when a symbol has no key none of them is pressed. Returns the display they leave.
+     */
+    public String press(CharSequence symbols) {
+        Key[] keys = new Key[symbols.length()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = Key.ofSymbol(symbols.charAt(i));
+            if (keys[i] == null)
+                throw new IllegalArgumentException("No key for '" + symbols.charAt(i) + "'");
+        }
+        synchronized (this) {
+            for (Key key : keys)
+                keypad.press(key);
+            return touch();
+        }
+    }
+
+    /**
+     * See {@link Keypad#load(CharSequence)}.
+     */
+    public synchronized String load(CharSequence value) {
+        keypad.load(value);
+        return touch();
+    }
+
+    public synchronized String display() {
+        return keypad.getDisplay().toString();
+    }
+
+    public synchronized HybridNumber value() {
+        return keypad.getValue();
+    }
+
+    /**
+     * Sets the listener of completed operations. It is called on the pressing thread while the session is locked, so
+     * it should be quick and must not call back into another session's lock order.
+     */
+    public synchronized void setOperationListener(Keypad.OperationListener listener) {
+        keypad.setOperationListener(listener);
+    }
+
+    /**
+     * {@link System#nanoTime()} of the last key or load.
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    private String touch() {
+        lastUsed = System.nanoTime();
+        return keypad.getDisplay().toString();
+    }
+}
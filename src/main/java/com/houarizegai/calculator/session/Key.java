@@ -0,0 +1,82 @@
+package com.houarizegai.calculator.session;
+
+/**
+ * A key of the calculator keypad. The ordinal is the key's one-byte code in a keystroke trace, so constants may only
+ * ever be appended.
+ */
+public enum Key {
+    DIGIT_0('0'),
+    DIGIT_1('1'),
+    DIGIT_2('2'),
+    DIGIT_3('3'),
+    DIGIT_4('4'),
+    DIGIT_5('5'),
+    DIGIT_6('6'),
+    DIGIT_7('7'),
+    DIGIT_8('8'),
+    DIGIT_9('9'),
+    POINT('.'),
+    CLEAR('C'),
+    BACKSPACE('<'),
+    ADD('+'),
+    SUBTRACT('-'),
+    MULTIPLY('*'),
+    DIVIDE('/'),
+    MODULO('%'),
+    POWER('^'),
+    EQUAL('='),
+    SQRT('√'),
+    LN('l'),
+    /**
+     * Not a real key: a value loaded into the display, for example picked from the history. In a trace it is
+     * followed by the value's text.
+     */
+    LOAD('v');
+
+    private static final Key[] KEYS = values();
+
+    private final char symbol;
+
+    Key(char symbol) {
+        this.symbol = symbol;
+    }
+
+    public char getSymbol() {
+        return symbol;
+    }
+
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    public boolean isDigit() {
+        return ordinal() <= DIGIT_9.ordinal();
+    }
+
+    public int getDigit() {
+        return ordinal() - DIGIT_0.ordinal();
+    }
+
+    public static Key digit(int digit) {
+        return KEYS[DIGIT_0.ordinal() + digit];
+    }
+
+    /**
+     * The key with the given trace code, or {@code null} when there is none.
+     */
+    public static Key ofCode(byte code) {
+        return code >= 0 && code < KEYS.length ? KEYS[code] : null;
+    }
+
+    /**
+     * The key typed as {@code symbol}, or {@code null} when there is none. Digits, operators, {@code .}, {@code =},
+     * {@code C}, {@code <} (backspace), {@code √} and {@code l} (ln) are recognized.
+     */
+    public static Key ofSymbol(char symbol) {
+        for (Key key : KEYS) {
+            if (key.symbol == symbol && key != LOAD)
+                return key;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package com.houarizegai.calculator.session;
+
+import com.houarizegai.calculator.engine.HybridCalculator;
+import com.houarizegai.calculator.engine.HybridNumber;
+import com.houarizegai.calculator.engine.Operator;
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.input.NumberInput;
+import com.houarizegai.calculator.monitoring.CalculatorMetrics;
+
+import java.math.MathContext;
+
+/**
+ * The calculator's keypad logic without any Swing: the display, the pending operator and the value it applies to.
+ * {@link #press(Key)} does exactly what clicking the matching button does, so the window, a keystroke replay and a
+ * test all drive the same state machine. Instances are not thread-safe.
+ */
+public class Keypad {
+
+    /**
+     * Notified of every completed operation. {@code second} is {@code null} for {@code √} and {@code ln}.
+     */
+    @FunctionalInterface
+    public interface OperationListener {
+        void operationCompleted(HybridNumber first, char operator, HybridNumber second, HybridNumber result);
+    }
+
+    private final HybridCalculator calculator;
+    private final NumberInput input = new NumberInput();
+    private final StringBuilder result = new StringBuilder(32);
+    private OperationListener listener;
+
+    private char selectedOperator = ' ';
+    private boolean go = true; // For calculate with Opt != (=)
+    private boolean addToDisplay = true; // Connect numbers in display
+    private HybridNumber typedValue = HybridNumber.ZERO;
+
+    public Keypad() {
+        this(new HybridCalculator(MathContext.DECIMAL64));
+    }
+
+    public Keypad(HybridCalculator calculator) {
+        this.calculator = calculator;
+    }
+
+    public void setOperationListener(OperationListener listener) {
+        this.listener = listener;
+    }
+
+    public void press(Key key) {
+        long start = CalculatorMetrics.start();
+        apply(key);
+        CalculatorMetrics.recordKey(key, start);
+    }
+
+    private void apply(Key key) {
+        switch (key) {
+            case CLEAR:
+                input.clear();
+                selectedOperator = ' ';
+                typedValue = HybridNumber.ZERO;
+                break;
+            case BACKSPACE:
+                input.backspace();
+                break;
+            case POINT:
+                if (addToDisplay) {
+                    input.appendPoint();
+                } else {
+                    input.startWithPoint();
+                    addToDisplay = true;
+                }
+                go = true;
+                break;
+            case MODULO:
+                if (go)
+                    applyOperator('%');
+                break;
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case POWER:
+                applyOperator(key.getSymbol());
+                break;
+            case EQUAL:
+                if (!input.isValid() || !go)
+                    return;
+                calculateTypedValue();
+                selectedOperator = '=';
+                addToDisplay = false;
+                break;
+            case SQRT:
+            case LN:
+                applyFunction(key.getSymbol());
+                break;
+            case LOAD:
+                throw new IllegalArgumentException("LOAD carries a value, use load(CharSequence)");
+            default:
+                typeDigit(key.getDigit());
+                break;
+        }
+    }
+
+    /**
+     * Puts {@code value} on the display as if it had just been computed, so the next digit starts a new number.
+     */
+    public void load(CharSequence value) {
+        input.set(value);
+        go = true;
+        addToDisplay = false;
+    }
+
+    /**
+     * The text on the display. The returned sequence is live: it changes with the next key.
+     */
+    public CharSequence getDisplay() {
+        return input;
+    }
+
+    public HybridNumber getValue() {
+        return typedValue;
+    }
+
+    public char getSelectedOperator() {
+        return selectedOperator;
+    }
+
+    private void typeDigit(int digit) {
+        if (addToDisplay) {
+            input.appendDigit(digit);
+        } else {
+            input.startWith(digit);
+            addToDisplay = true;
+        }
+        go = true;
+    }
+
+    private void applyOperator(char operator) {
+        if (!input.isValid())
+            return;
+
+        if (go) {
+            calculateTypedValue();
+            go = false;
+            addToDisplay = false;
+        }
+        selectedOperator = operator;
+    }
+
+    private void applyFunction(char function) {
+        if (!input.isValid() || !go)
+            return;
+
+        long start = CalculatorMetrics.start();
+        HybridNumber value = HybridNumber.parse(input);
+        typedValue = function == '√' ? calculator.sqrt(value) : calculator.ln(value);
+        showResult();
+        CalculatorMetrics.recordCalculation(function, start);
+        selectedOperator = function;
+        addToDisplay = false;
+        if (listener != null)
+            listener.operationCompleted(value, function, null, typedValue);
+    }
+
+    private void showResult() {
+        result.setLength(0);
+        input.set(typedValue.format(DoubleFormatter.DISPLAY, result));
+    }
+
+    private void calculateTypedValue() {
+        long start = CalculatorMetrics.start();
+        HybridNumber first = typedValue;
+        HybridNumber second = HybridNumber.parse(input);
+        typedValue = calculator.calculate(first, second, selectedOperator);
+        showResult();
+        if (Operator.of(selectedOperator) == null)
+            return;
+
+        CalculatorMetrics.recordCalculation(selectedOperator, start);
+        if (listener != null)
+            listener.operationCompleted(first, selectedOperator, second, typedValue);
+    }
+}
@@ -0,0 +1,90 @@
+package com.houarizegai.calculator.session;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes keystroke traces for {@link KeystrokeReplayer}.
+ * <p>
+ * A trace is the 4-byte magic {@code CKEY} and a version byte, then one event per key: the key's
+ * {@linkplain Key#getCode() code} followed by the milliseconds since the previous event as an unsigned LEB128 varint,
+ * so a key typed within 127 ms of the last one takes two bytes. {@link Key#LOAD} events are additionally followed by
+ * the varint length and UTF-8 bytes of the loaded value.
+ */
+public class KeystrokeRecorder implements Closeable, Flushable {
+
+    static final int MAGIC = 0x434B4559; // "CKEY"
+    static final int VERSION = 1;
+
+    private final OutputStream out;
+    private long lastTime;
+
+    /**
+     * Starts a trace on {@code out}; delays are measured from {@code startTime} (milliseconds since the epoch).
+     */
+    public KeystrokeRecorder(OutputStream out, long startTime) throws IOException {
+        this.out = out;
+        this.lastTime = startTime;
+        out.write(MAGIC >>> 24);
+        out.write(MAGIC >>> 16);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    public static KeystrokeRecorder create(Path file) throws IOException {
+        return new KeystrokeRecorder(new BufferedOutputStream(Files.newOutputStream(file)), System.currentTimeMillis());
+    }
+
+    public void record(Key key) throws IOException {
+        record(key, System.currentTimeMillis());
+    }
+
+    public void record(Key key, long time) throws IOException {
+        if (key == Key.LOAD)
+            throw new IllegalArgumentException("LOAD carries a value, use recordLoad");
+        writeEvent(key, time);
+    }
+
+    public void recordLoad(CharSequence value) throws IOException {
+        recordLoad(value, System.currentTimeMillis());
+    }
+
+    public void recordLoad(CharSequence value, long time) throws IOException {
+        writeEvent(Key.LOAD, time);
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeEvent(Key key, long time) throws IOException {
+        out.write(key.getCode());
+        // a clock stepping back is recorded as no delay rather than as a huge unsigned one
+        writeVarint(Math.max(0, time - lastTime));
+        lastTime = Math.max(lastTime, time);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
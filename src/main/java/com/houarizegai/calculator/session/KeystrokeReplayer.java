@@ -0,0 +1,83 @@
+package com.houarizegai.calculator.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a {@link KeystrokeRecorder} trace into a {@link Keypad} as fast as the keypad goes: the recorded delays are
+ * decoded but not waited for, and no Swing event queue is involved.
+ */
+public class KeystrokeReplayer {
+
+    private KeystrokeReplayer() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Memory-maps {@code file} and replays it. Returns the number of events replayed.
+     */
+    public static long replay(Path file, Keypad keypad) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), keypad);
+        }
+    }
+
+    /**
+     * Replays the trace between the buffer's position and limit, without moving either. Returns the number of events
+     * replayed.
+     */
+    public static long replay(ByteBuffer trace, Keypad keypad) throws IOException {
+        int position = trace.position();
+        int limit = trace.limit();
+        if (limit - position < 5 || trace.getInt(position) != KeystrokeRecorder.MAGIC)
+            throw new IOException("Not a keystroke trace");
+        if (trace.get(position + 4) != KeystrokeRecorder.VERSION)
+            throw new IOException("Unsupported keystroke trace version " + trace.get(position + 4));
+
+        long events = 0;
+        int i = position + 5;
+        while (i < limit) {
+            byte code = trace.get(i++);
+            Key key = Key.ofCode(code);
+            if (key == null)
+                throw new IOException("Unknown key code " + code + " at offset " + (i - 1));
+
+            // skip the delay varint
+            while (i < limit && trace.get(i) < 0)
+                i++;
+            if (i++ >= limit)
+                throw new IOException("Truncated trace at offset " + i);
+
+            if (key == Key.LOAD) {
+                int length = 0;
+                for (int shift = 0; ; shift += 7) {
+                    if (i >= limit || shift > 28)
+                        throw new IOException("Malformed value length at offset " + i);
+                    byte b = trace.get(i++);
+                    length |= (b & 0x7F) << shift;
+                    if (b >= 0)
+                        break;
+                }
+                if (length > limit - i)
+                    throw new IOException("Truncated trace at offset " + i);
+                keypad.load(decode(trace, i, length));
+                i += length;
+            } else {
+                keypad.press(key);
+            }
+            events++;
+        }
+        return events;
+    }
+
+    private static String decode(ByteBuffer trace, int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int j = 0; j < length; j++)
+            bytes[j] = trace.get(offset + j);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package com.houarizegai.calculator.session;
+
+import com.houarizegai.calculator.engine.HybridCalculator;
+
+import java.math.MathContext;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many {@link CalculatorSession}s by id. Lookups and creation go through a {@link ConcurrentHashMap}, whose
+ * bins are locked independently, and all sessions share one thread-safe {@link HybridCalculator}, so hosting a
+ * session costs little more than its display and a map entry.
+ */
+public class SessionRegistry {
+
+    private final ConcurrentHashMap<Long, CalculatorSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final HybridCalculator calculator;
+
+    public SessionRegistry() {
+        this(new HybridCalculator(MathContext.DECIMAL64));
+    }
+
+    public SessionRegistry(HybridCalculator calculator) {
+        this.calculator = calculator;
+    }
+
+    public CalculatorSession create() {
+        CalculatorSession session = new CalculatorSession(nextId.getAndIncrement(), calculator);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * The session with the given id, or {@code null} when there is none (any more).
+     */
+    public CalculatorSession get(long id) {
+        return sessions.get(id);
+    }
+
+    public boolean remove(long id) {
+        return sessions.remove(id) != null;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Removes the sessions not used for {@code idleNanos} or longer. Returns how many were removed.
+     */
+    public int removeIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (CalculatorSession session : sessions.values()) {
+            if (now - session.getLastUsed() >= idleNanos && sessions.remove(session.getId(), session))
+                removed++;
+        }
+        return removed;
+    }
+
+    public HybridCalculator getCalculator() {
+        return calculator;
+    }
+}
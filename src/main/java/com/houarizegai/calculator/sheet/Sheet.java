@@ -0,0 +1,293 @@
+package com.houarizegai.calculator.sheet;
+
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.util.Ranges;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Named values and formulas that refer to each other by name, like the cells of a spreadsheet.
+ * <p>
+ * Every cell knows the cells it reads and the cells that read it. An edit marks only the cells downstream of the
+ * edited one dirty and recomputes them in topological order, wave by wave: a wave holds the dirty cells whose dirty
+ * inputs are all up to date, so its cells are independent of each other and large waves are evaluated in parallel on
+ * the common {@link ForkJoinPool}. Edits that would make a cell depend on itself are rejected and leave the sheet
+ * unchanged. A name that is referred to but not defined reads as {@code NaN} until it is, and so does a cell whose
+ * formula fails to evaluate, until its next successful recomputation.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class Sheet {
+
+    static final int PARALLEL_WAVE = 512;
+
+    private static final Cell[] NO_CELLS = new Cell[0];
+
+    private static final class Cell {
+
+        final String name;
+        final Set<Cell> dependents = new LinkedHashSet<>();
+        Formula formula;
+        String expression;
+        boolean defined;
+        double value = Double.NaN;
+        Cell[] inputs = NO_CELLS;
+        double[] arguments = new double[0];
+        // recalculation scratch: marked downstream of the edit, and number of inputs still to be recomputed
+        boolean dirty;
+        int pending;
+
+        Cell(String name) {
+            this.name = name;
+        }
+
+        void evaluate() {
+            if (formula == null)
+                return;
+            for (int i = 0; i < inputs.length; i++)
+                arguments[i] = inputs[i].value;
+            try {
+                value = formula.evaluate(arguments);
+            } catch (RuntimeException | StackOverflowError e) {
+                // the rest of the wave and everything downstream still gets recomputed
+                value = Double.NaN;
+            }
+        }
+    }
+
+    private final Map<String, Cell> cells = new HashMap<>();
+
+    /**
+     * Defines {@code name} as {@code expression}, which may refer to other names, and recomputes everything that
+     * depends on it. Returns the number of cells recomputed.
+     *
+     * @throws com.houarizegai.calculator.engine.ExpressionException if the expression is malformed
+     * @throws IllegalArgumentException if {@code name} is not an identifier, or the cell would depend on itself
+     */
+    public int define(String name, String expression) {
+        checkName(name);
+        Formula formula = Formula.parse(expression);
+        Cell cell = cells.get(name);
+        checkAcyclic(name, cell, formula.getVariables());
+
+        if (cell == null) {
+            cell = new Cell(name);
+            cells.put(name, cell);
+        }
+        detachInputs(cell);
+        List<String> variables = formula.getVariables();
+        Cell[] inputs = new Cell[variables.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = cells.computeIfAbsent(variables.get(i), Cell::new);
+            inputs[i].dependents.add(cell);
+        }
+        cell.inputs = inputs;
+        cell.arguments = new double[inputs.length];
+        cell.formula = formula;
+        cell.expression = expression;
+        cell.defined = true;
+        return recalculate(cell);
+    }
+
+    /**
+     * Sets {@code name} to a plain value and recomputes everything that depends on it. Returns the number of cells
+     * recomputed.
+     *
+     * @throws IllegalArgumentException if {@code name} is not an identifier
+     */
+    public int setValue(String name, double value) {
+        checkName(name);
+        Cell cell = cells.computeIfAbsent(name, Cell::new);
+        detachInputs(cell);
+        cell.formula = null;
+        cell.expression = null;
+        cell.defined = true;
+        cell.value = value;
+        return recalculate(cell);
+    }
+
+    /**
+     * Removes the definition of {@code name}. Cells that still refer to it recompute with {@code NaN} in its place;
+     * their number is returned.
+     */
+    public int remove(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null || !cell.defined)
+            return 0;
+
+        detachInputs(cell);
+        cell.formula = null;
+        cell.expression = null;
+        cell.defined = false;
+        cell.value = Double.NaN;
+        if (cell.dependents.isEmpty()) {
+            cells.remove(name);
+            return 0;
+        }
+        return recalculate(cell) - 1;
+    }
+
+    /**
+     * The current value of {@code name}, {@code NaN} if it is not defined.
+     */
+    public double getValue(String name) {
+        Cell cell = cells.get(name);
+        return cell == null ? Double.NaN : cell.value;
+    }
+
+    /**
+     * The formula {@code name} is defined as, or {@code null} if it holds a plain value or is not defined.
+     */
+    public String getExpression(String name) {
+        Cell cell = cells.get(name);
+        return cell == null ? null : cell.expression;
+    }
+
+    public boolean isDefined(String name) {
+        Cell cell = cells.get(name);
+        return cell != null && cell.defined;
+    }
+
+    /**
+     * Defined names in alphabetical order.
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(cells.size());
+        for (Cell cell : cells.values()) {
+            if (cell.defined)
+                names.add(cell.name);
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Names whose formula refers to {@code name} directly.
+     */
+    public List<String> getDependents(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null)
+            return Collections.emptyList();
+        List<String> names = new ArrayList<>(cell.dependents.size());
+        for (Cell dependent : cell.dependents)
+            names.add(dependent.name);
+        return names;
+    }
+
+    private static void checkName(String name) {
+        boolean valid = !name.isEmpty() && (Character.isLetter(name.charAt(0)) || name.charAt(0) == '_');
+        for (int i = 1; valid && i < name.length(); i++)
+            valid = Character.isLetterOrDigit(name.charAt(i)) || name.charAt(i) == '_';
+        if (!valid)
+            throw new IllegalArgumentException("Not a valid name: '" + name + "'");
+    }
+
+    /**
+     * Rejects a definition of {@code name} reading {@code variables} if one of them already depends on
+     * {@code name}, searching breadth-first through the cells downstream of it for the shortest such chain.
+     */
+    private static void checkAcyclic(String name, Cell cell, List<String> variables) {
+        if (variables.contains(name))
+            throw new IllegalArgumentException("Circular reference: " + name + " -> " + name);
+        if (cell == null || cell.dependents.isEmpty() || variables.isEmpty())
+            return;
+
+        Map<Cell, Cell> reachedFrom = new HashMap<>();
+        Deque<Cell> queue = new ArrayDeque<>();
+        queue.add(cell);
+        while (!queue.isEmpty()) {
+            Cell current = queue.poll();
+            for (Cell dependent : current.dependents) {
+                if (reachedFrom.putIfAbsent(dependent, current) != null)
+                    continue;
+                if (variables.contains(dependent.name)) {
+                    StringBuilder path = new StringBuilder("Circular reference: ").append(name);
+                    for (Cell step = dependent; step != cell; step = reachedFrom.get(step))
+                        path.append(" -> ").append(step.name);
+                    throw new IllegalArgumentException(path.append(" -> ").append(name).toString());
+                }
+                queue.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * Unlinks {@code cell} from the cells it reads, forgetting inputs that were only referred to and are no longer.
+     */
+    private void detachInputs(Cell cell) {
+        for (Cell input : cell.inputs) {
+            input.dependents.remove(cell);
+            if (!input.defined && input.dependents.isEmpty())
+                cells.remove(input.name);
+        }
+        cell.inputs = NO_CELLS;
+        cell.arguments = new double[0];
+    }
+
+    /**
+     * Recomputes {@code changed} and everything downstream of it. Returns the number of cells recomputed.
+     */
+    private static int recalculate(Cell changed) {
+        List<Cell> dirty = new ArrayList<>();
+        Deque<Cell> stack = new ArrayDeque<>();
+        changed.dirty = true;
+        stack.push(changed);
+        while (!stack.isEmpty()) {
+            Cell cell = stack.pop();
+            dirty.add(cell);
+            for (Cell dependent : cell.dependents) {
+                if (!dependent.dirty) {
+                    dependent.dirty = true;
+                    stack.push(dependent);
+                }
+            }
+        }
+        for (Cell cell : dirty) {
+            for (Cell input : cell.inputs) {
+                if (input.dirty)
+                    cell.pending++;
+            }
+        }
+
+        try {
+            List<Cell> wave = new ArrayList<>();
+            wave.add(changed);
+            while (!wave.isEmpty()) {
+                evaluate(wave);
+                List<Cell> next = new ArrayList<>();
+                for (Cell cell : wave) {
+                    cell.dirty = false;
+                    for (Cell dependent : cell.dependents) {
+                        if (--dependent.pending == 0)
+                            next.add(dependent);
+                    }
+                }
+                wave = next;
+            }
+        } finally {
+            // after an error escaped a wave, the cells it did not reach must still be recomputed by the next edit
+            for (Cell cell : dirty) {
+                cell.dirty = false;
+                cell.pending = 0;
+            }
+        }
+        return dirty.size();
+    }
+
+    private static void evaluate(List<Cell> wave) {
+        int grain = wave.size() < PARALLEL_WAVE ? wave.size() : Ranges.grain(wave.size(), PARALLEL_WAVE / 4);
+        Ranges.forEach(0, wave.size(), grain, (from, to) -> {
+            for (int i = from; i < to; i++)
+                wave.get(i).evaluate();
+        });
+    }
+}
@@ -0,0 +1,268 @@
+package com.houarizegai.calculator.stats;
+
+import com.houarizegai.calculator.cli.AsciiSequence;
+import com.houarizegai.calculator.engine.NumberParser;
+import com.houarizegai.calculator.util.Ranges;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Summarizes one numeric column of a file of any size into {@link RunningStatistics}, without loading it.
+ * <p>
+ * The file is cut into chunks of about {@value #DEFAULT_CHUNK_SIZE} bytes (text chunks end on a line break), each
+ * chunk is memory-mapped and scanned by a task of the common {@link ForkJoinPool}, and the per-chunk summaries are
+ * merged pairwise. Only the page cache ever holds the data; the heap holds one small summary per chunk in flight.
+ * <p>
+ * Text files hold one record per line, with fields separated by the delimiter. Fields are trimmed and may be quoted;
+ * fields that are not a number (a header, {@code NA}, ...) are counted as skipped, blank lines are ignored. Binary
+ * files ({@code .f64} or {@code .bin}) are raw little-endian IEEE 754 doubles, as written by NumPy's
+ * {@code tofile}; {@code NaN}s there are skipped.
+ */
+public final class ColumnScanner {
+
+    public enum Format {
+        TEXT,
+        BINARY;
+
+        /**
+         * {@link #BINARY} for {@code .f64} and {@code .bin} files, {@link #TEXT} otherwise.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".f64") || name.endsWith(".bin") ? BINARY : TEXT;
+        }
+    }
+
+    /**
+     * Statistics of the column plus the number of records that had no number in it.
+     */
+    public static final class Result {
+
+        private final RunningStatistics statistics;
+        private final long skipped;
+
+        Result(RunningStatistics statistics, long skipped) {
+            this.statistics = statistics;
+            this.skipped = skipped;
+        }
+
+        public RunningStatistics getStatistics() {
+            return statistics;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+
+    public static final int DEFAULT_CHUNK_SIZE = 32 << 20;
+
+    private static final int BOUNDARY_PROBE_SIZE = 4096;
+
+    private final int column;
+    private final char delimiter;
+    private final int chunkSize;
+
+    /**
+     * @param column    zero-based index of the field to read from text files; ignored for binary ones
+     * @param delimiter field separator of text files, usually {@code ','}, {@code ';'} or {@code '\t'}
+     */
+    public ColumnScanner(int column, char delimiter) {
+        this(column, delimiter, DEFAULT_CHUNK_SIZE);
+    }
+
+    ColumnScanner(int column, char delimiter, int chunkSize) {
+        if (column < 0)
+            throw new IllegalArgumentException("Column must not be negative: " + column);
+        if (chunkSize < Double.BYTES)
+            throw new IllegalArgumentException("Chunk size too small: " + chunkSize);
+        this.column = column;
+        this.delimiter = delimiter;
+        this.chunkSize = chunkSize & -Double.BYTES;
+    }
+
+    public Result scan(Path file) throws IOException {
+        return scan(file, Format.of(file));
+    }
+
+    public Result scan(Path file, Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (format == Format.BINARY && size % Double.BYTES != 0)
+                throw new IOException(file + " is not a sequence of doubles: " + size + " bytes");
+
+            long[] boundaries = format == Format.TEXT ? lineBoundaries(channel, size) : fixedBoundaries(size);
+            try {
+                Partial partial = Ranges.reduce(0, boundaries.length - 1, 1, (from, to) -> {
+                    Partial chunks = new Partial();
+                    for (int chunk = from; chunk < to; chunk++)
+                        scanChunk(channel, format, boundaries[chunk], boundaries[chunk + 1], chunks);
+                    return chunks;
+                }, Partial::merge);
+                return new Result(partial.statistics, partial.skipped);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private long[] fixedBoundaries(long size) {
+        int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        long[] boundaries = new long[chunks + 1];
+        for (int i = 0; i < chunks; i++)
+            boundaries[i] = (long) i * chunkSize;
+        boundaries[chunks] = size;
+        return boundaries;
+    }
+
+    /**
+     * Chunk starts about {@code chunkSize} apart, each moved forward to just after a line break, then the file size.
+     */
+    private long[] lineBoundaries(FileChannel channel, long size) throws IOException {
+        long[] boundaries = new long[16];
+        int count = 1;
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        long position = chunkSize;
+        search:
+        while (position < size) {
+            while (true) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0)
+                    break search;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        long start = position + i + 1;
+                        if (start >= size)
+                            break search;
+                        if (start - boundaries[count - 1] > Integer.MAX_VALUE)
+                            throw new IOException("Line at offset " + boundaries[count - 1] + " is too long");
+                        if (count == boundaries.length)
+                            boundaries = Arrays.copyOf(boundaries, count * 2);
+                        boundaries[count++] = start;
+                        position = start + chunkSize;
+                        continue search;
+                    }
+                }
+                position += read;
+            }
+        }
+        if (size - boundaries[count - 1] > Integer.MAX_VALUE)
+            throw new IOException("Line at offset " + boundaries[count - 1] + " is too long");
+        boundaries = Arrays.copyOf(boundaries, count + 1);
+        boundaries[count] = size;
+        return boundaries;
+    }
+
+    private static final class Partial {
+
+        final RunningStatistics statistics = new RunningStatistics();
+        long skipped;
+
+        Partial merge(Partial other) {
+            statistics.merge(other.statistics);
+            skipped += other.skipped;
+            return this;
+        }
+    }
+
+    private void scanChunk(FileChannel channel, Format format, long start, long end, Partial partial) {
+        int length = (int) (end - start);
+        if (length == 0)
+            return;
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            if (format == Format.TEXT) {
+                scanLines(buffer, length, partial);
+            } else {
+                scanDoubles(buffer.order(ByteOrder.LITTLE_ENDIAN), length, partial);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void scanDoubles(ByteBuffer buffer, int length, Partial partial) {
+        RunningStatistics statistics = partial.statistics;
+        for (int offset = 0; offset < length; offset += Double.BYTES) {
+            double value = buffer.getDouble(offset);
+            if (Double.isNaN(value)) {
+                partial.skipped++;
+            } else {
+                statistics.add(value);
+            }
+        }
+    }
+
+    private void scanLines(ByteBuffer buffer, int length, Partial partial) {
+        AsciiSequence field = new AsciiSequence();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n')
+                lineEnd++;
+            scanLine(buffer, lineStart, lineEnd, field, partial);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private void scanLine(ByteBuffer buffer, int start, int end, AsciiSequence field, Partial partial) {
+        if (end > start && buffer.get(end - 1) == '\r')
+            end--;
+        if (isBlank(buffer, start, end))
+            return;
+
+        // find the field, then trim blanks and quotes around it
+        int fieldStart = start;
+        for (int i = 0; i < column; i++) {
+            while (fieldStart < end && buffer.get(fieldStart) != delimiter)
+                fieldStart++;
+            if (fieldStart == end) {
+                partial.skipped++;
+                return;
+            }
+            fieldStart++;
+        }
+        int fieldEnd = fieldStart;
+        while (fieldEnd < end && buffer.get(fieldEnd) != delimiter)
+            fieldEnd++;
+        while (fieldStart < fieldEnd && isBlankOrQuote(buffer.get(fieldStart)))
+            fieldStart++;
+        while (fieldEnd > fieldStart && isBlankOrQuote(buffer.get(fieldEnd - 1)))
+            fieldEnd--;
+
+        boolean negative = false;
+        if (fieldStart < fieldEnd && (buffer.get(fieldStart) == '-' || buffer.get(fieldStart) == '+'))
+            negative = buffer.get(fieldStart++) == '-';
+        field.wrap(buffer, fieldStart, fieldEnd);
+        int literalEnd = NumberParser.scan(field, 0, field.length());
+        if (literalEnd == 0 || literalEnd != field.length()) {
+            partial.skipped++;
+            return;
+        }
+        double value = NumberParser.parse(field, 0, literalEnd);
+        partial.statistics.add(negative ? -value : value);
+    }
+
+    private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\t')
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isBlankOrQuote(byte b) {
+        return b == ' ' || b == '\t' || b == '"';
+    }
+}
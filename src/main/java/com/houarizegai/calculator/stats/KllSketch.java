@@ -0,0 +1,187 @@
+package com.houarizegai.calculator.stats;
+
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch: approximate quantiles of a stream in a few kilobytes, whatever its length.
+ * <p>
+ * Values go into level 0. When the sketch holds more than its capacity, the lowest full level is sorted and every
+ * other value, starting at a random offset, moves up one level with twice the weight; the rest are dropped. Level
+ * capacities shrink geometrically by 2/3 going down, so with {@code k = 200} the rank error stays around 1% and about
+ * {@code 3k} values are retained. Two sketches merge level by level, which lets chunks of a dataset be summarized in
+ * parallel. The coin flips come from a fixed-seed generator, so the same input in the same order always gives the
+ * same answers. Instances are not thread-safe.
+ */
+public final class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double DECAY = 2.0 / 3.0;
+    private static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels = new double[1][MIN_CAPACITY];
+    private int[] sizes = new int[1];
+    private int levelCount = 1;
+    private int retained;
+    private int totalCapacity;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < MIN_CAPACITY)
+            throw new IllegalArgumentException("k must be at least " + MIN_CAPACITY + ": " + k);
+        this.k = k;
+        totalCapacity = computeTotalCapacity();
+    }
+
+    public void add(double value) {
+        append(0, value);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (retained > totalCapacity)
+            compress();
+    }
+
+    /**
+     * Folds {@code other} into this sketch; {@code other} is left unchanged.
+     */
+    public void merge(KllSketch other) {
+        if (other.count == 0)
+            return;
+
+        for (int level = 0; level < other.levelCount; level++) {
+            for (int i = 0; i < other.sizes[level]; i++)
+                append(level, other.levels[level][i]);
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        compress();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Number of values the sketch keeps to stand for the {@link #getCount()} it has seen.
+     */
+    public int getRetained() {
+        return retained;
+    }
+
+    /**
+     * Approximate value at {@code quantile} (between 0 and 1). The extremes are exact; {@code NaN} when empty.
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + quantile);
+        if (count == 0)
+            return Double.NaN;
+        if (quantile == 0)
+            return min;
+        if (quantile == 1)
+            return max;
+
+        double[][] sorted = new double[levelCount][];
+        for (int level = 0; level < levelCount; level++) {
+            sorted[level] = Arrays.copyOf(levels[level], sizes[level]);
+            Arrays.sort(sorted[level]);
+        }
+
+        // walk the levels in value order, as one sorted run where a level-h value weighs 2^h
+        double rank = quantile * count;
+        int[] next = new int[levelCount];
+        long weight = 0;
+        while (true) {
+            int smallest = -1;
+            for (int level = 0; level < levelCount; level++) {
+                if (next[level] < sorted[level].length
+                        && (smallest < 0 || sorted[level][next[level]] < sorted[smallest][next[smallest]]))
+                    smallest = level;
+            }
+            if (smallest < 0)
+                return max;
+            double value = sorted[smallest][next[smallest]++];
+            weight += 1L << smallest;
+            if (weight >= rank)
+                return value;
+        }
+    }
+
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int level = 0; level < levelCount; level++) {
+                if (sizes[level] >= capacity(level)) {
+                    compact(level);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compact(int level) {
+        if (level + 1 == levelCount)
+            addLevel();
+
+        double[] items = levels[level];
+        int size = sizes[level];
+        // an odd value out stays behind so that every promoted value stands for exactly two
+        int paired = size & ~1;
+        Arrays.sort(items, 0, paired);
+        for (int i = nextBit(); i < paired; i += 2)
+            append(level + 1, items[i]);
+        if (paired < size)
+            items[0] = items[paired];
+        sizes[level] = size - paired;
+        retained -= paired;
+    }
+
+    private int capacity(int level) {
+        int depth = levelCount - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private int computeTotalCapacity() {
+        int total = 0;
+        for (int level = 0; level < levelCount; level++)
+            total += capacity(level);
+        return total;
+    }
+
+    private void append(int level, double value) {
+        while (level >= levelCount)
+            addLevel();
+        double[] items = levels[level];
+        if (sizes[level] == items.length)
+            levels[level] = items = Arrays.copyOf(items, items.length * 2);
+        items[sizes[level]++] = value;
+        retained++;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+            sizes = Arrays.copyOf(sizes, levelCount * 2);
+        }
+        levels[levelCount] = new double[MIN_CAPACITY];
+        levelCount++;
+        totalCapacity = computeTotalCapacity();
+    }
+
+    private int nextBit() {
+        // xorshift64
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random >>> 63);
+    }
+}
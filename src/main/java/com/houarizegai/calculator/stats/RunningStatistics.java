@@ -0,0 +1,132 @@
+package com.houarizegai.calculator.stats;
+
+/**
+ * Summary statistics gathered in one pass over a stream of values, in constant memory.
+ * <p>
+ * The mean and variance use Welford's update, which does not lose precision the way {@code Σx² - (Σx)²/n} does when
+ * the values are large and close together. The sum is Kahan–Babuška (Neumaier) compensated. Quantiles come from a
+ * {@link KllSketch}. Two summaries {@link #merge} into the summary of both streams (Chan et al. for the variance), so
+ * chunks of a dataset can be summarized on different threads and combined. Instances are not thread-safe.
+ */
+public final class RunningStatistics {
+
+    private final KllSketch quantiles;
+
+    private long count;
+    private double mean;
+    private double squaredDeviations;
+    private double sum;
+    private double compensation;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public RunningStatistics() {
+        this(KllSketch.DEFAULT_K);
+    }
+
+    /**
+     * @param k accuracy of the quantile sketch, see {@link KllSketch}
+     */
+    public RunningStatistics(int k) {
+        quantiles = new KllSketch(k);
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        addToSum(value);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        quantiles.add(value);
+    }
+
+    /**
+     * Folds {@code other} into this summary, which then describes both streams; {@code other} is left unchanged.
+     */
+    public RunningStatistics merge(RunningStatistics other) {
+        if (other.count == 0)
+            return this;
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        squaredDeviations += other.squaredDeviations + delta * delta * ((double) count * other.count / total);
+        count = total;
+        addToSum(other.sum);
+        compensation += other.compensation;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        quantiles.merge(other.quantiles);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * {@code NaN} when empty.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    public double getSum() {
+        return sum + compensation;
+    }
+
+    /**
+     * Sample variance, dividing by {@code n - 1}; {@code NaN} with fewer than two values.
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+    }
+
+    /**
+     * Population variance, dividing by {@code n}; {@code NaN} when empty.
+     */
+    public double getPopulationVariance() {
+        return count == 0 ? Double.NaN : squaredDeviations / count;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * {@code NaN} when empty.
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * {@code NaN} when empty.
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Approximate value at {@code quantile} (between 0 and 1), see {@link KllSketch#getQuantile}.
+     */
+    public double getQuantile(double quantile) {
+        return quantiles.getQuantile(quantile);
+    }
+
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+
+    private void addToSum(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - total) + value;
+        } else {
+            compensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+}
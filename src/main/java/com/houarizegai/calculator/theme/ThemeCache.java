@@ -0,0 +1,73 @@
+package com.houarizegai.calculator.theme;
+
+import java.awt.Color;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary form of the compiled theme palettes, written at build time by {@link ThemeCompiler} and read at startup
+ * with nothing more than a {@link DataInputStream}.
+ * <p>
+ * Layout: magic, format version, theme count, then per theme its name (modified UTF-8) followed by six
+ * {@code 0xRRGGBB} ints, {@code -1} standing for an unset color.
+ */
+final class ThemeCache {
+
+    static final String RESOURCE = "/themes.bin";
+
+    private static final int MAGIC = 0x43544850; // "CTHP"
+    private static final int VERSION = 1;
+    private static final int NO_COLOR = -1;
+
+    private ThemeCache() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    static void write(Collection<ThemePalette> palettes, OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(palettes.size());
+        for (ThemePalette palette : palettes) {
+            out.writeUTF(palette.getName());
+            writeColor(out, palette.getApplicationBackground());
+            writeColor(out, palette.getTextColor());
+            writeColor(out, palette.getBtnEqualTextColor());
+            writeColor(out, palette.getOperatorBackground());
+            writeColor(out, palette.getNumbersBackground());
+            writeColor(out, palette.getBtnEqualBackground());
+        }
+        out.flush();
+    }
+
+    static Map<String, ThemePalette> read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC || in.readUnsignedShort() != VERSION)
+            throw new IOException("Not a theme cache of version " + VERSION);
+
+        int count = in.readUnsignedShort();
+        Map<String, ThemePalette> palettes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            palettes.put(name, new ThemePalette(name, readColor(in), readColor(in), readColor(in), readColor(in),
+                    readColor(in), readColor(in)));
+        }
+        return Collections.unmodifiableMap(palettes);
+    }
+
+    private static void writeColor(DataOutputStream out, Color color) throws IOException {
+        out.writeInt(color == null ? NO_COLOR : color.getRGB() & 0xFFFFFF);
+    }
+
+    private static Color readColor(DataInputStream in) throws IOException {
+        int rgb = in.readInt();
+        return rgb == NO_COLOR ? null : new Color(rgb);
+    }
+}
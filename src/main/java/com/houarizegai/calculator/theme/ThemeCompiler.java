@@ -0,0 +1,35 @@
+package com.houarizegai.calculator.theme;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Build step that compiles the YAML theme definitions into the binary cache read at startup. Run by Maven in the
+ * {@code process-classes} phase: {@code ThemeCompiler <application.yaml> <themes.bin>}.
+ */
+public class ThemeCompiler {
+
+    private ThemeCompiler() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: ThemeCompiler <themes.yaml> <themes.bin>");
+
+        Path source = Paths.get(args[0]);
+        Path target = Paths.get(args[1]);
+        Map<String, ThemePalette> palettes = ThemeLoader.loadPalettes(source);
+        if (palettes.isEmpty())
+            throw new IOException("No themes found in " + source);
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(target)) {
+            ThemeCache.write(palettes.values(), out);
+        }
+    }
+}
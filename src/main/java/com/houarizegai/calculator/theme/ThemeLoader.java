@@ -1,29 +1,71 @@
 package com.houarizegai.calculator.theme;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.houarizegai.calculator.theme.properties.Theme;
-import com.houarizegai.calculator.theme.properties.ThemeList;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ThemeLoader {
 
+    private static final String THEMES_RESOURCE = "/application.yaml";
+
     private ThemeLoader() {
         throw new AssertionError("Constructor is not allowed");
     }
 
+    /**
+     * Reads the bundled YAML theme definitions from the classpath.
+     */
     public static Map<String, Theme> loadThemes() {
-        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-        mapper.findAndRegisterModules();
-        try {
-            ThemeList themeList = mapper.readValue(new File("src/main/resources/application.yaml"), ThemeList.class);
-            return themeList.getThemesAsMap();
+        try (InputStream in = ThemeLoader.class.getResourceAsStream(THEMES_RESOURCE)) {
+            return in == null ? Collections.emptyMap() : YamlThemeReader.read(in);
         } catch (IOException e) {
             return Collections.emptyMap();
         }
     }
+
+    /**
+     * Reads a user-supplied YAML theme file.
+     */
+    public static Map<String, Theme> loadThemes(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return YamlThemeReader.read(in);
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * The bundled themes compiled into {@link ThemePalette}s, keyed by name in declaration order. They come from
+     * the binary cache generated at build time, so startup does not initialize Jackson; the YAML definitions are
+     * only parsed when the cache is missing or unreadable, e.g. when running from an IDE without a Maven build.
+     */
+    public static Map<String, ThemePalette> loadPalettes() {
+        try (InputStream in = ThemeLoader.class.getResourceAsStream(ThemeCache.RESOURCE)) {
+            if (in != null)
+                return ThemeCache.read(in);
+        } catch (IOException e) {
+            // stale or corrupt cache: fall back to the YAML source
+        }
+        return compile(loadThemes());
+    }
+
+    /**
+     * Compiles the themes of a user-supplied YAML file.
+     */
+    public static Map<String, ThemePalette> loadPalettes(Path file) {
+        return compile(loadThemes(file));
+    }
+
+    private static Map<String, ThemePalette> compile(Map<String, Theme> themes) {
+        Map<String, ThemePalette> palettes = new LinkedHashMap<>();
+        for (Theme theme : themes.values())
+            palettes.put(theme.getName(), ThemePalette.compile(theme));
+        return Collections.unmodifiableMap(palettes);
+    }
 }
@@ -0,0 +1,74 @@
+package com.houarizegai.calculator.theme;
+
+import com.houarizegai.calculator.theme.properties.Theme;
+
+import java.awt.Color;
+
+import static com.houarizegai.calculator.util.ColorUtil.hex2Color;
+
+/**
+ * A {@link Theme} with its hex strings parsed into {@link Color}s once, so switching themes never parses colors.
+ */
+public final class ThemePalette {
+
+    private final String name;
+    private final Color applicationBackground;
+    private final Color textColor;
+    private final Color btnEqualTextColor;
+    private final Color operatorBackground;
+    private final Color numbersBackground;
+    private final Color btnEqualBackground;
+
+    private ThemePalette(Theme theme) {
+        name = theme.getName();
+        applicationBackground = hex2Color(theme.getApplicationBackground());
+        textColor = hex2Color(theme.getTextColor());
+        btnEqualTextColor = hex2Color(theme.getBtnEqualTextColor());
+        operatorBackground = hex2Color(theme.getOperatorBackground());
+        numbersBackground = hex2Color(theme.getNumbersBackground());
+        btnEqualBackground = hex2Color(theme.getBtnEqualBackground());
+    }
+
+    ThemePalette(String name, Color applicationBackground, Color textColor, Color btnEqualTextColor,
+                 Color operatorBackground, Color numbersBackground, Color btnEqualBackground) {
+        this.name = name;
+        this.applicationBackground = applicationBackground;
+        this.textColor = textColor;
+        this.btnEqualTextColor = btnEqualTextColor;
+        this.operatorBackground = operatorBackground;
+        this.numbersBackground = numbersBackground;
+        this.btnEqualBackground = btnEqualBackground;
+    }
+
+    public static ThemePalette compile(Theme theme) {
+        return new ThemePalette(theme);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Color getApplicationBackground() {
+        return applicationBackground;
+    }
+
+    public Color getTextColor() {
+        return textColor;
+    }
+
+    public Color getBtnEqualTextColor() {
+        return btnEqualTextColor;
+    }
+
+    public Color getOperatorBackground() {
+        return operatorBackground;
+    }
+
+    public Color getNumbersBackground() {
+        return numbersBackground;
+    }
+
+    public Color getBtnEqualBackground() {
+        return btnEqualBackground;
+    }
+}
@@ -0,0 +1,26 @@
+package com.houarizegai.calculator.theme;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.houarizegai.calculator.theme.properties.Theme;
+import com.houarizegai.calculator.theme.properties.ThemeList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * The only class touching Jackson, kept apart so that starting from the binary theme cache never loads it.
+ */
+final class YamlThemeReader {
+
+    private YamlThemeReader() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    static Map<String, Theme> read(InputStream in) throws IOException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        mapper.findAndRegisterModules();
+        return mapper.readValue(in, ThemeList.class).getThemesAsMap();
+    }
+}
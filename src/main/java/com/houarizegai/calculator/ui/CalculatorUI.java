@@ -1,22 +1,33 @@
 package com.houarizegai.calculator.ui;
 
-import com.houarizegai.calculator.theme.properties.Theme;
+import com.houarizegai.calculator.engine.Arithmetic;
+import com.houarizegai.calculator.engine.HybridNumber;
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.history.HistoryLog;
+import com.houarizegai.calculator.monitoring.CalculatorMetrics;
+import com.houarizegai.calculator.monitoring.StartupProfile;
+import com.houarizegai.calculator.session.CalculatorSession;
+import com.houarizegai.calculator.session.Key;
+import com.houarizegai.calculator.session.KeystrokeRecorder;
 import com.houarizegai.calculator.theme.ThemeLoader;
+import com.houarizegai.calculator.theme.ThemePalette;
 
 import java.awt.Cursor;
 import java.awt.Font;
+import java.awt.Graphics;
 import java.awt.event.ItemEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 import java.awt.Color;
 import javax.swing.*;
 
-import static com.houarizegai.calculator.util.ColorUtil.hex2Color;
-
 public class CalculatorUI {
 
     private static final String FONT_NAME = "Comic Sans MS";
-    private static final String DOUBLE_OR_NUMBER_REGEX = "([-]?\\d+[.]\\d*)|(\\d+)|(-\\d+)";
     private static final String APPLICATION_TITLE = "Calculator";
     private static final int WINDOW_WIDTH = 410;
     private static final int WINDOW_HEIGHT = 600;
@@ -24,8 +35,16 @@ public class CalculatorUI {
     private static final int BUTTON_HEIGHT = 70;
     private static final int MARGIN_X = 20;
     private static final int MARGIN_Y = 60;
+    private static final Font BUTTON_FONT = new Font(FONT_NAME, Font.PLAIN, 28);
+    private static final Font SMALL_BUTTON_FONT = new Font(FONT_NAME, Font.PLAIN, 24);
+    private static final Font SCREEN_FONT = new Font(FONT_NAME, Font.PLAIN, 33);
+    private static final Font HISTORY_FONT = new Font(FONT_NAME, Font.PLAIN, 16);
+    private static final Font MONOSPACED_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 15);
+    private static final Cursor HAND_CURSOR = Cursor.getPredefinedCursor(Cursor.HAND_CURSOR);
 
     private final JFrame window;
+    private final int[] columns;
+    private final int[] rows;
     private JComboBox<String> comboCalculatorType;
     private JComboBox<String> comboTheme;
     private JTextField inputScreen;
@@ -51,53 +70,89 @@ public class CalculatorUI {
     private JButton btnRoot;
     private JButton btnPower;
     private JButton btnLog;
+    private final List<JButton> keypadButtons = new ArrayList<>();
+    private final List<JComponent> modePanels = new ArrayList<>();
+    private HistoryPanel historyPanel;
+    private StatisticsPanel statisticsPanel;
+    private MatrixPanel matrixPanel;
+    private IntegerPanel integerPanel;
+    private GraphPanel graphPanel;
+    private SheetPanel sheetPanel;
+    private SolvePanel solvePanel;
+    private IntegralPanel integralPanel;
+
+    private final CalculatorSession session;
+    private final KeystrokeRecorder recorder;
+
+    private final ThemedComponents themedComponents = new ThemedComponents();
+    private final Map<String, ThemePalette> themesMap;
+    private ThemePalette currentTheme;
+
+    private final CompletableFuture<HistoryLog> history;
 
-    private char selectedOperator = ' ';
-    private boolean go = true; // For calculate with Opt != (=)
-    private boolean addToDisplay = true; // Connect numbers in display
-    private double typedValue = 0;
+    public CalculatorUI() {
+        this(new CalculatorSession(), null);
+    }
 
-    private final Map<String, Theme> themesMap;
+    /**
+     * Creates a window showing {@code session}, recording every key pressed to {@code keystrokeFile} unless it is
+     * {@code null}, with the history in {@link HistoryLog#defaultFile()}.
+     */
+    public CalculatorUI(CalculatorSession session, Path keystrokeFile) {
+        this(session, keystrokeFile, HistoryLog.defaultFile());
+    }
 
-    public CalculatorUI() {
-        themesMap = ThemeLoader.loadThemes();
+    /**
+     * Same as {@link #CalculatorUI(CalculatorSession, Path)} with the history in {@code historyFile}, or no history
+     * when it is {@code null}.
+     */
+    public CalculatorUI(CalculatorSession session, Path keystrokeFile, Path historyFile) {
+        this.session = session;
+        history = historyFile == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> openHistory(historyFile));
+        recorder = keystrokeFile == null ? null : openRecorder(keystrokeFile);
+        session.setOperationListener(this::record);
+
+        // themes load on a pool thread while the components are built
+        CompletableFuture<Map<String, ThemePalette>> themes = CompletableFuture.supplyAsync(() -> {
+            StartupProfile.mark(StartupProfile.Phase.THEMES_LOADING);
+            Map<String, ThemePalette> palettes = ThemeLoader.loadPalettes();
+            StartupProfile.mark(StartupProfile.Phase.THEMES_LOADED);
+            return palettes;
+        });
 
         window = new JFrame(APPLICATION_TITLE);
+        window.setContentPane(new JPanel() {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                StartupProfile.mark(StartupProfile.Phase.FIRST_PAINT);
+            }
+        });
         window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
         window.setLocationRelativeTo(null);
 
-        int[] columns = {MARGIN_X, MARGIN_X + 90, MARGIN_X + 90 * 2, MARGIN_X + 90 * 3, MARGIN_X + 90 * 4};
-        int[] rows = {MARGIN_Y, MARGIN_Y + 100, MARGIN_Y + 100 + 80, MARGIN_Y + 100 + 80 * 2, MARGIN_Y + 100 + 80 * 3, MARGIN_Y + 100 + 80 * 4};
+        columns = new int[]{MARGIN_X, MARGIN_X + 90, MARGIN_X + 90 * 2, MARGIN_X + 90 * 3, MARGIN_X + 90 * 4};
+        rows = new int[]{MARGIN_Y, MARGIN_Y + 100, MARGIN_Y + 100 + 80, MARGIN_Y + 100 + 80 * 2, MARGIN_Y + 100 + 80 * 3, MARGIN_Y + 100 + 80 * 4};
 
         initInputScreen(columns, rows);
         initButtons(columns, rows);
         initCalculatorTypeSelector();
+        StartupProfile.mark(StartupProfile.Phase.COMPONENTS_BUILT);
 
+        themesMap = themes.join();
         initThemeSelector();
 
         window.setLayout(null);
         window.setResizable(false);
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         window.setVisible(true);
+        StartupProfile.mark(StartupProfile.Phase.WINDOW_SHOWN);
     }
 
     public double calculate(double firstNumber, double secondNumber, char operator) {
-        switch (operator) {
-            case '+':
-                return firstNumber + secondNumber;
-            case '-':
-                return firstNumber - secondNumber;
-            case '*':
-                return firstNumber * secondNumber;
-            case '/':
-                return firstNumber / secondNumber;
-            case '%':
-                return firstNumber % secondNumber;
-            case '^':
-                return Math.pow(firstNumber, secondNumber);
-            default:
-                return secondNumber;
-        }
+        return Arithmetic.calculate(firstNumber, secondNumber, operator);
     }
 
     private void initThemeSelector() {
@@ -116,16 +171,17 @@ public class CalculatorUI {
     }
 
     private void initInputScreen(int[] columns, int[] rows) {
-        inputScreen = new JTextField("0");
+        inputScreen = themedComponents.register(ComponentRole.SCREEN, new JTextField("0"));
         inputScreen.setBounds(columns[0], rows[0], 350, 70);
         inputScreen.setEditable(false);
         inputScreen.setBackground(Color.WHITE);
-        inputScreen.setFont(new Font(FONT_NAME, Font.PLAIN, 33));
+        inputScreen.setFont(SCREEN_FONT);
         window.add(inputScreen);
     }
 
     private void initCalculatorTypeSelector() {
-        comboCalculatorType = createComboBox(new String[]{"Standard", "Scientific"}, 20, 30, "Calculator type");
+        comboCalculatorType = createComboBox(new String[]{"Standard", "Scientific", "History", "Statistics", "Matrix",
+                "Integer", "Graph", "Variables", "Solve", "Integral"}, 20, 30, "Calculator type");
         comboCalculatorType.addItemListener(event -> {
             if (event.getStateChange() != ItemEvent.SELECTED)
                 return;
@@ -134,453 +190,314 @@ public class CalculatorUI {
             switch (selectedItem) {
                 case "Standard":
                     window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
-                    btnRoot.setVisible(false);
-                    btnPower.setVisible(false);
-                    btnLog.setVisible(false);
+                    showKeypad(false);
                     break;
                 case "Scientific":
                     window.setSize(WINDOW_WIDTH + 80, WINDOW_HEIGHT);
-                    btnRoot.setVisible(true);
-                    btnPower.setVisible(true);
-                    btnLog.setVisible(true);
+                    showKeypad(true);
+                    break;
+                case "History":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showHistory();
+                    break;
+                case "Statistics":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showStatistics();
+                    break;
+                case "Matrix":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showMatrix();
+                    break;
+                case "Integer":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showIntegers();
+                    break;
+                case "Graph":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showGraph();
+                    break;
+                case "Variables":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showSheet();
+                    break;
+                case "Solve":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showSolver();
+                    break;
+                case "Integral":
+                    window.setSize(WINDOW_WIDTH, WINDOW_HEIGHT);
+                    showIntegral();
                     break;
             }
         });
     }
 
     private void initButtons(int[] columns, int[] rows) {
-        btnC = createButton("C", columns[0], rows[1]);
-        btnC.addActionListener(event -> {
-            inputScreen.setText("0");
-            selectedOperator = ' ';
-            typedValue = 0;
-        });
+        btnC = createKeyButton("C", Key.CLEAR, columns[0], rows[1], ComponentRole.OPERATOR);
+        btnBack = createKeyButton("<-", Key.BACKSPACE, columns[1], rows[1], ComponentRole.OPERATOR);
+        btnMod = createKeyButton("%", Key.MODULO, columns[2], rows[1], ComponentRole.OPERATOR);
+        btnDiv = createKeyButton("/", Key.DIVIDE, columns[3], rows[1], ComponentRole.OPERATOR);
+
+        btn7 = createDigitButton(7, columns[0], rows[2]);
+        btn8 = createDigitButton(8, columns[1], rows[2]);
+        btn9 = createDigitButton(9, columns[2], rows[2]);
+        btnMul = createKeyButton("*", Key.MULTIPLY, columns[3], rows[2], ComponentRole.OPERATOR);
+
+        btn4 = createDigitButton(4, columns[0], rows[3]);
+        btn5 = createDigitButton(5, columns[1], rows[3]);
+        btn6 = createDigitButton(6, columns[2], rows[3]);
+        btnSub = createKeyButton("-", Key.SUBTRACT, columns[3], rows[3], ComponentRole.OPERATOR);
+
+        btn1 = createDigitButton(1, columns[0], rows[4]);
+        btn2 = createDigitButton(2, columns[1], rows[4]);
+        btn3 = createDigitButton(3, columns[2], rows[4]);
+        btnAdd = createKeyButton("+", Key.ADD, columns[3], rows[4], ComponentRole.OPERATOR);
+
+        btnPoint = createKeyButton(".", Key.POINT, columns[0], rows[5], ComponentRole.NUMBER);
+        btn0 = createDigitButton(0, columns[1], rows[5]);
+
+        btnEqual = createKeyButton("=", Key.EQUAL, columns[2], rows[5], ComponentRole.EQUAL);
+        btnEqual.setSize(2 * BUTTON_WIDTH + 10, BUTTON_HEIGHT);
+    }
 
-        btnBack = createButton("<-", columns[1], rows[1]);
-        btnBack.addActionListener(event -> {
-            String str = inputScreen.getText();
-            StringBuilder str2 = new StringBuilder();
-            for (int i = 0; i < (str.length() - 1); i++) {
-                str2.append(str.charAt(i));
-            }
-            if (str2.toString().equals("")) {
-                inputScreen.setText("0");
-            } else {
-                inputScreen.setText(str2.toString());
-            }
-        });
+    private void showKeypad(boolean scientific) {
+        for (JComponent panel : modePanels)
+            panel.setVisible(false);
+        for (JButton btn : keypadButtons)
+            btn.setVisible(true);
+        setScientificButtonsVisible(scientific);
+    }
 
-        btnMod = createButton("%", columns[2], rows[1]);
-        btnMod.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()) || !go)
-                return;
+    /**
+     * Shows {@code panel} where the keypad is, hiding the keypad and any other mode's panel.
+     */
+    private void showModePanel(JComponent panel) {
+        for (JButton btn : keypadButtons)
+            btn.setVisible(false);
+        for (JComponent other : modePanels)
+            other.setVisible(other == panel);
+    }
 
-            typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-            if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                inputScreen.setText(String.valueOf((int) typedValue));
-            } else {
-                inputScreen.setText(String.valueOf(typedValue));
-            }
-            selectedOperator = '%';
-            go = false;
-            addToDisplay = false;
-        });
+    /**
+     * Places a mode's panel where the keypad is. Panels are built the first time their mode is chosen.
+     */
+    private <T extends JComponent> T addModePanel(T panel) {
+        panel.setBounds(columns[0], rows[1], 350, rows[5] + BUTTON_HEIGHT - rows[1]);
+        panel.setVisible(false);
+        window.add(panel);
+        modePanels.add(panel);
+        if (currentTheme != null)
+            applyTheme(currentTheme);
+        return panel;
+    }
 
-        btnDiv = createButton("/", columns[3], rows[1]);
-        btnDiv.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+    private void showHistory() {
+        HistoryLog log = history.join();
+        if (log == null) {
+            JOptionPane.showMessageDialog(window, "History is not available", APPLICATION_TITLE,
+                    JOptionPane.WARNING_MESSAGE);
+            comboCalculatorType.setSelectedItem("Standard");
+            return;
+        }
 
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-                selectedOperator = '/';
-                go = false;
-                addToDisplay = false;
-            } else {
-                selectedOperator = '/';
-            }
-        });
+        if (historyPanel == null) {
+            historyPanel = new HistoryPanel(log, HISTORY_FONT, this::pickResult);
+            themedComponents.register(ComponentRole.SCREEN, historyPanel.getList());
+            addModePanel(historyPanel);
+        }
+        historyPanel.refresh();
+        showModePanel(historyPanel);
+    }
 
-        btn7 = createButton("7", columns[0], rows[2]);
-        btn7.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("7");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "7");
-                }
-            } else {
-                inputScreen.setText("7");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    private void showStatistics() {
+        if (statisticsPanel == null)
+            statisticsPanel = addModePanel(new StatisticsPanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(statisticsPanel);
+    }
 
-        btn8 = createButton("8", columns[1], rows[2]);
-        btn8.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("8");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "8");
-                }
-            } else {
-                inputScreen.setText("8");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    private void showMatrix() {
+        if (matrixPanel == null)
+            matrixPanel = addModePanel(new MatrixPanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(matrixPanel);
+    }
 
-        btn9 = createButton("9", columns[2], rows[2]);
-        btn9.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("9");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "9");
-                }
-            } else {
-                inputScreen.setText("9");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    private void showIntegers() {
+        if (integerPanel == null)
+            integerPanel = addModePanel(new IntegerPanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(integerPanel);
+    }
 
-        btnMul = createButton("*", columns[3], rows[2]);
-        btnMul.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+    private void showGraph() {
+        if (graphPanel == null)
+            graphPanel = addModePanel(new GraphPanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(graphPanel);
+    }
 
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-                selectedOperator = '*';
-                go = false;
-                addToDisplay = false;
-            } else {
-                selectedOperator = '*';
-            }
-        });
+    private void showSheet() {
+        if (sheetPanel == null)
+            sheetPanel = addModePanel(new SheetPanel(MONOSPACED_FONT, themedComponents, this::pickResult));
+        showModePanel(sheetPanel);
+    }
 
-        btn4 = createButton("4", columns[0], rows[3]);
-        btn4.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("4");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "4");
-                }
-            } else {
-                inputScreen.setText("4");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    private void showSolver() {
+        if (solvePanel == null)
+            solvePanel = addModePanel(new SolvePanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(solvePanel);
+    }
 
-        btn5 = createButton("5", columns[1], rows[3]);
-        btn5.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("5");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "5");
-                }
-            } else {
-                inputScreen.setText("5");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    private void showIntegral() {
+        if (integralPanel == null)
+            integralPanel = addModePanel(new IntegralPanel(MONOSPACED_FONT, themedComponents));
+        showModePanel(integralPanel);
+    }
 
-        btn6 = createButton("6", columns[2], rows[3]);
-        btn6.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("6");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "6");
-                }
-            } else {
-                inputScreen.setText("6");
-                addToDisplay = true;
+    private void pickResult(double result) {
+        String value = DoubleFormatter.DISPLAY.format(result);
+        session.load(value);
+        if (recorder != null) {
+            try {
+                recorder.recordLoad(value);
+            } catch (IOException e) {
+                System.err.println("Cannot record keystrokes: " + e.getMessage());
             }
-            go = true;
-        });
+        }
+        refreshInputScreen();
+        comboCalculatorType.setSelectedItem("Standard");
+    }
 
-        btnSub = createButton("-", columns[3], rows[3]);
-        btnSub.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
+    private void setScientificButtonsVisible(boolean visible) {
+        if (btnRoot == null) {
+            if (!visible)
                 return;
+            initScientificButtons(columns, rows);
+        }
+        btnRoot.setVisible(visible);
+        btnPower.setVisible(visible);
+        btnLog.setVisible(visible);
+    }
 
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-
-                selectedOperator = '-';
-                go = false;
-                addToDisplay = false;
-            } else {
-                selectedOperator = '-';
-            }
-        });
-
-        btn1 = createButton("1", columns[0], rows[4]);
-        btn1.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("1");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "1");
-                }
-            } else {
-                inputScreen.setText("1");
-                addToDisplay = true;
-            }
-            go = true;
-        });
-
-        btn2 = createButton("2", columns[1], rows[4]);
-        btn2.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("2");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "2");
-                }
-            } else {
-                inputScreen.setText("2");
-                addToDisplay = true;
-            }
-            go = true;
-        });
-
-        btn3 = createButton("3", columns[2], rows[4]);
-        btn3.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("3");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "3");
-                }
-            } else {
-                inputScreen.setText("3");
-                addToDisplay = true;
-            }
-            go = true;
-        });
+    /**
+     * Built the first time the scientific keypad is shown rather than at startup.
+     */
+    private void initScientificButtons(int[] columns, int[] rows) {
+        btnRoot = createKeyButton("√", Key.SQRT, columns[4], rows[1], ComponentRole.OPERATOR);
+        btnPower = createKeyButton("pow", Key.POWER, columns[4], rows[2], ComponentRole.OPERATOR);
+        btnPower.setFont(SMALL_BUTTON_FONT);
+        btnLog = createKeyButton("ln", Key.LN, columns[4], rows[3], ComponentRole.OPERATOR);
+
+        if (currentTheme != null)
+            applyTheme(currentTheme);
+    }
 
-        btnAdd = createButton("+", columns[3], rows[4]);
-        btnAdd.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+    private JButton createDigitButton(int digit, int x, int y) {
+        return createKeyButton(String.valueOf(digit), Key.digit(digit), x, y, ComponentRole.NUMBER);
+    }
 
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-                selectedOperator = '+';
-                go = false;
-                addToDisplay = false;
-            } else {
-                selectedOperator = '+';
-            }
-        });
+    private JButton createKeyButton(String label, Key key, int x, int y, ComponentRole role) {
+        JButton btn = createButton(label, x, y, role);
+        btn.addActionListener(event -> press(key));
+        return btn;
+    }
 
-        btnPoint = createButton(".", columns[0], rows[5]);
-        btnPoint.addActionListener(event -> {
-            if (addToDisplay) {
-                if (!inputScreen.getText().contains(".")) {
-                    inputScreen.setText(inputScreen.getText() + ".");
-                }
-            } else {
-                inputScreen.setText("0.");
-                addToDisplay = true;
+    private void press(Key key) {
+        session.press(key);
+        if (recorder != null) {
+            try {
+                recorder.record(key);
+            } catch (IOException e) {
+                System.err.println("Cannot record keystrokes: " + e.getMessage());
             }
-            go = true;
-        });
+        }
+        refreshInputScreen();
+    }
 
-        btn0 = createButton("0", columns[1], rows[5]);
-        btn0.addActionListener(event -> {
-            if (addToDisplay) {
-                if (Pattern.matches("[0]*", inputScreen.getText())) {
-                    inputScreen.setText("0");
-                } else {
-                    inputScreen.setText(inputScreen.getText() + "0");
-                }
+    /**
+     * Appends a completed operation to the history log, if it is open. {@code second} is {@code null} for unary ones.
+     */
+    private void record(HybridNumber first, char operator, HybridNumber second, HybridNumber result) {
+        HistoryLog log = history.getNow(null);
+        if (log == null || log.isReadOnly())
+            return;
+
+        try {
+            if (second == null) {
+                log.appendUnary(operator, first.doubleValue(), result.doubleValue());
             } else {
-                inputScreen.setText("0");
-                addToDisplay = true;
+                log.append(first.doubleValue(), operator, second.doubleValue(), result.doubleValue());
             }
-            go = true;
-        });
-
-        btnEqual = createButton("=", columns[2], rows[5]);
-        btnEqual.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
-
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-                selectedOperator = '=';
-                addToDisplay = false;
-            }
-        });
-        btnEqual.setSize(2 * BUTTON_WIDTH + 10, BUTTON_HEIGHT);
-
-        btnRoot = createButton("√", columns[4], rows[1]);
-        btnRoot.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+        } catch (IOException e) {
+            System.err.println("Cannot write history: " + e.getMessage());
+        }
+        if (historyPanel != null)
+            historyPanel.refresh();
+    }
 
-            if (go) {
-                typedValue = Math.sqrt(Double.parseDouble(inputScreen.getText()));
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
+    private static KeystrokeRecorder openRecorder(Path file) {
+        try {
+            KeystrokeRecorder recorder = KeystrokeRecorder.create(file);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    System.err.println("Cannot save keystrokes: " + e.getMessage());
                 }
-                selectedOperator = '√';
-                addToDisplay = false;
-            }
-        });
-        btnRoot.setVisible(false);
-
-        btnPower = createButton("pow", columns[4], rows[2]);
-        btnPower.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+            }));
+            return recorder;
+        } catch (IOException e) {
+            System.err.println("Keystrokes are not recorded: " + e.getMessage());
+            return null;
+        }
+    }
 
-            if (go) {
-                typedValue = calculate(typedValue, Double.parseDouble(inputScreen.getText()), selectedOperator);
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
+    private static HistoryLog openHistory(Path file) {
+        try {
+            HistoryLog log = HistoryLog.open(file);
+            if (log.isReadOnly())
+                System.err.println("History is read-only: another calculator is using " + file);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException ignored) {
+                    // the records are already in the mapped file
                 }
-                selectedOperator = '^';
-                go = false;
-                addToDisplay = false;
-            } else {
-                selectedOperator = '^';
-            }
-        });
-        btnPower.setFont(new Font("Comic Sans MS", Font.PLAIN, 24));
-        btnPower.setVisible(false);
-
-        btnLog = createButton("ln", columns[4], rows[3]);
-        btnLog.addActionListener(event -> {
-            if (!Pattern.matches(DOUBLE_OR_NUMBER_REGEX, inputScreen.getText()))
-                return;
+            }));
+            return log;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("History is disabled: " + e.getMessage());
+            return null;
+        }
+    }
 
-            if (go) {
-                typedValue = Math.log(Double.parseDouble(inputScreen.getText()));
-                if (Pattern.matches("[-]?[\\d]+[.][0]*", String.valueOf(typedValue))) {
-                    inputScreen.setText(String.valueOf((int) typedValue));
-                } else {
-                    inputScreen.setText(String.valueOf(typedValue));
-                }
-                selectedOperator = 'l';
-                addToDisplay = false;
-            }
-        });
-        btnLog.setVisible(false);
+    private void refreshInputScreen() {
+        inputScreen.setText(session.display());
     }
 
     private JComboBox<String> createComboBox(String[] items, int x, int y, String toolTip) {
-        JComboBox<String> combo = new JComboBox<>(items);
+        JComboBox<String> combo = themedComponents.register(ComponentRole.COMBO, new JComboBox<>(items));
         combo.setBounds(x, y, 140, 25);
         combo.setToolTipText(toolTip);
-        combo.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        combo.setCursor(HAND_CURSOR);
         window.add(combo);
 
         return combo;
     }
 
-    private JButton createButton(String label, int x, int y) {
-        JButton btn = new JButton(label);
+    private JButton createButton(String label, int x, int y, ComponentRole role) {
+        JButton btn = themedComponents.register(role, new JButton(label));
         btn.setBounds(x, y, BUTTON_WIDTH, BUTTON_HEIGHT);
-        btn.setFont(new Font("Comic Sans MS", Font.PLAIN, 28));
-        btn.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        btn.setFont(BUTTON_FONT);
+        btn.setCursor(HAND_CURSOR);
         btn.setFocusable(false);
         window.add(btn);
+        keypadButtons.add(btn);
 
         return btn;
     }
 
-    private void applyTheme(Theme theme) {
-        window.getContentPane().setBackground(hex2Color(theme.getApplicationBackground()));
-
-        comboCalculatorType.setForeground(hex2Color(theme.getTextColor()));
-        comboTheme.setForeground(hex2Color(theme.getTextColor()));
-        inputScreen.setForeground(hex2Color(theme.getTextColor()));
-        btn0.setForeground(hex2Color(theme.getTextColor()));
-        btn1.setForeground(hex2Color(theme.getTextColor()));
-        btn2.setForeground(hex2Color(theme.getTextColor()));
-        btn3.setForeground(hex2Color(theme.getTextColor()));
-        btn4.setForeground(hex2Color(theme.getTextColor()));
-        btn5.setForeground(hex2Color(theme.getTextColor()));
-        btn6.setForeground(hex2Color(theme.getTextColor()));
-        btn7.setForeground(hex2Color(theme.getTextColor()));
-        btn8.setForeground(hex2Color(theme.getTextColor()));
-        btn9.setForeground(hex2Color(theme.getTextColor()));
-        btnPoint.setForeground(hex2Color(theme.getTextColor()));
-        btnC.setForeground(hex2Color(theme.getTextColor()));
-        btnBack.setForeground(hex2Color(theme.getTextColor()));
-        btnMod.setForeground(hex2Color(theme.getTextColor()));
-        btnDiv.setForeground(hex2Color(theme.getTextColor()));
-        btnMul.setForeground(hex2Color(theme.getTextColor()));
-        btnSub.setForeground(hex2Color(theme.getTextColor()));
-        btnAdd.setForeground(hex2Color(theme.getTextColor()));
-        btnRoot.setForeground(hex2Color(theme.getTextColor()));
-        btnLog.setForeground(hex2Color(theme.getTextColor()));
-        btnPower.setForeground(hex2Color(theme.getTextColor()));
-        btnEqual.setForeground(hex2Color(theme.getBtnEqualTextColor()));
-
-        comboCalculatorType.setBackground(hex2Color(theme.getApplicationBackground()));
-        comboTheme.setBackground(hex2Color(theme.getApplicationBackground()));
-        inputScreen.setBackground(hex2Color(theme.getApplicationBackground()));
-        btn0.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn1.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn2.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn3.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn4.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn5.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn6.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn7.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn8.setBackground(hex2Color(theme.getNumbersBackground()));
-        btn9.setBackground(hex2Color(theme.getNumbersBackground()));
-        btnPoint.setBackground(hex2Color(theme.getNumbersBackground()));
-        btnC.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnBack.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnMod.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnDiv.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnMul.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnSub.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnAdd.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnRoot.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnLog.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnPower.setBackground(hex2Color(theme.getOperatorBackground()));
-        btnEqual.setBackground(hex2Color(theme.getBtnEqualBackground()));
-    }
-}
\ No newline at end of file
+    private void applyTheme(ThemePalette palette) {
+        long start = CalculatorMetrics.start();
+        currentTheme = palette;
+        themedComponents.apply(palette, window.getContentPane());
+        CalculatorMetrics.recordTheme(start);
+    }
+}
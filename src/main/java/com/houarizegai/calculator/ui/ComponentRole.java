@@ -0,0 +1,12 @@
+package com.houarizegai.calculator.ui;
+
+/**
+ * What a component is, as far as theming is concerned.
+ */
+public enum ComponentRole {
+    NUMBER,
+    OPERATOR,
+    EQUAL,
+    SCREEN,
+    COMBO
+}
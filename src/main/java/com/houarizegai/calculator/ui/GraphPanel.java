@@ -0,0 +1,265 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.graph.FunctionSampler;
+import com.houarizegai.calculator.graph.GraphRenderer;
+import com.houarizegai.calculator.graph.Viewport;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plots {@code y = f(x)} for a formula of one variable. Dragging pans and the mouse wheel zooms around the pointer.
+ * <p>
+ * Sampling and drawing run on a background thread; the canvas meanwhile stretches the last image over the new
+ * viewport, so the window follows the mouse immediately. Requests that arrive while a frame is being rendered are
+ * coalesced into the latest one.
+ */
+class GraphPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final double ZOOM_STEP = 1.25;
+    private static final Viewport DEFAULT_VIEWPORT = new Viewport(-10, 10, -10, 10);
+    private static final Color CURVE_COLOR = new Color(0x1E88E5);
+
+    private final JTextField functionField = new JTextField("x ^ 2 - 2");
+    private final JLabel status = new JLabel(" ");
+    private final Canvas canvas = new Canvas();
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "graph-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // the fields below are guarded by this panel's lock; the background thread takes requests and clears rendering
+    private FunctionSampler sampler;
+    private Viewport viewport = DEFAULT_VIEWPORT;
+    private boolean fitY;
+    private Frame pendingFrame;
+    private boolean rendering;
+
+    GraphPanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 8));
+        JPanel input = new JPanel(new BorderLayout(8, 0));
+        JLabel label = new JLabel("f(x) =");
+        label.setFont(font);
+        functionField.setFont(font);
+        JButton plotButton = new JButton("Plot");
+        plotButton.setFocusable(false);
+        input.add(themedComponents.register(ComponentRole.SCREEN, label), BorderLayout.WEST);
+        input.add(themedComponents.register(ComponentRole.SCREEN, functionField), BorderLayout.CENTER);
+        input.add(themedComponents.register(ComponentRole.EQUAL, plotButton), BorderLayout.EAST);
+        add(themedComponents.register(ComponentRole.SCREEN, input), BorderLayout.NORTH);
+        add(themedComponents.register(ComponentRole.SCREEN, canvas), BorderLayout.CENTER);
+        add(themedComponents.register(ComponentRole.SCREEN, status), BorderLayout.SOUTH);
+        themedComponents.register(ComponentRole.SCREEN, this);
+
+        plotButton.addActionListener(event -> plot());
+        functionField.addActionListener(event -> plot());
+        MouseAdapter navigation = new MouseAdapter() {
+            private Point dragStart;
+            private Viewport dragViewport;
+
+            @Override
+            public void mousePressed(MouseEvent event) {
+                dragStart = event.getPoint();
+                dragViewport = viewport;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent event) {
+                if (dragStart == null)
+                    return;
+                double dx = (dragStart.x - event.getX()) * dragViewport.getWidth() / canvas.getWidth();
+                double dy = (event.getY() - dragStart.y) * dragViewport.getHeight() / canvas.getHeight();
+                show(dragViewport.pan(dx, dy), false);
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent event) {
+                Viewport current = viewport;
+                double x = current.getXMin() + event.getX() * current.getWidth() / canvas.getWidth();
+                double y = current.getYMax() - event.getY() * current.getHeight() / canvas.getHeight();
+                show(current.zoom(Math.pow(ZOOM_STEP, event.getPreciseWheelRotation()), x, y), false);
+            }
+        };
+        canvas.addMouseListener(navigation);
+        canvas.addMouseMotionListener(navigation);
+        canvas.addMouseWheelListener(navigation);
+    }
+
+    private void plot() {
+        FunctionSampler newSampler;
+        try {
+            newSampler = new FunctionSampler(Formula.parse(functionField.getText()));
+        } catch (ExpressionException e) {
+            status.setText(e.getMessage() + " at " + (e.getPosition() + 1));
+            return;
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            sampler = newSampler;
+        }
+        show(DEFAULT_VIEWPORT, true);
+    }
+
+    /**
+     * Shows {@code newViewport}, fitting its y range to the curve when {@code fit} is set.
+     */
+    private void show(Viewport newViewport, boolean fit) {
+        viewport = newViewport;
+        canvas.repaint();
+        int width = canvas.getWidth();
+        int height = canvas.getHeight();
+        if (width <= 0 || height <= 0)
+            return;
+
+        synchronized (this) {
+            if (sampler == null)
+                return;
+            fitY = fitY || fit;
+            pendingFrame = new Frame(sampler, newViewport, width, height, canvas.getBackground(),
+                    canvas.getForeground());
+            if (rendering)
+                return;
+            rendering = true;
+        }
+        renderer.execute(this::renderPending);
+    }
+
+    /**
+     * Renders requested frames until none is pending. Runs on the renderer thread; a frame that fails is reported in
+     * the status line and the next one is rendered all the same.
+     */
+    private void renderPending() {
+        boolean idle = false;
+        try {
+            while (true) {
+                Frame frame;
+                boolean fit;
+                synchronized (this) {
+                    frame = pendingFrame;
+                    fit = fitY;
+                    pendingFrame = null;
+                    fitY = false;
+                    if (frame == null) {
+                        rendering = false;
+                        idle = true;
+                        return;
+                    }
+                }
+                try {
+                    render(frame, fit);
+                } catch (RuntimeException e) {
+                    String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                    SwingUtilities.invokeLater(() -> status.setText(message));
+                }
+            }
+        } finally {
+            // an error escaped: let the next request start the renderer again
+            if (!idle) {
+                synchronized (this) {
+                    rendering = false;
+                }
+            }
+        }
+    }
+
+    private void render(Frame frame, boolean fit) {
+        long start = System.nanoTime();
+        Viewport target = frame.viewport;
+        FunctionSampler.Columns columns = frame.sampler.sample(target.getXMin(), target.getXMax(), frame.width);
+        if (fit) {
+            double[] range = columns.suggestYRange();
+            if (range != null)
+                target = target.withYRange(range[0], range[1]);
+        }
+        BufferedImage image = GraphRenderer.render(columns, target, frame.width, frame.height, frame.background,
+                frame.foreground, CURVE_COLOR);
+        String summary = String.format("%,d samples, %,d computed, %.0f ms", columns.getSampleCount(),
+                columns.getComputedCount(), (System.nanoTime() - start) / 1e6);
+        Viewport rendered = target;
+        SwingUtilities.invokeLater(() -> {
+            canvas.setImage(image, rendered);
+            if (fit)
+                viewport = rendered;
+            status.setText(summary);
+        });
+    }
+
+    private static final class Frame {
+
+        final FunctionSampler sampler;
+        final Viewport viewport;
+        final int width;
+        final int height;
+        final Color background;
+        final Color foreground;
+
+        Frame(FunctionSampler sampler, Viewport viewport, int width, int height, Color background, Color foreground) {
+            this.sampler = sampler;
+            this.viewport = viewport;
+            this.width = width;
+            this.height = height;
+            this.background = background;
+            this.foreground = foreground;
+        }
+    }
+
+    /**
+     * Paints the last rendered image, scaled and moved from the viewport it was rendered for to the current one.
+     */
+    private final class Canvas extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        private BufferedImage image;
+        private Viewport imageViewport;
+
+        Canvas() {
+            setOpaque(true);
+        }
+
+        void setImage(BufferedImage image, Viewport imageViewport) {
+            this.image = image;
+            this.imageViewport = imageViewport;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (image == null)
+                return;
+
+            Viewport current = viewport;
+            double scaleX = getWidth() / current.getWidth();
+            double scaleY = getHeight() / current.getHeight();
+            int x = (int) Math.round((imageViewport.getXMin() - current.getXMin()) * scaleX);
+            int y = (int) Math.round((current.getYMax() - imageViewport.getYMax()) * scaleY);
+            int width = (int) Math.round(imageViewport.getWidth() * scaleX);
+            int height = (int) Math.round(imageViewport.getHeight() * scaleY);
+            g.drawImage(image, x, y, width, height, null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.history.HistoryEntry;
+import com.houarizegai.calculator.history.HistoryLog;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Newest-first list of the {@link HistoryLog}. Rows have a fixed size, so the list only formats the rows scrolled into
+ * view and never walks the whole log; double-clicking a row hands its result to the calculator.
+ */
+class HistoryPanel extends JScrollPane {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int ROW_HEIGHT = 26;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private final HistoryLog log;
+    private final Model model = new Model();
+    private final JList<String> list = new JList<>(model);
+
+    HistoryPanel(HistoryLog log, Font font, DoubleConsumer onPick) {
+        this.log = log;
+        model.rows = rowCount();
+
+        list.setFont(font);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setFixedCellWidth(1);
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                int row = list.locationToIndex(event.getPoint());
+                if (event.getClickCount() == 2 && row >= 0)
+                    onPick.accept(log.getResult(indexOf(row)));
+            }
+        });
+        setViewportView(list);
+    }
+
+    JList<String> getList() {
+        return list;
+    }
+
+    /**
+     * Picks up records appended since the last call. Must run on the EDT.
+     */
+    void refresh() {
+        int rows = rowCount();
+        if (rows > model.rows)
+            model.added(rows - model.rows);
+    }
+
+    private int rowCount() {
+        return (int) Math.min(Integer.MAX_VALUE, log.size());
+    }
+
+    private long indexOf(int row) {
+        return (long) model.rows - 1 - row;
+    }
+
+    private final class Model extends AbstractListModel<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final HistoryEntry entry = new HistoryEntry();
+        private int rows;
+
+        void added(int count) {
+            rows += count;
+            // newest first: new records push the existing rows down
+            fireIntervalAdded(this, 0, count - 1);
+        }
+
+        @Override
+        public int getSize() {
+            return rows;
+        }
+
+        @Override
+        public String getElementAt(int row) {
+            log.read(indexOf(row), entry);
+            StringBuilder text = new StringBuilder(64);
+            text.append(TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTimestamp()))).append("   ");
+            switch (entry.getOperator()) {
+                case '√':
+                    DoubleFormatter.DISPLAY.format(entry.getFirst(), text.append('√'));
+                    break;
+                case 'l':
+                    DoubleFormatter.DISPLAY.format(entry.getFirst(), text.append("ln(")).append(')');
+                    break;
+                default:
+                    DoubleFormatter.DISPLAY.format(entry.getFirst(), text).append(' ').append(entry.getOperator());
+                    DoubleFormatter.DISPLAY.format(entry.getSecond(), text.append(' '));
+                    break;
+            }
+            return DoubleFormatter.DISPLAY.format(entry.getResult(), text.append(" = ")).toString();
+        }
+    }
+}
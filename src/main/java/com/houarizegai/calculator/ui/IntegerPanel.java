@@ -0,0 +1,197 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.engine.BigIntegerMath;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.math.BigInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Exact integer functions of up to three operands, computed with {@link BigIntegerMath} on a {@link SwingWorker}.
+ * The decimal digits are produced and grouped into lines on that worker too, so the window stays responsive for
+ * results of hundreds of thousands of digits; beyond {@value #MAX_SHOWN_DIGITS} digits the middle is elided, and
+ * the copy button always copies all of them. Pressing the button again while it runs interrupts the worker, which
+ * {@link BigIntegerMath} notices at its next multiplication.
+ */
+class IntegerPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] OPERATIONS = {"A!", "C(A, B)", "P(A, B)", "gcd(A, B)", "A^B mod M", "A^B"};
+    private static final int DIGITS_PER_LINE = 30;
+    private static final int MAX_SHOWN_DIGITS = 300_000;
+
+    private final JTextField operandA = new JTextField("1000");
+    private final JTextField operandB = new JTextField("500");
+    private final JTextField operandM = new JTextField("1000000007");
+    private final JComboBox<String> operationCombo = new JComboBox<>(OPERATIONS);
+    private final JButton computeButton = new JButton("=");
+    private final JButton copyButton = new JButton("Copy");
+    private final JTextArea result = new JTextArea();
+    private String digits;
+    private SwingWorker<String[], Void> worker;
+    private boolean running;
+
+    IntegerPanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 8));
+        JPanel operands = new JPanel(new GridLayout(3, 2, 8, 4));
+        addOperand(operands, "A", operandA, font, themedComponents);
+        addOperand(operands, "B", operandB, font, themedComponents);
+        addOperand(operands, "M", operandM, font, themedComponents);
+
+        JPanel controls = new JPanel(new BorderLayout(8, 0));
+        controls.add(themedComponents.register(ComponentRole.COMBO, operationCombo), BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new GridLayout(1, 2, 8, 0));
+        buttons.add(themedComponents.register(ComponentRole.EQUAL, computeButton));
+        buttons.add(themedComponents.register(ComponentRole.OPERATOR, copyButton));
+        controls.add(buttons, BorderLayout.EAST);
+
+        JPanel top = new JPanel(new BorderLayout(0, 8));
+        top.add(operands, BorderLayout.CENTER);
+        top.add(controls, BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        result.setFont(font);
+        result.setEditable(false);
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, result)), BorderLayout.CENTER);
+        for (JPanel panel : new JPanel[]{this, operands, controls, buttons, top})
+            themedComponents.register(ComponentRole.SCREEN, panel);
+
+        computeButton.setFocusable(false);
+        computeButton.addActionListener(event -> compute());
+        copyButton.setFocusable(false);
+        copyButton.setEnabled(false);
+        copyButton.addActionListener(event -> Toolkit.getDefaultToolkit().getSystemClipboard()
+                .setContents(new StringSelection(digits), null));
+    }
+
+    private static void addOperand(JPanel operands, String name, JTextField field, Font font,
+                                   ThemedComponents themedComponents) {
+        field.setFont(font);
+        operands.add(themedComponents.register(ComponentRole.SCREEN, new JLabel(name)));
+        operands.add(themedComponents.register(ComponentRole.SCREEN, field));
+    }
+
+    private void compute() {
+        if (running) {
+            worker.cancel(true);
+            computeButton.setText("Stopping...");
+            computeButton.setEnabled(false);
+            return;
+        }
+
+        String a = operandA.getText().trim();
+        String b = operandB.getText().trim();
+        String m = operandM.getText().trim();
+        int operation = operationCombo.getSelectedIndex();
+        running = true;
+        computeButton.setText("Stop");
+        copyButton.setEnabled(false);
+        result.setText("Computing...");
+        long start = System.nanoTime();
+        worker = new SwingWorker<String[], Void>() {
+            @Override
+            protected String[] doInBackground() {
+                try {
+                    BigInteger value = apply(operation, a, b, m);
+                    long computed = System.nanoTime();
+                    String text = BigIntegerMath.toDecimalString(value);
+                    long converted = System.nanoTime();
+                    String summary = String.format("%s%nComputed in %.0f ms, converted in %.0f ms%n%n",
+                            describeSize(text), (computed - start) / 1e6, (converted - computed) / 1e6);
+                    return new String[]{text, summary + group(text)};
+                } finally {
+                    SwingUtilities.invokeLater(IntegerPanel.this::finished);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    String[] texts = get();
+                    digits = texts[0];
+                    copyButton.setEnabled(true);
+                    result.setText(texts[1]);
+                } catch (CancellationException e) {
+                    result.setText("Stopped");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    result.setText(cause instanceof NumberFormatException ? "Operands must be integers"
+                            : cause instanceof OutOfMemoryError ? "The result does not fit in memory"
+                            : cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                result.setCaretPosition(0);
+            }
+        };
+        worker.execute();
+    }
+
+    private void finished() {
+        running = false;
+        computeButton.setText("=");
+        computeButton.setEnabled(true);
+    }
+
+    private static BigInteger apply(int operation, String a, String b, String m) {
+        switch (operation) {
+            case 0:
+                return BigIntegerMath.factorial(Integer.parseInt(a));
+            case 1:
+                return BigIntegerMath.binomial(Integer.parseInt(a), Integer.parseInt(b));
+            case 2:
+                return BigIntegerMath.permutations(Integer.parseInt(a), Integer.parseInt(b));
+            case 3:
+                return BigIntegerMath.gcd(new BigInteger(a), new BigInteger(b));
+            case 4:
+                return BigIntegerMath.powMod(new BigInteger(a), new BigInteger(b), new BigInteger(m));
+            default:
+                return BigIntegerMath.pow(new BigInteger(a), Integer.parseInt(b));
+        }
+    }
+
+    private static String describeSize(String text) {
+        int first = text.startsWith("-") ? 1 : 0;
+        int length = text.length() - first;
+        if (length <= 15)
+            return String.format("%,d digits", length);
+        return String.format("%,d digits, ≈ %s%c.%se%d", length, text.substring(0, first), text.charAt(first),
+                text.substring(first + 1, first + 10), length - 1);
+    }
+
+    /**
+     * The digits in lines of {@value #DIGITS_PER_LINE}, with the middle elided past {@value #MAX_SHOWN_DIGITS}.
+     */
+    private static String group(String text) {
+        int shown = Math.min(text.length(), MAX_SHOWN_DIGITS);
+        StringBuilder grouped = new StringBuilder(shown + shown / DIGITS_PER_LINE + 64);
+        if (shown == text.length()) {
+            appendLines(grouped, text, 0, shown);
+            return grouped.toString();
+        }
+        appendLines(grouped, text, 0, shown / 2);
+        grouped.append(String.format("... %,d digits ...%n", text.length() - shown));
+        appendLines(grouped, text, text.length() - shown / 2, text.length());
+        return grouped.toString();
+    }
+
+    private static void appendLines(StringBuilder grouped, String text, int from, int to) {
+        for (int i = from; i < to; i += DIGITS_PER_LINE)
+            grouped.append(text, i, Math.min(to, i + DIGITS_PER_LINE)).append('\n');
+    }
+}
@@ -0,0 +1,125 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.analysis.Integrator;
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.format.DoubleFormatter;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Definite integral of {@code f(x)} between two bounds, computed by an {@link Integrator} on a {@link SwingWorker}.
+ * The bounds and tolerances are expressions too, so {@code π / 2} is a valid bound.
+ */
+class IntegralPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final DoubleFormatter FORMAT = new DoubleFormatter(15, DoubleFormatter.Notation.AUTO);
+
+    private final JTextField functionField = new JTextField("4 / (1 + x ^ 2)");
+    private final JTextField fromField = new JTextField("0");
+    private final JTextField toField = new JTextField("1");
+    private final JTextField absoluteField = new JTextField("1e-10");
+    private final JTextField relativeField = new JTextField("1e-10");
+    private final JTextField budgetField = new JTextField(String.valueOf(Integrator.DEFAULT_MAX_EVALUATIONS));
+    private final JButton integrateButton = new JButton("∫");
+    private final JTextArea result = new JTextArea();
+
+    IntegralPanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 8));
+        JPanel fields = new JPanel(new GridLayout(6, 2, 8, 4));
+        addField(fields, "f(x)", functionField, font, themedComponents);
+        addField(fields, "From", fromField, font, themedComponents);
+        addField(fields, "To", toField, font, themedComponents);
+        addField(fields, "Absolute tol", absoluteField, font, themedComponents);
+        addField(fields, "Relative tol", relativeField, font, themedComponents);
+        addField(fields, "Max evaluations", budgetField, font, themedComponents);
+
+        JPanel top = new JPanel(new BorderLayout(0, 8));
+        top.add(fields, BorderLayout.CENTER);
+        top.add(themedComponents.register(ComponentRole.EQUAL, integrateButton), BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        result.setFont(font);
+        result.setEditable(false);
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, result)), BorderLayout.CENTER);
+        for (JPanel panel : new JPanel[]{this, fields, top})
+            themedComponents.register(ComponentRole.SCREEN, panel);
+
+        integrateButton.setFont(font);
+        integrateButton.setFocusable(false);
+        integrateButton.addActionListener(event -> integrate());
+        functionField.addActionListener(event -> integrate());
+    }
+
+    private static void addField(JPanel fields, String name, JTextField field, Font font,
+                                 ThemedComponents themedComponents) {
+        field.setFont(font);
+        fields.add(themedComponents.register(ComponentRole.SCREEN, new JLabel(name)));
+        fields.add(themedComponents.register(ComponentRole.SCREEN, field));
+    }
+
+    private void integrate() {
+        Integrator integrator;
+        double from;
+        double to;
+        try {
+            double absolute = Formula.parse(absoluteField.getText()).evaluate();
+            double relative = Formula.parse(relativeField.getText()).evaluate();
+            double budget = Formula.parse(budgetField.getText()).evaluate();
+            integrator = new Integrator(Formula.parse(functionField.getText()), absolute, relative,
+                    (long) Math.min(budget, Long.MAX_VALUE));
+            from = Formula.parse(fromField.getText()).evaluate();
+            to = Formula.parse(toField.getText()).evaluate();
+        } catch (ExpressionException e) {
+            result.setText(e.getMessage() + " at " + (e.getPosition() + 1));
+            return;
+        } catch (IllegalArgumentException e) {
+            result.setText(e.getMessage());
+            return;
+        }
+
+        integrateButton.setEnabled(false);
+        result.setText("Integrating...");
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return describe(integrator.integrate(from, to));
+            }
+
+            @Override
+            protected void done() {
+                integrateButton.setEnabled(true);
+                try {
+                    result.setText(get());
+                } catch (ExecutionException e) {
+                    result.setText(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                result.setCaretPosition(0);
+            }
+        }.execute();
+    }
+
+    private static String describe(Integrator.Result integral) {
+        StringBuilder text = new StringBuilder(256);
+        FORMAT.format(integral.getValue(), text.append("∫ = ")).append('\n');
+        FORMAT.format(integral.getErrorEstimate(), text.append("± ")).append('\n');
+        if (!integral.isConverged())
+            text.append("Not converged: tolerance not reached\n");
+        return text.append(String.format("%n%d intervals%n%,d evaluations in %.2f ms",
+                integral.getIntervals(), integral.getEvaluations(), integral.getNanos() / 1e6)).toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.matrix.LuDecomposition;
+import com.houarizegai.calculator.matrix.Matrix;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Matrix operations on two operands typed as rows of numbers, or given as {@code identity n} or
+ * {@code random n [m]} for large ones (see {@link Matrix#parse}). Operations run on a {@link SwingWorker}, with their
+ * progress in a bar; pressing the button again stops them, and it is usable again once the worker's fork/join tasks
+ * have all given up. Large results are shown with the middle rows and columns elided.
+ */
+class MatrixPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] OPERATIONS = {"A + B", "A - B", "A × B", "Aᵀ", "det A", "A⁻¹", "Solve A·X = B"};
+    private static final DoubleFormatter FORMAT = new DoubleFormatter(6, DoubleFormatter.Notation.AUTO);
+    private static final int SHOWN_ROWS = 12;
+    private static final int SHOWN_COLUMNS = 5;
+
+    private final JTextArea operandA = new JTextArea("1 2\n3 4");
+    private final JTextArea operandB = new JTextArea("5 6\n7 8");
+    private final JComboBox<String> operationCombo = new JComboBox<>(OPERATIONS);
+    private final JButton computeButton = new JButton("=");
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private final JTextArea result = new JTextArea();
+    private SwingWorker<String, Void> worker;
+    private boolean running;
+
+    MatrixPanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 8));
+        JPanel operands = new JPanel(new GridLayout(1, 2, 8, 0));
+        operands.add(operandPane("A", operandA, font, themedComponents));
+        operands.add(operandPane("B", operandB, font, themedComponents));
+
+        JPanel controls = new JPanel(new BorderLayout(8, 0));
+        controls.add(themedComponents.register(ComponentRole.COMBO, operationCombo), BorderLayout.CENTER);
+        controls.add(themedComponents.register(ComponentRole.EQUAL, computeButton), BorderLayout.EAST);
+        controls.add(progressBar, BorderLayout.SOUTH);
+
+        JPanel top = new JPanel(new BorderLayout(0, 8));
+        top.add(operands, BorderLayout.CENTER);
+        top.add(controls, BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        result.setFont(font);
+        result.setEditable(false);
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, result)), BorderLayout.CENTER);
+        for (JPanel panel : new JPanel[]{this, operands, controls, top})
+            themedComponents.register(ComponentRole.SCREEN, panel);
+
+        computeButton.setFocusable(false);
+        computeButton.addActionListener(event -> compute());
+    }
+
+    private static JScrollPane operandPane(String name, JTextArea area, Font font, ThemedComponents themedComponents) {
+        area.setFont(font);
+        area.setRows(5);
+        JScrollPane pane = new JScrollPane(themedComponents.register(ComponentRole.SCREEN, area));
+        pane.setBorder(BorderFactory.createTitledBorder(name));
+        return pane;
+    }
+
+    private void compute() {
+        if (running) {
+            // the tasks stop at their next progress report: wait for them before allowing another computation
+            worker.cancel(true);
+            computeButton.setText("Stopping...");
+            computeButton.setEnabled(false);
+            return;
+        }
+
+        String a = operandA.getText();
+        String b = operandB.getText();
+        int operation = operationCombo.getSelectedIndex();
+        running = true;
+        computeButton.setText("Stop");
+        progressBar.setValue(0);
+        result.setText("Computing...");
+        worker = new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                long start = System.nanoTime();
+                DoubleConsumer progress = fraction -> {
+                    if (isCancelled())
+                        throw new CancellationException();
+                    int percent = (int) Math.min(100, fraction * 100);
+                    if (percent > getProgress())
+                        setProgress(percent);
+                };
+                try {
+                    String text = apply(operation, Matrix.parse(a), b, progress);
+                    return text + String.format("%n%nComputed in %.0f ms", (System.nanoTime() - start) / 1e6);
+                } finally {
+                    SwingUtilities.invokeLater(MatrixPanel.this::finished);
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    result.setText(get());
+                    progressBar.setValue(100);
+                } catch (CancellationException e) {
+                    result.setText("Stopped");
+                } catch (ExecutionException e) {
+                    result.setText(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                result.setCaretPosition(0);
+            }
+        };
+        worker.addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName()))
+                progressBar.setValue((Integer) event.getNewValue());
+        });
+        worker.execute();
+    }
+
+    private void finished() {
+        running = false;
+        computeButton.setText("=");
+        computeButton.setEnabled(true);
+    }
+
+    private static String apply(int operation, Matrix a, String b, DoubleConsumer progress) {
+        switch (operation) {
+            case 0:
+                return describe(a.add(Matrix.parse(b)));
+            case 1:
+                return describe(a.subtract(Matrix.parse(b)));
+            case 2:
+                return describe(a.multiply(Matrix.parse(b), progress));
+            case 3:
+                return describe(a.transpose());
+            case 4:
+                return "det A = " + FORMAT.format(LuDecomposition.of(a, progress).determinant());
+            case 5:
+                return describe(a.inverse(progress));
+            default:
+                return describe(a.solve(Matrix.parse(b), progress));
+        }
+    }
+
+    private static String describe(Matrix matrix) {
+        return matrix.shape() + "\n" + matrix.format(FORMAT, SHOWN_ROWS, SHOWN_COLUMNS);
+    }
+}
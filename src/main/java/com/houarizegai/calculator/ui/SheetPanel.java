@@ -0,0 +1,158 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.sheet.Sheet;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.AbstractTableModel;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Named variables and formulas over them, entered as {@code name = expression}. Only the formulas downstream of an
+ * edit are recomputed; double-clicking a row hands its value to the calculator.
+ */
+class SheetPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"Name", "Formula", "Value"};
+
+    private final Sheet sheet = new Sheet();
+    private final Model model = new Model();
+    private final JTextField input = new JTextField("rate = 0.07");
+    private final JLabel status = new JLabel("Enter name = expression, e.g. total = price * (1 + rate)");
+    private final JTable table = new JTable(model);
+
+    SheetPanel(Font font, ThemedComponents themedComponents, DoubleConsumer onPick) {
+        super(new BorderLayout(0, 8));
+        JPanel editor = new JPanel(new BorderLayout(5, 0));
+        JButton setButton = new JButton("Set");
+        JButton deleteButton = new JButton("Delete");
+        setButton.setFocusable(false);
+        deleteButton.setFocusable(false);
+        input.setFont(font);
+        JPanel buttons = new JPanel(new BorderLayout(5, 0));
+        buttons.add(themedComponents.register(ComponentRole.EQUAL, setButton), BorderLayout.WEST);
+        buttons.add(themedComponents.register(ComponentRole.OPERATOR, deleteButton), BorderLayout.EAST);
+        editor.add(themedComponents.register(ComponentRole.SCREEN, input), BorderLayout.CENTER);
+        editor.add(themedComponents.register(ComponentRole.SCREEN, buttons), BorderLayout.EAST);
+        add(themedComponents.register(ComponentRole.SCREEN, editor), BorderLayout.NORTH);
+
+        table.setFont(font);
+        table.setRowHeight(font.getSize() + 8);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(event -> {
+            int row = table.getSelectedRow();
+            if (!event.getValueIsAdjusting() && row >= 0)
+                input.setText(model.name(row) + " = " + model.getValueAt(row, 1));
+        });
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent event) {
+                int row = table.rowAtPoint(event.getPoint());
+                if (event.getClickCount() == 2 && row >= 0)
+                    onPick.accept(sheet.getValue(model.name(row)));
+            }
+        });
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, table)), BorderLayout.CENTER);
+        add(themedComponents.register(ComponentRole.SCREEN, status), BorderLayout.SOUTH);
+        themedComponents.register(ComponentRole.SCREEN, this);
+
+        setButton.addActionListener(event -> apply());
+        input.addActionListener(event -> apply());
+        deleteButton.addActionListener(event -> delete());
+    }
+
+    private void apply() {
+        String text = input.getText();
+        int equals = text.indexOf('=');
+        if (equals < 0) {
+            status.setText("Expected name = expression");
+            return;
+        }
+        String name = text.substring(0, equals).trim();
+        long start = System.nanoTime();
+        try {
+            int recomputed = sheet.define(name, text.substring(equals + 1).trim());
+            report(recomputed, start);
+        } catch (ExpressionException e) {
+            status.setText(e.getMessage() + " at " + (e.getPosition() + 1));
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+        }
+    }
+
+    private void delete() {
+        int row = table.getSelectedRow();
+        if (row < 0)
+            return;
+        long start = System.nanoTime();
+        report(sheet.remove(model.name(row)), start);
+    }
+
+    private void report(int recomputed, long start) {
+        model.refresh();
+        status.setText(String.format("%,d of %,d recomputed in %.2f ms", recomputed, model.getRowCount(),
+                (System.nanoTime() - start) / 1e6));
+    }
+
+    private final class Model extends AbstractTableModel {
+
+        private static final long serialVersionUID = 1L;
+
+        private List<String> names = Collections.emptyList();
+
+        void refresh() {
+            names = sheet.getNames();
+            fireTableDataChanged();
+        }
+
+        String name(int row) {
+            return names.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return names.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            String name = names.get(row);
+            double value = sheet.getValue(name);
+            switch (column) {
+                case 0:
+                    return name;
+                case 1: {
+                    String expression = sheet.getExpression(name);
+                    return expression != null ? expression : DoubleFormatter.DISPLAY.format(value);
+                }
+                default:
+                    return DoubleFormatter.DISPLAY.format(value);
+            }
+        }
+    }
+}
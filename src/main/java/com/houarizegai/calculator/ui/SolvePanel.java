@@ -0,0 +1,122 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.analysis.RootFinder;
+import com.houarizegai.calculator.engine.ExpressionException;
+import com.houarizegai.calculator.engine.Formula;
+import com.houarizegai.calculator.format.DoubleFormatter;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Roots of {@code f(x) = 0} between two bounds, found by a {@link RootFinder} on a {@link SwingWorker}. The bounds
+ * and the tolerance are expressions too, so {@code -2 * √2} is a valid bound.
+ */
+class SolvePanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final DoubleFormatter FORMAT = new DoubleFormatter(15, DoubleFormatter.Notation.AUTO);
+    private static final int MAX_SHOWN_ROOTS = 1000;
+
+    private final JTextField functionField = new JTextField("x ^ 3 - 2 * x - 5");
+    private final JTextField fromField = new JTextField("-10");
+    private final JTextField toField = new JTextField("10");
+    private final JTextField toleranceField = new JTextField("1e-12");
+    private final JButton solveButton = new JButton("Solve");
+    private final JTextArea result = new JTextArea();
+
+    SolvePanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 8));
+        JPanel fields = new JPanel(new GridLayout(4, 2, 8, 4));
+        addField(fields, "f(x) = 0", functionField, font, themedComponents);
+        addField(fields, "From", fromField, font, themedComponents);
+        addField(fields, "To", toField, font, themedComponents);
+        addField(fields, "Tolerance", toleranceField, font, themedComponents);
+
+        JPanel top = new JPanel(new BorderLayout(0, 8));
+        top.add(fields, BorderLayout.CENTER);
+        top.add(themedComponents.register(ComponentRole.EQUAL, solveButton), BorderLayout.SOUTH);
+        add(top, BorderLayout.NORTH);
+
+        result.setFont(font);
+        result.setEditable(false);
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, result)), BorderLayout.CENTER);
+        for (JPanel panel : new JPanel[]{this, fields, top})
+            themedComponents.register(ComponentRole.SCREEN, panel);
+
+        solveButton.setFocusable(false);
+        solveButton.addActionListener(event -> solve());
+        functionField.addActionListener(event -> solve());
+    }
+
+    private static void addField(JPanel fields, String name, JTextField field, Font font,
+                                 ThemedComponents themedComponents) {
+        field.setFont(font);
+        fields.add(themedComponents.register(ComponentRole.SCREEN, new JLabel(name)));
+        fields.add(themedComponents.register(ComponentRole.SCREEN, field));
+    }
+
+    private void solve() {
+        RootFinder finder;
+        double from;
+        double to;
+        try {
+            double tolerance = Formula.parse(toleranceField.getText()).evaluate();
+            finder = new RootFinder(Formula.parse(functionField.getText()), RootFinder.DEFAULT_SUBINTERVALS,
+                    tolerance);
+            from = Formula.parse(fromField.getText()).evaluate();
+            to = Formula.parse(toField.getText()).evaluate();
+        } catch (ExpressionException e) {
+            result.setText(e.getMessage() + " at " + (e.getPosition() + 1));
+            return;
+        } catch (IllegalArgumentException e) {
+            result.setText(e.getMessage());
+            return;
+        }
+
+        solveButton.setEnabled(false);
+        result.setText("Solving...");
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return describe(finder.solve(from, to));
+            }
+
+            @Override
+            protected void done() {
+                solveButton.setEnabled(true);
+                try {
+                    result.setText(get());
+                } catch (ExecutionException e) {
+                    result.setText(e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                result.setCaretPosition(0);
+            }
+        }.execute();
+    }
+
+    private static String describe(RootFinder.Result solution) {
+        StringBuilder text = new StringBuilder(256);
+        if (solution.getRootCount() == 0)
+            text.append("No sign change found\n");
+        for (int i = 0; i < Math.min(solution.getRootCount(), MAX_SHOWN_ROOTS); i++)
+            FORMAT.format(solution.getRoot(i), text.append("x = ")).append('\n');
+        if (solution.getRootCount() > MAX_SHOWN_ROOTS)
+            text.append("... ").append(solution.getRootCount() - MAX_SHOWN_ROOTS).append(" more\n");
+        return text.append(String.format("%n%d roots, %d brackets, %d iterations%n%,d evaluations in %.2f ms",
+                solution.getRootCount(), solution.getBracketCount(), solution.getIterations(),
+                solution.getEvaluations(), solution.getNanos() / 1e6)).toString();
+    }
+}
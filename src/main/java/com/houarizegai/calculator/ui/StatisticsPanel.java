@@ -0,0 +1,119 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import com.houarizegai.calculator.stats.ColumnScanner;
+import com.houarizegai.calculator.stats.RunningStatistics;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.JTextArea;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Statistics of one numeric column of a CSV or binary file. The file is summarized by a {@link ColumnScanner} on a
+ * background thread, so files far larger than the heap can be opened without freezing the window.
+ */
+class StatisticsPanel extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] DELIMITER_NAMES = {",", ";", "Tab"};
+    private static final char[] DELIMITERS = {',', ';', '\t'};
+    private static final DoubleFormatter FORMAT = new DoubleFormatter(12, DoubleFormatter.Notation.AUTO);
+
+    private final JButton openButton = new JButton("Open...");
+    private final JSpinner columnSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 4096, 1));
+    private final JComboBox<String> delimiterCombo = new JComboBox<>(DELIMITER_NAMES);
+    private final JTextArea summary = new JTextArea();
+    private JFileChooser chooser;
+
+    StatisticsPanel(Font font, ThemedComponents themedComponents) {
+        super(new BorderLayout(0, 10));
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        toolbar.add(themedComponents.register(ComponentRole.OPERATOR, openButton));
+        toolbar.add(themedComponents.register(ComponentRole.SCREEN, new JLabel("Column")));
+        toolbar.add(columnSpinner);
+        toolbar.add(themedComponents.register(ComponentRole.COMBO, delimiterCombo));
+        add(themedComponents.register(ComponentRole.SCREEN, toolbar), BorderLayout.NORTH);
+
+        summary.setFont(font);
+        summary.setEditable(false);
+        summary.setText("Open a CSV file, or a .f64 file of raw doubles.");
+        add(new JScrollPane(themedComponents.register(ComponentRole.SCREEN, summary)), BorderLayout.CENTER);
+        themedComponents.register(ComponentRole.SCREEN, this);
+
+        openButton.setFocusable(false);
+        openButton.addActionListener(event -> chooseFile());
+    }
+
+    private void chooseFile() {
+        if (chooser == null)
+            chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+            load(chooser.getSelectedFile().toPath());
+    }
+
+    private void load(Path file) {
+        int column = (Integer) columnSpinner.getValue() - 1;
+        char delimiter = DELIMITERS[delimiterCombo.getSelectedIndex()];
+        openButton.setEnabled(false);
+        summary.setText("Reading " + file.getFileName() + "...");
+        long start = System.nanoTime();
+        new SwingWorker<ColumnScanner.Result, Void>() {
+            @Override
+            protected ColumnScanner.Result doInBackground() throws Exception {
+                return new ColumnScanner(column, delimiter).scan(file);
+            }
+
+            @Override
+            protected void done() {
+                openButton.setEnabled(true);
+                try {
+                    summary.setText(describe(file, get(), System.nanoTime() - start));
+                } catch (ExecutionException e) {
+                    summary.setText("Cannot read " + file.getFileName() + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                summary.setCaretPosition(0);
+            }
+        }.execute();
+    }
+
+    private static String describe(Path file, ColumnScanner.Result result, long nanos) {
+        RunningStatistics statistics = result.getStatistics();
+        StringBuilder text = new StringBuilder(512).append(file.getFileName()).append('\n');
+        line(text, "Count", statistics.getCount());
+        line(text, "Skipped", result.getSkipped());
+        line(text, "Sum", statistics.getSum());
+        line(text, "Mean", statistics.getMean());
+        line(text, "Std dev", statistics.getStandardDeviation());
+        line(text, "Variance", statistics.getVariance());
+        line(text, "Min", statistics.getMin());
+        line(text, "Q1 ≈", statistics.getQuantile(0.25));
+        line(text, "Median ≈", statistics.getMedian());
+        line(text, "Q3 ≈", statistics.getQuantile(0.75));
+        line(text, "P99 ≈", statistics.getQuantile(0.99));
+        line(text, "Max", statistics.getMax());
+        return text.append(String.format("%nRead in %.0f ms", nanos / 1e6)).toString();
+    }
+
+    private static void line(StringBuilder text, String name, long value) {
+        text.append(String.format("%-10s", name)).append(value).append('\n');
+    }
+
+    private static void line(StringBuilder text, String name, double value) {
+        FORMAT.format(value, text.append(String.format("%-10s", name))).append('\n');
+    }
+}
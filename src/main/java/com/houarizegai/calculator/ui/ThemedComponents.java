@@ -0,0 +1,63 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.theme.ThemePalette;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Container;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Components registered by {@link ComponentRole}, so a {@link ThemePalette} can be applied in one pass instead of
+ * one hand-written line per component and color.
+ */
+class ThemedComponents {
+
+    private final Map<ComponentRole, List<JComponent>> components = new EnumMap<>(ComponentRole.class);
+
+    <T extends JComponent> T register(ComponentRole role, T component) {
+        components.computeIfAbsent(role, key -> new ArrayList<>()).add(component);
+        return component;
+    }
+
+    /**
+     * Recolors every registered component and the container, then repaints the container once. Components whose
+     * colors do not change are left untouched and so do not schedule a repaint of their own. Colors a partial theme
+     * leaves out ({@code null}) are skipped, so those components keep the color they have.
+     */
+    void apply(ThemePalette palette, Container root) {
+        if (palette.getApplicationBackground() != null)
+            root.setBackground(palette.getApplicationBackground());
+        for (Map.Entry<ComponentRole, List<JComponent>> entry : components.entrySet()) {
+            Color foreground = foreground(entry.getKey(), palette);
+            Color background = background(entry.getKey(), palette);
+            for (JComponent component : entry.getValue()) {
+                if (foreground != null && !foreground.equals(component.getForeground()))
+                    component.setForeground(foreground);
+                if (background != null && !background.equals(component.getBackground()))
+                    component.setBackground(background);
+            }
+        }
+        root.repaint();
+    }
+
+    private static Color foreground(ComponentRole role, ThemePalette palette) {
+        return role == ComponentRole.EQUAL ? palette.getBtnEqualTextColor() : palette.getTextColor();
+    }
+
+    private static Color background(ComponentRole role, ThemePalette palette) {
+        switch (role) {
+            case NUMBER:
+                return palette.getNumbersBackground();
+            case OPERATOR:
+                return palette.getOperatorBackground();
+            case EQUAL:
+                return palette.getBtnEqualBackground();
+            default:
+                return palette.getApplicationBackground();
+        }
+    }
+}
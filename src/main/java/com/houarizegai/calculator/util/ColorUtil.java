@@ -11,10 +11,7 @@ public class ColorUtil {
 
     public static Color hex2Color(String colorHex) {
         return Optional.ofNullable(colorHex)
-                .map(hex -> new Color(
-                        Integer.valueOf(colorHex.substring(0, 2), 16),
-                        Integer.valueOf(colorHex.substring(2, 4), 16),
-                        Integer.valueOf(colorHex.substring(4, 6), 16)))
+                .map(hex -> new Color(Integer.parseInt(hex, 0, 6, 16)))
                 .orElse(null);
     }
 }
@@ -0,0 +1,114 @@
+package com.houarizegai.calculator.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits an index range into pieces of at least {@code grain} indexes processed by the common {@link ForkJoinPool}.
+ * Exceptions thrown by a piece are rethrown to the caller.
+ */
+public final class Ranges {
+
+    @FunctionalInterface
+    public interface RangeKernel {
+        void apply(int from, int to);
+    }
+
+    @FunctionalInterface
+    public interface RangeFunction<T> {
+        T apply(int from, int to);
+    }
+
+    private Ranges() {
+        throw new AssertionError("Constructor is not allowed");
+    }
+
+    /**
+     * Runs {@code kernel} over {@code [from, to)}, on the calling thread alone when the range is at most one grain or
+     * there is only one core.
+     */
+    public static void forEach(int from, int to, int grain, RangeKernel kernel) {
+        if (to - from <= grain || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            kernel.apply(from, to);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeTask(kernel, from, to, grain));
+    }
+
+    /**
+     * Applies {@code function} to the pieces of {@code [from, to)} and combines their results in index order, on the
+     * calling thread alone when the range is at most one grain or there is only one core.
+     */
+    public static <T> T reduce(int from, int to, int grain, RangeFunction<T> function, BinaryOperator<T> combiner) {
+        if (to - from <= grain || ForkJoinPool.getCommonPoolParallelism() < 2)
+            return function.apply(from, to);
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(function, combiner, from, to, grain));
+    }
+
+    /**
+     * A grain that gives each core a few pieces of {@code [0, length)} but none smaller than {@code minimum}.
+     */
+    public static int grain(int length, int minimum) {
+        int slices = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return Math.max(minimum, (length + slices - 1) / slices);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeKernel kernel;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(RangeKernel kernel, int from, int to, int grain) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                kernel.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(kernel, from, middle, grain), new RangeTask(kernel, middle, to, grain));
+        }
+    }
+
+    private static final class ReduceTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeFunction<T> function;
+        private final BinaryOperator<T> combiner;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ReduceTask(RangeFunction<T> function, BinaryOperator<T> combiner, int from, int to, int grain) {
+            this.function = function;
+            this.combiner = combiner;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= grain)
+                return function.apply(from, to);
+            int middle = (from + to) >>> 1;
+            ReduceTask<T> right = new ReduceTask<>(function, combiner, middle, to, grain);
+            right.fork();
+            T left = new ReduceTask<>(function, combiner, from, middle, grain).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+}
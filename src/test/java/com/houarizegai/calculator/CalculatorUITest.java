@@ -1,19 +1,26 @@
 package com.houarizegai.calculator;
 
+import com.houarizegai.calculator.session.CalculatorSession;
 import com.houarizegai.calculator.ui.CalculatorUI;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.nio.file.Path;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class CalculatorUITest {
 
+    @TempDir
+    Path directory;
+
     private CalculatorUI calculatorUI;
 
     @BeforeEach
     void setUp() {
-        calculatorUI = new CalculatorUI();
+        calculatorUI = new CalculatorUI(new CalculatorSession(), null, directory.resolve("history.log"));
     }
 
     @ParameterizedTest
@@ -0,0 +1,85 @@
+package com.houarizegai.calculator.analysis;
+
+import com.houarizegai.calculator.engine.Formula;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntegratorTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "x ^ 2; 0; 1; 0.3333333333333333",
+            "ln(x); 1; 2; 0.3862943611198906",
+            "sqrt(x); 0; 1; 0.6666666666666666",
+            "ln(x); 0; 1; -1",
+            "4 / (1 + x * x); 0; 1; 3.141592653589793",
+            "sqrt(1 - x * x); -1; 1; 1.5707963267948966",
+            "1 / sqrt(x); 0; 4; 4",
+    })
+    void testIntegralMatchesClosedForm(String function, double from, double to, double expected) {
+        Integrator.Result result = new Integrator(Formula.parse(function)).integrate(from, to);
+
+        assertTrue(result.isConverged());
+        assertEquals(expected, result.getValue(), 1e-9);
+        assertTrue(result.getErrorEstimate() <= 1e-9, "error " + result.getErrorEstimate());
+        // every split evaluates two new rules
+        assertEquals(Integrator.RULE_POINTS * (2L * result.getIntervals() - 1), result.getEvaluations());
+    }
+
+    @Test
+    void testPolynomialNeedsOneRule() {
+        Integrator.Result result = new Integrator(Formula.parse("x ^ 5 - 3 * x ^ 2 + 1")).integrate(-1, 2);
+
+        assertEquals(1, result.getIntervals());
+        assertEquals(Integrator.RULE_POINTS, result.getEvaluations());
+        assertEquals(64.0 / 6 - 1.0 / 6 - 9 + 3, result.getValue(), 1e-13);
+    }
+
+    @Test
+    void testReversedBoundsNegateTheIntegral() {
+        Integrator integrator = new Integrator(Formula.parse("sqrt(x) * ln(x + 1)"));
+
+        assertEquals(-integrator.integrate(0.5, 3).getValue(), integrator.integrate(3, 0.5).getValue());
+        assertEquals(0, integrator.integrate(2, 2).getValue());
+    }
+
+    @Test
+    void testBudgetStopsRefinement() {
+        Formula function = Formula.parse("1 / sqrt(x)");
+        Integrator.Result result = new Integrator(function, 1e-12, 0, 100).integrate(0, 4);
+
+        assertFalse(result.isConverged());
+        assertTrue(result.getEvaluations() <= 100);
+        assertEquals(4, result.getValue(), 0.5);
+    }
+
+    @Test
+    void testRelativeToleranceScalesWithTheIntegral() {
+        Formula function = Formula.parse("1e6 * sqrt(x)");
+        Integrator.Result absolute = new Integrator(function, 1e-6, 0, Integrator.DEFAULT_MAX_EVALUATIONS)
+                .integrate(0, 1);
+        Integrator.Result relative = new Integrator(function, 0, 1e-6, Integrator.DEFAULT_MAX_EVALUATIONS)
+                .integrate(0, 1);
+
+        assertTrue(relative.getEvaluations() < absolute.getEvaluations());
+        assertEquals(2e6 / 3, relative.getValue(), 2e6 / 3 * 1e-6);
+    }
+
+    @Test
+    void testInvalidArgumentsAreRejected() {
+        Formula function = Formula.parse("x");
+
+        assertThrows(IllegalArgumentException.class, () -> new Integrator(Formula.parse("x * y")));
+        assertThrows(IllegalArgumentException.class, () -> new Integrator(function, 0, 0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new Integrator(function, -1, 1e-9, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new Integrator(function, 1e-9, 1e-9, 14));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Integrator(function).integrate(0, Double.POSITIVE_INFINITY));
+    }
+}
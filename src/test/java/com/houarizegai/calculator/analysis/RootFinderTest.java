@@ -0,0 +1,83 @@
+package com.houarizegai.calculator.analysis;
+
+import com.houarizegai.calculator.engine.Formula;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RootFinderTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "x ^ 2 - 2; 0; 5; 1.4142135623730951",
+            "ln(x) - 1; 1; 5; 2.718281828459045",
+            "x ^ 3 - 2 * x - 5; -10; 10; 2.0945514815423265",
+            "sqrt(x) - 0.3; 0; 1; 0.09",
+    })
+    void testSingleRoot(String function, double from, double to, double expected) {
+        RootFinder.Result result = new RootFinder(Formula.parse(function)).solve(from, to);
+
+        assertEquals(1, result.getRootCount());
+        assertEquals(expected, result.getRoot(0), 1e-12);
+        assertEquals(1, result.getBracketCount());
+        assertTrue(result.getIterations() > 0 && result.getIterations() < 20, "iterations " + result.getIterations());
+    }
+
+    @Test
+    void testAllRootsAreFoundInOrder() {
+        Formula function = Formula.parse("(x ^ 2 - 1) * (x ^ 2 - 4) * (x ^ 2 - 9) * (x - 0.25)");
+        RootFinder.Result result = new RootFinder(function).solve(-3.3, 3.7);
+
+        assertArrayEquals(new double[]{-3, -2, -1, 0.25, 1, 2, 3}, result.getRoots(), 1e-12);
+        assertTrue(result.getEvaluations() > RootFinder.DEFAULT_SUBINTERVALS + result.getIterations());
+        assertTrue(result.getNanos() > 0);
+    }
+
+    @Test
+    void testToleranceBoundsTheError() {
+        Formula function = Formula.parse("x ^ 2 - 2");
+        RootFinder.Result coarse = new RootFinder(function, 8, 1e-3).solve(0, 5);
+        RootFinder.Result fine = new RootFinder(function, 8, 1e-14).solve(0, 5);
+
+        assertEquals(Math.sqrt(2), coarse.getRoot(0), 1e-3);
+        assertEquals(Math.sqrt(2), fine.getRoot(0), 1e-14);
+        assertTrue(coarse.getIterations() < fine.getIterations());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "1 / (x - 0.3); -1; 2",
+            // the pole is a grid point, where f is infinite
+            "1 / x; -1; 1",
+    })
+    void testPolesAreNotRoots(String function, double from, double to) {
+        RootFinder.Result result = new RootFinder(Formula.parse(function)).solve(from, to);
+
+        assertEquals(1, result.getBracketCount());
+        assertEquals(0, result.getRootCount());
+    }
+
+    @Test
+    void testRootOnGridPointIsReportedOnce() {
+        // a double root has no sign change, it is found here only because 0 is a grid point
+        RootFinder.Result result = new RootFinder(Formula.parse("x * x * (x - 0.7)")).solve(-1, 1);
+
+        assertArrayEquals(new double[]{0, 0.7}, result.getRoots(), 1e-12);
+        assertEquals(1, result.getBracketCount());
+    }
+
+    @Test
+    void testInvalidArgumentsAreRejected() {
+        Formula function = Formula.parse("x - 1");
+
+        assertThrows(IllegalArgumentException.class, () -> new RootFinder(Formula.parse("x - y")));
+        assertThrows(IllegalArgumentException.class, () -> new RootFinder(function, 0, 1e-9));
+        assertThrows(IllegalArgumentException.class, () -> new RootFinder(function, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RootFinder(function).solve(1, 1));
+    }
+}
@@ -0,0 +1,53 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchCalculatorTest {
+
+    private final int defaultThreshold = BatchCalculator.getParallelThreshold();
+
+    @AfterEach
+    void tearDown() {
+        BatchCalculator.setParallelThreshold(defaultThreshold);
+    }
+
+    @ParameterizedTest
+    @ValueSource(chars = {'+', '-', '*', '/', '%', '^', '='})
+    void testBatchMatchesScalarCalculation(char operator) {
+        BatchCalculator.setParallelThreshold(1_000);
+        double[] a = new double[100_003];
+        double[] b = new double[a.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i * 0.5 - 1_000;
+            b[i] = (i % 7) + 1;
+        }
+        double[] out = new double[a.length];
+
+        BatchCalculator.calculate(a, b, operator, out);
+
+        for (int i = 0; i < a.length; i++)
+            assertEquals(Arithmetic.calculate(a[i], b[i], operator), out[i]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 10, 70_000})
+    void testUnaryBatch(int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++)
+            values[i] = i + 0.25;
+        double[] roots = new double[length];
+        double[] logs = new double[length];
+
+        BatchCalculator.sqrt(values, roots);
+        BatchCalculator.ln(values, logs);
+
+        for (int i = 0; i < length; i++) {
+            assertEquals(Arithmetic.sqrt(values[i]), roots[i]);
+            assertEquals(Arithmetic.ln(values[i]), logs[i]);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigInteger;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BigIntegerMathTest {
+
+    @Test
+    void testFactorialMatchesRunningProduct() {
+        BigInteger expected = BigInteger.ONE;
+        for (int n = 0; n <= 3000; n++) {
+            if (n > 0)
+                expected = expected.multiply(BigInteger.valueOf(n));
+            assertEquals(expected, BigIntegerMath.factorial(n), "n = " + n);
+        }
+    }
+
+    @Test
+    void testLargeFactorialHasKnownDigits() {
+        String digits = BigIntegerMath.toDecimalString(BigIntegerMath.factorial(100_000));
+
+        assertEquals(456_574, digits.length());
+        assertEquals("28242294079603478742", digits.substring(0, 20));
+        assertEquals(24_999, digits.length() - digits.replaceAll("0+$", "").length());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0",
+            "10, 3",
+            "100, 50",
+            "1000, 1",
+            "1000, 999",
+            "1000, 200",
+            "4000, 1999",
+            "100000, 30",
+    })
+    void testBinomialAndPermutationsMatchFactorials(int n, int k) {
+        BigInteger permutations = BigIntegerMath.factorial(n).divide(BigIntegerMath.factorial(n - k));
+
+        assertEquals(permutations, BigIntegerMath.permutations(n, k));
+        assertEquals(permutations.divide(BigIntegerMath.factorial(k)), BigIntegerMath.binomial(n, k));
+    }
+
+    @Test
+    void testPermutationsOfTheLargestIntDoNotOverflow() {
+        assertEquals(BigInteger.ONE, BigIntegerMath.permutations(Integer.MAX_VALUE, 0));
+        assertEquals(BigInteger.valueOf(Integer.MAX_VALUE), BigIntegerMath.permutations(Integer.MAX_VALUE, 1));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0",
+            "0, 5",
+            "7, 0",
+            "-12, 7",
+            "96, 33",
+            "123456789, 40",
+    })
+    void testPowMatchesBigInteger(long base, int exponent) {
+        BigInteger value = BigInteger.valueOf(base);
+
+        assertEquals(value.pow(exponent), BigIntegerMath.pow(value, exponent));
+    }
+
+    @Test
+    void testInterruptAbandonsTheComputation() {
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> BigIntegerMath.factorial(100_000));
+            assertThrows(CancellationException.class, () -> BigIntegerMath.pow(BigInteger.valueOf(3), 1 << 20));
+            assertThrows(CancellationException.class,
+                    () -> BigIntegerMath.toDecimalString(BigInteger.ONE.shiftLeft(1 << 20)));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void testInvalidArgumentsAreRejected() {
+        assertThrows(ArithmeticException.class, () -> BigIntegerMath.factorial(-1));
+        assertThrows(ArithmeticException.class, () -> BigIntegerMath.factorial(BigIntegerMath.MAX_FACTORIAL + 1));
+        assertThrows(ArithmeticException.class, () -> BigIntegerMath.binomial(5, 6));
+        assertThrows(ArithmeticException.class, () -> BigIntegerMath.permutations(5, -1));
+        assertThrows(ArithmeticException.class,
+                () -> BigIntegerMath.powMod(BigInteger.TWO, BigInteger.TEN, BigInteger.ZERO));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "2, 10, 1000, 24",
+            "3, 200, 1000000007, 136318165",
+            "3, -1, 7, 5",
+    })
+    void testPowMod(long base, long exponent, long modulus, long expected) {
+        assertEquals(BigInteger.valueOf(expected), BigIntegerMath.powMod(BigInteger.valueOf(base),
+                BigInteger.valueOf(exponent), BigInteger.valueOf(modulus)));
+    }
+
+    @Test
+    void testGcd() {
+        BigInteger a = BigIntegerMath.factorial(200);
+        BigInteger b = BigInteger.valueOf(3).pow(150);
+
+        assertEquals(BigInteger.valueOf(3).pow(97), BigIntegerMath.gcd(a, b));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"7, 1", "7, 40000", "10, 100000", "2, 300007"})
+    void testDecimalStringMatchesToString(int base, int exponent) {
+        BigInteger value = BigInteger.valueOf(base).pow(exponent).subtract(BigInteger.ONE);
+
+        assertEquals(value.toString(), BigIntegerMath.toDecimalString(value));
+        assertEquals(value.negate().toString(), BigIntegerMath.toDecimalString(value.negate()));
+    }
+
+    @Test
+    void testSieve() {
+        assertArrayEquals(new int[]{2, 3, 5, 7, 11, 13, 17, 19, 23, 29}, BigIntegerMath.primesUpTo(30));
+        assertEquals(78_498, BigIntegerMath.primesUpTo(1_000_000).length);
+    }
+}
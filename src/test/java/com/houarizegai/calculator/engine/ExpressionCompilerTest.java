@@ -0,0 +1,124 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpressionCompilerTest {
+
+    private final int threshold = ExpressionCompiler.getThreshold();
+
+    @AfterEach
+    void restoreThreshold() {
+        ExpressionCompiler.setThreshold(threshold);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "x * x + 3 * x - 2",
+            "(x + y) * (x + y) - (x + y) / (x + y)",
+            "-x ^ 2 + 2 ^ 3 ^ 2 * y",
+            "sqrt(x) + √x + ln(x) * ln(x)",
+            "x % 3 - -y % (1 - 1)",
+            "0 * -1 + x * (2 - 2) / -0",
+            "(1 + 2) * x + 1 / 0 * y",
+            "ln(y * y) ^ (x - y) - ln(y * y)",
+    })
+    void testCompiledFormulaMatchesInterpreter(String source) {
+        ExpressionCompiler.setThreshold(Integer.MAX_VALUE);
+        Formula interpreted = Formula.parse(source);
+        Formula compiled = Formula.parse(source);
+
+        assertEquals(Formula.Tier.COMPILED, compiled.compile());
+        assertEquals(Formula.Tier.INTERPRETED, interpreted.getTier());
+        double[] samples = {0, -0.0, 1, -1, 2.5, -7.25, 1e-300, 1e300, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double x : samples) {
+            for (double y : samples) {
+                double expected = interpreted.evaluate(x, y);
+                double actual = compiled.evaluate(x, y);
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                        source + " at x = " + x + ", y = " + y + ": " + expected + " != " + actual);
+            }
+        }
+    }
+
+    @Test
+    void testFormulaIsCompiledOnceHot() throws InterruptedException {
+        ExpressionCompiler.setThreshold(5);
+        Formula formula = Formula.parse("x * x + 1");
+        long compiled = ExpressionCompiler.getCompiledCount();
+
+        for (int i = 0; i < 4; i++)
+            assertEquals(i * i + 1, formula.evaluate(i));
+        assertEquals(Formula.Tier.INTERPRETED, formula.getTier());
+        assertEquals(17, formula.evaluate(4));
+        awaitCompiled(formula);
+        assertEquals(26, formula.evaluate(5));
+        assertEquals(compiled + 1, ExpressionCompiler.getCompiledCount());
+        assertTrue(ExpressionCompiler.getCompileNanos() > 0);
+    }
+
+    @Test
+    void testManySharedSubexpressionsStillCompile() throws InterruptedException {
+        ExpressionCompiler.setThreshold(5);
+        // each square is two uses of one sum: far more shared values than a handle has argument slots for
+        int terms = 2 * ExpressionCompiler.MAX_TEMPORARIES + 10;
+        StringBuilder source = new StringBuilder("0");
+        for (int i = 1; i <= terms; i++)
+            source.append(" + (x + ").append(i).append(") * (x + ").append(i).append(')');
+        Formula formula = Formula.parse(source);
+
+        for (int x = 0; x < 10; x++) {
+            double expected = 0;
+            for (int i = 1; i <= terms; i++)
+                expected += (double) (x + i) * (x + i);
+            assertEquals(expected, formula.evaluate(x));
+        }
+        awaitCompiled(formula);
+        double expected = 0;
+        for (int i = 1; i <= terms; i++)
+            expected += (double) (1 + i) * (1 + i);
+        assertEquals(expected, formula.evaluate(1));
+    }
+
+    private static void awaitCompiled(Formula formula) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (formula.getTier() != Formula.Tier.COMPILED && System.nanoTime() < deadline)
+            Thread.sleep(5);
+        assertEquals(Formula.Tier.COMPILED, formula.getTier());
+    }
+
+    @Test
+    void testCompiledFormulaKeepsUsingOperationCache() {
+        OperationCache cache = new OperationCache();
+        Formula formula = Formula.parse("x ^ 2 + sqrt(x)", cache);
+        formula.compile();
+
+        assertEquals(18, formula.evaluate(4));
+        assertEquals(18, formula.evaluate(4));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    void testLargeFormulaStaysInterpreted() {
+        StringBuilder source = new StringBuilder("x");
+        for (int i = 0; i < ExpressionCompiler.MAX_NODES; i++)
+            source.append(" + x");
+        Formula formula = Formula.parse(source);
+
+        assertEquals(Formula.Tier.INTERPRETED, formula.compile());
+        assertEquals(ExpressionCompiler.MAX_NODES + 1, formula.evaluate(1));
+    }
+
+    @Test
+    void testInvalidThresholdIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionCompiler.setThreshold(0));
+    }
+}
@@ -0,0 +1,77 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FormulaTest {
+
+    @ParameterizedTest
+    @CsvSource({"3,5,+,8", "2,8,-,-6", "44.5,10,*,445", "320,5,/,64", "3,5,%,3", "5,3,^,125", "7,9,=,9", "7,9,' ',9"})
+    void testCalculateKeepsKeypadSemantics(double firstNumber, double secondNumber, char operator, double expectedResult) {
+        assertEquals(expectedResult, Arithmetic.calculate(firstNumber, secondNumber, operator));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "1 + 2 * 3; 7",
+            "(1 + 2) * 3; 9",
+            "10 - 4 - 3; 3",
+            "2 ^ 3 ^ 2; 512",
+            "-2 ^ 2; -4",
+            "2 ^ -1; 0.5",
+            "7 % 4 * 2; 6",
+            "√16 + 1; 5",
+            "sqrt(9) * ln(1); 0",
+            "1.5e3 / .5; 3000",
+            "0.1 + 0.2; 0.30000000000000004"
+    })
+    void testEvaluateConstantExpression(String expression, double expectedResult) {
+        assertEquals(expectedResult, Formula.parse(expression).evaluate());
+    }
+
+    @Test
+    void testParsedFormulaIsReusableWithDifferentInputs() {
+        Formula formula = Formula.parse("rate * x ^ 2 + x");
+
+        assertEquals(Arrays.asList("rate", "x"), formula.getVariables());
+        assertEquals(6, formula.evaluate(1, 2));
+        assertEquals(21, formula.evaluate(2, 3));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {"1 +", "(1 + 2", "2 $ 3", "foo(1)", "1 2"})
+    void testRejectMalformedExpression(String expression) {
+        assertThrows(ExpressionException.class, () -> Formula.parse(expression));
+    }
+
+    @Test
+    void testDeepNestingIsRejectedBeforeTheStackOverflows() {
+        String deep = "(".repeat(30000) + "1" + ")".repeat(30000);
+        String allowed = "(".repeat(ExpressionParser.MAX_DEPTH - 1) + "1" + ")".repeat(ExpressionParser.MAX_DEPTH - 1);
+
+        assertEquals(1, Formula.parse(allowed).evaluate());
+        assertThrows(ExpressionException.class, () -> Formula.parse(deep));
+        assertThrows(ExpressionException.class, () -> Formula.parse("-".repeat(30000) + "1"));
+        assertThrows(ExpressionException.class, () -> Formula.parse("√".repeat(30000) + "1"));
+        assertThrows(ExpressionException.class, () -> Formula.parse("2 ^ ".repeat(30000) + "1"));
+        assertThrows(ExpressionException.class, () -> new ExpressionParser().evaluate(deep));
+    }
+
+    @Test
+    void testLongFlatChainIsRejectedBeforeTheStackOverflows() {
+        String allowed = "1" + " + 1".repeat(ExpressionParser.MAX_HEIGHT - 1);
+        String flat = "1" + "+1".repeat(200_000);
+
+        assertEquals(ExpressionParser.MAX_HEIGHT, Formula.parse(allowed).evaluate());
+        assertEquals(ExpressionParser.MAX_HEIGHT, new ExpressionParser().evaluate(allowed));
+        assertThrows(ExpressionException.class, () -> Formula.parse(flat));
+        assertThrows(ExpressionException.class, () -> Formula.parse("x" + " * x - 1".repeat(100_000)));
+        assertThrows(ExpressionException.class, () -> new ExpressionParser().evaluate(flat));
+    }
+}
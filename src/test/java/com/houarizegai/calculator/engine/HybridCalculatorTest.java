@@ -0,0 +1,89 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HybridCalculatorTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.1,0.2,+,0.3",
+            "1.1,2.2,+,3.3",
+            "0.3,0.1,-,0.2",
+            "1.1,1.1,*,1.21",
+            "1,8,/,0.125",
+            "5.5,2,%,1.5",
+            "2,10,^,1024",
+            "1.5,2,^,2.25",
+            "7,9,=,9",
+            "9007199254740993,1,+,9007199254740994",
+            "99999999999999999999,1,+,100000000000000000000",
+            "1,3,/,0.3333333333333333",
+            "2,0.5,^,1.414213562373095",
+            "123456789012345678,3,*,370370367037037034",
+            "99999999999999999999,0.01,-,99999999999999999998.99"
+    })
+    void testCalculateIsDecimalExact(String firstNumber, String secondNumber, char operator, String expectedResult) {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+        HybridNumber result = calculator.calculate(HybridNumber.parse(firstNumber), HybridNumber.parse(secondNumber),
+                operator);
+        assertEquals(expectedResult, result.toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"16,4", "0.25,0.5", "2,1.414213562373095", "-1,NaN"})
+    void testSqrt(String value, String expectedResult) {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+        assertEquals(expectedResult, calculator.sqrt(HybridNumber.parse(value)).toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,0", "2,0.6931471805599453", "10,2.302585092994046", "0,-Infinity", "-1,NaN"})
+    void testLn(String value, String expectedResult) {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+        assertEquals(expectedResult, calculator.ln(HybridNumber.parse(value)).toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1,0,/,Infinity", "-1,0,/,-Infinity", "0,0,/,NaN", "1,0,%,NaN"})
+    void testSpecialResultsFollowDoubleSemantics(String firstNumber, String secondNumber, char operator,
+                                                 String expectedResult) {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+        HybridNumber result = calculator.calculate(HybridNumber.parse(firstNumber), HybridNumber.parse(secondNumber),
+                operator);
+        assertFalse(result.isFinite());
+        assertEquals(expectedResult, result.toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"99999999,999999999,^,Infinity", "10,10000000000,^,Infinity", "-10,999999999,^,-Infinity",
+            "0.5,10000000000,^,0"})
+    void testResultsBeyondBigDecimalRangeFallBackToDouble(String firstNumber, String secondNumber, char operator,
+                                                          String expectedResult) {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+        HybridNumber result = calculator.calculate(HybridNumber.parse(firstNumber), HybridNumber.parse(secondNumber),
+                operator);
+        assertEquals(expectedResult, result.toString());
+    }
+
+    @Test
+    void testEscalationIsCountedPerOperator() {
+        HybridCalculator calculator = new HybridCalculator(MathContext.DECIMAL64);
+
+        HybridNumber sum = calculator.calculate(HybridNumber.parse("0.1"), HybridNumber.parse("0.2"), '+');
+        assertTrue(sum.isCompact());
+        calculator.calculate(HybridNumber.ONE, HybridNumber.parse("3"), '/');
+
+        assertEquals(1, calculator.getFastPathCount());
+        assertEquals(1, calculator.getEscalationCount('/'));
+        assertEquals(0, calculator.getEscalationCount('+'));
+        assertEquals(1, calculator.getEscalationCount());
+    }
+}
@@ -0,0 +1,87 @@
+package com.houarizegai.calculator.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperationCacheTest {
+
+    @ParameterizedTest
+    @CsvSource({"3,5,+,8", "2,8,-,-6", "44.5,10,*,445", "320,5,/,64", "3,5,%,3", "5,3,^,125", "7,9,=,9"})
+    void testCalculateMatchesArithmetic(double firstNumber, double secondNumber, char operator, double expectedResult) {
+        OperationCache cache = new OperationCache(64);
+        assertEquals(expectedResult, cache.calculate(firstNumber, secondNumber, operator));
+        assertEquals(expectedResult, cache.calculate(firstNumber, secondNumber, operator));
+    }
+
+    @Test
+    void testRepeatedOperationsHitAndFullSetsEvict() {
+        OperationCache cache = new OperationCache(8);
+
+        assertEquals(1024, cache.calculate(2, 10, '^'));
+        assertEquals(1024, cache.calculate(2, 10, '^'));
+        assertEquals(Math.sqrt(2), cache.sqrt(2));
+        assertEquals(Math.log(2), cache.ln(2));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(Math.pow(i, 0.5), cache.calculate(i, 0.5, '^'));
+        assertEquals(8, cache.getCapacity());
+        assertTrue(cache.getEvictionCount() >= 95);
+    }
+
+    @Test
+    void testConcurrentLookupsStayCorrect() throws Exception {
+        OperationCache cache = new OperationCache(256);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        double x = i % 1_000;
+                        assertEquals(Math.pow(x, 1.5), cache.calculate(x, 1.5, '^'));
+                        assertEquals(Math.sqrt(x), cache.sqrt(x));
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(160_000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    void testExpressionCacheSharesNormalizedEntries() {
+        ExpressionCache cache = new ExpressionCache(2, new OperationCache(64));
+
+        assertEquals(1389.15, cache.evaluate("1200 * 1.05 ^ 3"));
+        assertEquals(1389.15, cache.evaluate("1200*1.05^3"));
+        assertEquals(1, cache.getHitCount());
+
+        cache.evaluate("1 + 1");
+        cache.evaluate("2 + 2");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertThrows(ExpressionException.class, () -> cache.evaluate("1 2"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {"' 1 + 2 '; 1+2", "sqrt ( x ) ; sqrt(x)", "1 2; 1 2", "a  b; a b", "√ 16; √16"})
+    void testNormalize(String expression, String expectedResult) {
+        assertEquals(expectedResult, ExpressionCache.normalize(expression));
+    }
+}
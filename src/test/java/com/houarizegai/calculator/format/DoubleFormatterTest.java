@@ -0,0 +1,83 @@
+package com.houarizegai.calculator.format;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoubleFormatterTest {
+
+    @ParameterizedTest
+    @CsvSource({"8, 8", "-6, -6", "445, 445", "0.1, 0.1", "0.30000000000000004, 0.30000000000000004",
+            "2147483648, 2147483648", "1e15, 1000000000000000", "1e20, 100000000000000000000", "1e21, 1E21",
+            "0.0000001, 0.0000001", "1e-8, 1E-8", "-0.0, 0", "2.5e-5, 0.000025", "1.7976931348623157e308, 1.7976931348623157E308",
+            "4.9e-324, 4.9E-324", "NaN, NaN", "-Infinity, -Infinity"})
+    void testDisplayFormat(double value, String expected) {
+        assertEquals(expected, DoubleFormatter.DISPLAY.format(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"3, AUTO, 3.14159, 3.14", "3, AUTO, 999.6, 1000", "4, SCIENTIFIC, 1234.5678, 1.235E3",
+            "0, SCIENTIFIC, 0.00012, 1.2E-4", "0, PLAIN, 1e-10, 0.0000000001", "0, PLAIN, 1.5e22, 15000000000000000000000"})
+    void testConfiguredFormat(int precision, DoubleFormatter.Notation notation, double value, String expected) {
+        assertEquals(expected, new DoubleFormatter(precision, notation).format(value));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, AUTO, 370370367037037034, 370370367037037034", "0, AUTO, 12345.678901234567890, 12345.67890123456789",
+            "0, AUTO, -0.000000012345678901234567, -1.2345678901234567E-8", "0, AUTO, 1E+25, 1E25",
+            "0, AUTO, 0.000, 0", "3, AUTO, 3.14159265358979323846, 3.14", "3, AUTO, 999.6, 1000",
+            "4, SCIENTIFIC, 1234.5678, 1.235E3", "0, PLAIN, 1E-10, 0.0000000001", "0, PLAIN, 1E+999999999, 1E999999999"})
+    void testExactDecimalFormat(int precision, DoubleFormatter.Notation notation, String value, String expected) {
+        DoubleFormatter formatter = new DoubleFormatter(precision, notation);
+        assertEquals(expected, formatter.format(new BigDecimal(value), new StringBuilder()).toString());
+    }
+
+    @Test
+    void testShortestDigitsRoundTrip() {
+        Random random = new Random(42);
+        char[] buffer = new char[DoubleFormatter.MAX_LENGTH];
+        for (int i = 0; i < 100_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isFinite(value))
+                continue;
+
+            String text = new String(buffer, 0, DoubleFormatter.DISPLAY.format(value, buffer, 0));
+            assertEquals(value == 0 ? 0.0 : value, Double.parseDouble(text), text);
+            assertTrue(significantDigits(text) <= significantDigits(Double.toString(value)), text);
+        }
+    }
+
+    @Test
+    void testStringBuilderOverloadAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        DoubleFormatter plain = new DoubleFormatter(0, DoubleFormatter.Notation.PLAIN);
+        StringBuilder out = new StringBuilder(1024);
+        assertEquals(plain.format(-4.9e-324), plain.format(-4.9e-324, out).toString());
+
+        for (int round = 0; round < 3; round++) {
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            for (int i = 0; i < 100_000; i++) {
+                out.setLength(0);
+                DoubleFormatter.DISPLAY.format(i * 0.1, out);
+                plain.format(i * 1e300, out);
+            }
+            // per-call buffers would be megabytes; allow for the measurement and a compilation or two
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            if (allocated < 100_000)
+                return;
+        }
+        throw new AssertionError("format(double, StringBuilder) allocates");
+    }
+
+    private static int significantDigits(String text) {
+        String mantissa = text.split("E")[0].replace("-", "").replace(".", "");
+        return mantissa.replaceAll("^0+", "").replaceAll("0+$", "").length();
+    }
+}
@@ -0,0 +1,123 @@
+package com.houarizegai.calculator.graph;
+
+import com.houarizegai.calculator.engine.Formula;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FunctionSamplerTest {
+
+    @ParameterizedTest
+    @CsvSource({"x ^ 2, -3, 5", "ln(x), 0.5, 8", "sqrt(x) * 3 - x, 0, 10"})
+    void testColumnExtremesMatchDirectEvaluation(String function, double xMin, double xMax) {
+        Formula formula = Formula.parse(function);
+        int columns = 50;
+        FunctionSampler.Columns sampled = new FunctionSampler(formula).sample(xMin, xMax, columns);
+
+        double columnWidth = (xMax - xMin) / columns;
+        for (int column = 0; column < columns; column++) {
+            double low = Double.POSITIVE_INFINITY;
+            double high = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i <= 64; i++) {
+                double y = formula.evaluate(xMin + column * columnWidth + columnWidth * i / 64);
+                low = Math.min(low, y);
+                high = Math.max(high, y);
+            }
+            double tolerance = (high - low) * 0.02 + 1e-9;
+            assertEquals(low, sampled.getMin(column), tolerance, "column " + column);
+            assertEquals(high, sampled.getMax(column), tolerance, "column " + column);
+        }
+        assertTrue(sampled.getSampleCount() >= (long) columns * FunctionSampler.SAMPLES_PER_COLUMN);
+    }
+
+    @Test
+    void testUndefinedValuesLeaveColumnsEmpty() {
+        FunctionSampler.Columns sampled = new FunctionSampler(Formula.parse("ln(x)")).sample(-4, 4, 8);
+
+        for (int column = 0; column < 4; column++)
+            assertTrue(Double.isNaN(sampled.getMin(column)));
+        for (int column = 4; column < 8; column++)
+            assertTrue(sampled.getMin(column) <= sampled.getMax(column));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1e307 * x", "-1e308 + 0 * x", "1e308 * x ^ 3", "1e-320 * x"})
+    void testSuggestedRangeIsAFiniteViewport(String function) {
+        FunctionSampler.Columns sampled = new FunctionSampler(Formula.parse(function)).sample(-10, 10, 100);
+
+        double[] range = sampled.suggestYRange();
+        Viewport viewport = new Viewport(-10, 10, -1, 1).withYRange(range[0], range[1]);
+
+        assertTrue(Double.isFinite(viewport.getHeight()));
+    }
+
+    @Test
+    void testPanReusesCachedTiles() {
+        FunctionSampler sampler = new FunctionSampler(Formula.parse("x * x"));
+        FunctionSampler.Columns first = sampler.sample(0, 100, 200);
+        FunctionSampler.Columns panned = sampler.sample(10, 110, 200);
+        FunctionSampler.Columns back = sampler.sample(0, 100, 200);
+
+        assertEquals(first.getSampleCount(), first.getComputedCount(), FunctionSampler.TILE_SAMPLES * 2);
+        assertTrue(panned.getComputedCount() < first.getComputedCount() / 5);
+        assertEquals(0, back.getComputedCount());
+    }
+
+    @Test
+    void testZoomReusesSamplesOfOtherSpacings() {
+        FunctionSampler sampler = new FunctionSampler(Formula.parse("x * x"));
+        FunctionSampler.Columns wide = sampler.sample(-64, 64, 256);
+        FunctionSampler.Columns zoomedIn = sampler.sample(-32, 32, 256);
+        FunctionSampler.Columns zoomedOut = sampler.sample(-64, 64, 256);
+
+        // every other sample of the zoomed-in view was already computed for the wide one
+        assertEquals(zoomedIn.getSampleCount() / 2.0, zoomedIn.getComputedCount(), FunctionSampler.TILE_SAMPLES);
+        assertEquals(0, zoomedOut.getComputedCount());
+        assertEquals(wide.getMin(100), zoomedOut.getMin(100));
+    }
+
+    @Test
+    void testFunctionsOfSeveralVariablesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new FunctionSampler(Formula.parse("x + y")));
+    }
+
+    @Test
+    void testRendererDrawsCurveAndAxes() {
+        Viewport viewport = new Viewport(-2, 2, -1, 3);
+        FunctionSampler.Columns columns = new FunctionSampler(Formula.parse("x ^ 2")).sample(-2, 2, 80);
+        BufferedImage image = GraphRenderer.render(columns, viewport, 80, 60, Color.WHITE, Color.BLACK, Color.RED);
+
+        assertEquals(80, image.getWidth());
+        assertEquals(60, image.getHeight());
+        // the y axis runs down the middle column, the vertex of the parabola sits just above the x axis at row 45
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(40, 5));
+        assertEquals(Color.RED.getRGB(), image.getRGB(39, 44));
+        assertEquals(Color.RED.getRGB(), image.getRGB(20, 30));
+        assertEquals(Color.WHITE.getRGB(), image.getRGB(60, 20));
+    }
+
+    @Test
+    void testViewportZoomKeepsPointInPlace() {
+        Viewport viewport = new Viewport(-10, 10, -5, 5);
+        Viewport zoomed = viewport.zoom(0.5, 4, 1);
+
+        assertEquals(10, zoomed.getWidth(), 1e-12);
+        assertEquals(5, zoomed.getHeight(), 1e-12);
+        assertEquals((4 - viewport.getXMin()) / viewport.getWidth(), (4 - zoomed.getXMin()) / zoomed.getWidth(),
+                1e-12);
+        assertEquals(-3, zoomed.getXMin(), 1e-12);
+
+        Viewport panned = viewport.pan(3, -1);
+        assertEquals(-7, panned.getXMin());
+        assertEquals(4, panned.getYMax());
+        assertTrue(viewport.zoom(1e-30, 0, 0).getWidth() > 0);
+        assertThrows(IllegalArgumentException.class, () -> new Viewport(1, 1, 0, 1));
+    }
+}
@@ -0,0 +1,122 @@
+package com.houarizegai.calculator.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistoryLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsSurviveReopening() throws IOException {
+        Path file = directory.resolve("history.log");
+        try (HistoryLog log = HistoryLog.open(file)) {
+            log.append(1_000, 44.5, '*', 10, 445);
+            log.append(2_000, 2, 'l', Double.NaN, Math.log(2));
+        }
+
+        try (HistoryLog log = HistoryLog.open(file)) {
+            assertEquals(2, log.size());
+            HistoryEntry entry = log.read(0, new HistoryEntry());
+            assertEquals(1_000, entry.getTimestamp());
+            assertEquals(44.5, entry.getFirst());
+            assertEquals('*', entry.getOperator());
+            assertEquals(10, entry.getSecond());
+            assertEquals(445, entry.getResult());
+
+            log.read(1, entry);
+            assertTrue(entry.isUnary());
+            assertEquals(Math.log(2), entry.getResult());
+            assertEquals(2, log.append(3_000, 1, '+', 1, 2));
+        }
+    }
+
+    @Test
+    void testQueriesSpanSegmentsAndSkipTheRing() throws IOException {
+        int records = HistoryLog.SEGMENT_RECORDS * 2 + 100;
+        try (HistoryLog log = HistoryLog.open(directory.resolve("large.log"), 16)) {
+            for (int i = 0; i < records; i++)
+                log.append(i * 10L, i, '+', 1, i + 1);
+
+            HistoryEntry entry = new HistoryEntry();
+            assertEquals(11, log.read(10, entry).getResult());
+            assertEquals(records, log.read(records - 1, entry).getResult());
+
+            assertEquals(100, log.indexOf(1_000));
+            assertEquals(101, log.indexOf(1_001));
+            assertEquals(records, log.indexOf(Long.MAX_VALUE));
+
+            assertEquals(records, log.countResults(0, records, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+            assertEquals(10, log.countResults(log.indexOf(0), log.indexOf(100), 1, 10));
+
+            List<Long> found = new ArrayList<>();
+            log.findResults(0, records, 65_535, 65_540, index -> found.add(index) && found.size() < 3);
+            assertEquals(Arrays.asList(65_534L, 65_535L, 65_536L), found);
+        }
+    }
+
+    @Test
+    void testOnlyTheLatestSegmentsStayMapped() throws IOException {
+        int records = HistoryLog.SEGMENT_RECORDS * (HistoryLog.MAX_MAPPED_SEGMENTS + 2);
+        try (HistoryLog log = HistoryLog.open(directory.resolve("segments.log"), 16)) {
+            for (int i = 0; i < records; i++)
+                log.append(i, i, '+', 1, i + 1);
+            assertEquals(HistoryLog.MAX_MAPPED_SEGMENTS, log.getMappedSegmentCount());
+
+            assertEquals(records, log.countResults(0, records, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+            assertEquals(1, log.getResult(0));
+            assertEquals(HistoryLog.MAX_MAPPED_SEGMENTS, log.getMappedSegmentCount());
+        }
+    }
+
+    @Test
+    void testSecondOpenIsReadOnly() throws IOException {
+        Path file = directory.resolve("shared.log");
+        try (HistoryLog owner = HistoryLog.open(file)) {
+            owner.append(1_000, 1, '+', 1, 2);
+            assertFalse(owner.isReadOnly());
+
+            try (HistoryLog reader = HistoryLog.open(file)) {
+                assertTrue(reader.isReadOnly());
+                assertEquals(1, reader.size());
+                assertEquals(2, reader.getResult(0));
+                assertThrows(IOException.class, () -> reader.append(2_000, 2, '+', 2, 4));
+            }
+            assertEquals(1, owner.append(2_000, 2, '+', 2, 4));
+        }
+        try (HistoryLog log = HistoryLog.open(file)) {
+            assertFalse(log.isReadOnly());
+            assertEquals(2, log.size());
+        }
+    }
+
+    @Test
+    void testTimestampsNeverGoBack() throws IOException {
+        try (HistoryLog log = HistoryLog.open(directory.resolve("clock.log"))) {
+            log.append(5_000, 1, '+', 1, 2);
+            log.append(4_000, 2, '+', 2, 4);
+            assertEquals(5_000, log.getTimestamp(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> log.getResult(2));
+        }
+    }
+
+    @Test
+    void testRejectForeignFile() throws IOException {
+        Path file = directory.resolve("foreign.log");
+        Files.write(file, "not a history log at all".getBytes());
+        assertThrows(IOException.class, () -> HistoryLog.open(file));
+    }
+}
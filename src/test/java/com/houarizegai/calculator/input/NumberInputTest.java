@@ -0,0 +1,88 @@
+package com.houarizegai.calculator.input;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NumberInputTest {
+
+    private NumberInput input;
+
+    @BeforeEach
+    void setUp() {
+        input = new NumberInput();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"'', 0, 0", "007, 7, 7", "12.50, 12.50, 12.5", "0.1, 0.1, 0.1", ".5, 0.5, 0.5", "1..2, 1.2, 1.2",
+            "1234567890123456789012, 1234567890123456789012, 1.234567890123456789012e21"})
+    void testTypeKeys(String keys, String expectedDisplay, double expectedValue) {
+        for (char key : keys.toCharArray()) {
+            if (key == '.') {
+                input.appendPoint();
+            } else {
+                input.appendDigit(key - '0');
+            }
+        }
+
+        assertEquals(expectedDisplay, input.toString());
+        assertTrue(input.isValid());
+        assertEquals(expectedValue, input.doubleValue());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"-6, true, -6", "-6.25, true, -6.25", "-, false, 0", "Infinity, false, 0", "NaN, false, 0",
+            "1.0E10, false, 0", "123456789012345678901.5, true, 123456789012345678901.5"})
+    void testSetResult(String text, boolean expectedValid, double expectedValue) {
+        input.set(text);
+
+        assertEquals(text, input.toString());
+        assertEquals(expectedValid, input.isValid());
+        if (expectedValid)
+            assertEquals(expectedValue, input.doubleValue());
+    }
+
+    @Test
+    void testBackspaceKeepsStateInSync() {
+        input.set("-12.5");
+
+        input.backspace();
+        assertEquals(-12.0, input.doubleValue());
+        input.backspace();
+        assertEquals("-12", input.toString());
+        assertEquals(-12, input.doubleValue());
+        input.backspace();
+        input.backspace();
+        assertEquals("-", input.toString());
+        assertFalse(input.isValid());
+        input.backspace();
+        assertEquals("0", input.toString());
+        assertTrue(input.isValid());
+    }
+
+    @Test
+    void testBackspaceAcrossExactDigitLimit() {
+        input.set("1234567890123456789");
+
+        input.backspace();
+        assertEquals(123456789012345678d, input.doubleValue());
+        input.backspace();
+        assertEquals(12345678901234567d, input.doubleValue());
+    }
+
+    @Test
+    void testBackspaceOnExponentResult() {
+        input.set("1.0E1");
+
+        input.backspace();
+        assertFalse(input.isValid());
+        input.backspace();
+        assertTrue(input.isValid());
+        assertEquals(1.0, input.doubleValue());
+    }
+}
@@ -0,0 +1,113 @@
+package com.houarizegai.calculator.matrix;
+
+import com.houarizegai.calculator.format.DoubleFormatter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatrixTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "2, 3, 2",
+            "65, 1, 70",
+            "130, 257, 77",
+            "300, 600, 530",
+    })
+    void testBlockedProductMatchesTripleLoop(int rows, int depth, int columns) {
+        Matrix a = Matrix.random(rows, depth, 1);
+        Matrix b = Matrix.random(depth, columns, 2);
+        AtomicReference<Double> last = new AtomicReference<>(0.0);
+
+        Matrix product = a.multiply(b, fraction -> last.accumulateAndGet(fraction, Math::max));
+
+        assertEquals(rows, product.getRows());
+        assertEquals(columns, product.getColumns());
+        assertEquals(1.0, last.get());
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                double expected = 0;
+                for (int k = 0; k < depth; k++)
+                    expected += a.get(i, k) * b.get(k, j);
+                assertEquals(expected, product.get(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void testElementwiseOperationsAndTranspose() {
+        Matrix a = Matrix.parse("1 2 3; 4 5 6");
+        Matrix b = Matrix.parse("6, 5, 4\n3, 2, 1");
+
+        assertEquals(Matrix.of(2, 3, 7, 7, 7, 7, 7, 7), a.add(b));
+        assertEquals(Matrix.of(2, 3, -5, -3, -1, 1, 3, 5), a.subtract(b));
+        assertEquals(Matrix.of(3, 2, 1, 4, 2, 5, 3, 6), a.transpose());
+        assertEquals(Matrix.of(2, 2, 14, 32, 32, 77), a.multiply(a.transpose()));
+        assertEquals(Matrix.random(40, 70, 3), Matrix.random(40, 70, 3).transpose().transpose());
+    }
+
+    @Test
+    void testZerosDoNotHideInfinitiesAndNaN() {
+        double inf = Double.POSITIVE_INFINITY;
+        Matrix product = Matrix.of(2, 2, 0, 1, 1, 0).multiply(Matrix.of(2, 2, inf, 1, 2, Double.NaN));
+        assertEquals(Matrix.of(2, 2, Double.NaN, Double.NaN, inf, Double.NaN), product);
+
+        assertTrue(Double.isNaN(Matrix.of(2, 2, 1, inf, 0, 1).determinant()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'1 2; 3 4', -2",
+            "'0 1; 1 0', -1",
+            "'2 0 0; 0 3 0; 0 0 4', 24",
+            "'1 2 3; 4 5 6; 7 8 9', 0",
+            "'0 0; 0 0', 0",
+    })
+    void testDeterminant(String matrix, double expected) {
+        assertEquals(expected, Matrix.parse(matrix).determinant(), 1e-12);
+    }
+
+    @Test
+    void testInverseAndSolveOnALargeMatrix() {
+        int n = 400;
+        Matrix a = Matrix.random(n, n, 4).add(Matrix.identity(n).multiply(n));
+        Matrix x = Matrix.random(n, 3, 5);
+        Matrix b = a.multiply(x);
+
+        Matrix solved = a.solve(b);
+        Matrix identity = a.multiply(a.inverse());
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < 3; j++)
+                assertEquals(x.get(i, j), solved.get(i, j), 1e-12);
+            for (int j = 0; j < n; j++)
+                assertEquals(i == j ? 1 : 0, identity.get(i, j), 1e-12);
+        }
+    }
+
+    @Test
+    void testSingularMatrixCannotBeInverted() {
+        Matrix singular = Matrix.parse("1 2; 2 4");
+
+        assertTrue(singular.lu().isSingular());
+        assertThrows(ArithmeticException.class, singular::inverse);
+        assertThrows(IllegalArgumentException.class, () -> Matrix.parse("1 2 3").inverse());
+    }
+
+    @Test
+    void testParseAndFormat() {
+        assertEquals(Matrix.identity(3), Matrix.parse("identity 3"));
+        assertEquals(2, Matrix.parse("random 2 5").getRows());
+        assertThrows(IllegalArgumentException.class, () -> Matrix.parse("1 2; 3"));
+        assertThrows(IllegalArgumentException.class, () -> Matrix.parse("1 x"));
+
+        assertEquals("  1  -2\n0.5   4", Matrix.parse("1 -2; 0.5 4").format(DoubleFormatter.DISPLAY, 5, 5));
+        assertEquals("1  …  0\n⋮  ⋮  ⋮\n0  …  1", Matrix.identity(10).format(DoubleFormatter.DISPLAY, 2, 2));
+    }
+}
@@ -0,0 +1,92 @@
+package com.houarizegai.calculator.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.awt.SecondaryLoop;
+import java.awt.Toolkit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EdtWatchdogTest {
+
+    @Test
+    void testSlowListenerIsReportedWithItsStack() throws Exception {
+        List<String> messages = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                synchronized (messages) {
+                    messages.add(record.getMessage());
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(EdtWatchdog.class.getName());
+        logger.addHandler(handler);
+        EdtWatchdog watchdog = EdtWatchdog.install(50, 60_000);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+            });
+            SwingUtilities.invokeAndWait(EdtWatchdogTest::slowListener);
+            SwingUtilities.invokeAndWait(() -> {
+            });
+
+            assertEquals(1, watchdog.getStallCount());
+            // invokeAndWait returns before the last dispatch is recorded, the first two are always in
+            assertTrue(watchdog.getDispatchLatency().getCount() >= 2);
+            assertTrue(watchdog.getDispatchLatency().getMax() >= 300_000_000L);
+            synchronized (messages) {
+                assertEquals(1, messages.size());
+                assertTrue(messages.get(0).contains("InvocationEvent"));
+                assertTrue(messages.get(0).contains(" in com.houarizegai.calculator.monitoring.EdtWatchdogTest.slowListener"));
+            }
+        } finally {
+            watchdog.uninstall();
+            logger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    void testOpenModalLoopIsNotAStall() throws Exception {
+        EdtWatchdog watchdog = EdtWatchdog.install(50, 60_000);
+        try {
+            // what a modal dialog does: its listener pumps events in a nested loop, idle until it is closed
+            SwingUtilities.invokeAndWait(() -> {
+                SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+                SwingUtilities.invokeLater(() -> {
+                });
+                new Thread(() -> {
+                    slowListener();
+                    loop.exit();
+                }).start();
+                loop.enter();
+            });
+
+            assertEquals(0, watchdog.getStallCount());
+        } finally {
+            watchdog.uninstall();
+        }
+    }
+
+    private static void slowListener() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.houarizegai.calculator.monitoring;
+
+import com.houarizegai.calculator.session.Key;
+import com.houarizegai.calculator.session.Keypad;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 15, 16, 17, 31, 32, 1_000, 123_456_789, 1L << 40, (1L << 41) - 1})
+    void testValueFallsInBucketWithinOneSixteenth(long nanos) {
+        int index = LatencyHistogram.indexOf(nanos);
+        long highest = LatencyHistogram.highestValueOf(index);
+
+        assertTrue(highest >= nanos);
+        assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < nanos);
+        assertTrue(highest - nanos <= nanos / 16);
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++)
+            histogram.record(i * 1_000L);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1_001, snapshot.getCount());
+        assertEquals(500_000, snapshot.getP50(), 500_000 / 16.0);
+        assertEquals(990_000, snapshot.getP99(), 990_000 / 16.0);
+        assertTrue(snapshot.getMax() >= 1L << 40);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+
+    @Test
+    void testMetricsArePublishedOverJmx() throws Exception {
+        CalculatorMetrics.register();
+        CalculatorMetrics.get().reset();
+        Keypad keypad = new Keypad();
+        for (char symbol : "2^10=".toCharArray())
+            keypad.press(Key.ofSymbol(symbol));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(CalculatorMetrics.OBJECT_NAME);
+        CompositeData latency = (CompositeData) server.getAttribute(name, "CalculationLatency");
+        assertEquals(1L, latency.get("count"));
+        assertEquals(1L, CalculatorMetrics.get().getOperatorCounts().get("^"));
+        assertEquals(5L, CalculatorMetrics.get().getInputLatency().getCount());
+    }
+}
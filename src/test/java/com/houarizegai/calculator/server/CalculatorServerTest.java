@@ -0,0 +1,153 @@
+package com.houarizegai.calculator.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalculatorServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private CalculatorServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new CalculatorServer(0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"3,5,+,8", "2,8,-,-6", "44.5,10,*,445", "320,5,/,64", "3,5,%,3", "5,3,^,125", "7,9,=,9"})
+    void testCalculate(String firstNumber, String secondNumber, String operator, String expectedResult)
+            throws Exception {
+        HttpResponse<String> response = get("/calculate?a=" + firstNumber + "&b=" + secondNumber + "&op="
+                + URLEncoder.encode(operator, StandardCharsets.UTF_8));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(expectedResult + "\n", response.body());
+    }
+
+    @Test
+    void testEvaluate() throws Exception {
+        assertEquals("1028\n", get("/evaluate?expr=" + URLEncoder.encode("2 ^ 10 + √16", StandardCharsets.UTF_8)).body());
+        assertEquals("9\n", post("/evaluate", "text/plain", "(1 + 2) * 3").body());
+        assertEquals(400, post("/evaluate", "text/plain", "1 +").statusCode());
+        assertEquals(400, get("/calculate?a=1&b=x&op=%2B").statusCode());
+        assertEquals(405, post("/calculate", "text/plain", "").statusCode());
+    }
+
+    @Test
+    void testBatch() throws Exception {
+        assertEquals("3\n\nerror: Unexpected end of expression at position 3\n1024\n",
+                post("/batch", "text/plain", "1+2\n\n1 +\n2^10\n").body());
+
+        HttpResponse<String> json = post("/batch", "application/json", "[\"1+2\", \"1/0\", \"foo(1)\"]");
+        assertEquals(200, json.statusCode());
+        assertEquals("[{\"result\":3.0},{\"result\":\"Infinity\"},{\"error\":\"Unknown function 'foo' at position 0\"}]",
+                json.body());
+        assertEquals(400, post("/batch", "application/json", "{\"not\": \"an array\"}").statusCode());
+
+        HttpResponse<String> invalid = post("/batch", "application/json", "[\"1+2\", 42, \"3\", \"4\"]");
+        assertEquals("[{\"result\":3.0},{\"error\":\"Expected a string but found VALUE_NUMBER_INT\"}]",
+                invalid.body());
+        assertEquals("2\n", get("/evaluate?expr=2").body());
+    }
+
+    @Test
+    void testHugeExpressionsGetAnAnswer() throws Exception {
+        // just under the body limit, and far taller than the parser allows
+        String huge = "1" + "+1".repeat(30_000);
+
+        assertEquals(400, post("/evaluate", "text/plain", huge).statusCode());
+        String[] lines = post("/batch", "text/plain", "4\n" + huge + "\n5\n").body().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("4", lines[0]);
+        assertTrue(lines[1].startsWith("error: "), lines[1]);
+        assertEquals("5", lines[2]);
+        assertEquals("[{\"result\":4.0},{\"error\":\"Expression too long at position 4095\"},{\"result\":5.0}]",
+                post("/batch", "application/json", "[\"4\", \"" + huge + "\", \"5\"]").body());
+    }
+
+    @Test
+    void testRejectRequestsBeyondTheLimit() throws Exception {
+        CalculatorServer saturated = new CalculatorServer(0, 0);
+        saturated.start();
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + saturated.getPort() + "/evaluate?expr=1")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(503, response.statusCode());
+            assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+        } finally {
+            saturated.stop(0);
+        }
+    }
+
+    @Test
+    void testSlowRequestsDoNotBlockRejection() throws Exception {
+        int maxInFlight = 4;
+        CalculatorServer limited = new CalculatorServer(0, maxInFlight);
+        limited.start();
+        List<Socket> slow = new ArrayList<>();
+        try {
+            // chunked batches that never finish: they hold every permit, queued or running
+            for (int i = 0; i < maxInFlight; i++) {
+                Socket socket = new Socket("127.0.0.1", limited.getPort());
+                slow.add(socket);
+                OutputStream out = socket.getOutputStream();
+                out.write(("POST /batch HTTP/1.1\r\nHost: localhost\r\nContent-Type: text/plain\r\n"
+                        + "Transfer-Encoding: chunked\r\n\r\n4\r\n1+2\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (limited.getRequestsInFlight() < maxInFlight && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            assertEquals(maxInFlight, limited.getRequestsInFlight());
+
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + limited.getPort() + "/evaluate?expr=1"))
+                    .timeout(Duration.ofSeconds(5)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(503, response.statusCode());
+        } finally {
+            for (Socket socket : slow)
+                socket.close();
+            limited.stop(0);
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String contentType, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+}
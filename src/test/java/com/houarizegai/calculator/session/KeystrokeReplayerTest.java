@@ -0,0 +1,87 @@
+package com.houarizegai.calculator.session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeystrokeReplayerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "12+3=, 15",
+            "0.1+0.2=, 0.3",
+            "5*2==, 10",
+            "3+-4=, -1",
+            "2^10=, 1024",
+            "7%4=, 3",
+            "9√, 3",
+            "2l, 0.6931471805599453",
+            "1/0=, Infinity",
+            "12<, 1",
+            "12+3C, 0",
+            "1.5+.5=, 2",
+            "123456789012345678*3=, 370370367037037034",
+            "99999999^999999999=, Infinity",
+            "10^30=, 1E30"
+    })
+    void testKeypadFollowsTheButtons(String keys, String expectedDisplay) {
+        Keypad keypad = new Keypad();
+        for (char symbol : keys.toCharArray())
+            keypad.press(Key.ofSymbol(symbol));
+
+        assertEquals(expectedDisplay, keypad.getDisplay().toString());
+    }
+
+    @Test
+    void testReplayReproducesRecordedSession() throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        Keypad recorded = new Keypad();
+        try (KeystrokeRecorder recorder = new KeystrokeRecorder(trace, 0)) {
+            long time = 0;
+            for (char symbol : "44.5*10=".toCharArray()) {
+                Key key = Key.ofSymbol(symbol);
+                recorded.press(key);
+                recorder.record(key, time += 300);
+            }
+            recorded.load("2.5");
+            recorder.recordLoad("2.5", time += 20_000);
+            for (char symbol : "+1=".toCharArray()) {
+                Key key = Key.ofSymbol(symbol);
+                recorded.press(key);
+                recorder.record(key, time += 50);
+            }
+        }
+
+        byte[] bytes = trace.toByteArray();
+        // header, 8 keys with 2-byte delays, LOAD with a 3-byte delay and "2.5", 3 keys with 1-byte delays
+        assertEquals(5 + 8 * 3 + (1 + 3 + 1 + 3) + 3 * 2, bytes.length);
+
+        Keypad replayed = new Keypad();
+        assertEquals(12, KeystrokeReplayer.replay(ByteBuffer.wrap(bytes), replayed));
+        assertEquals("3.5", replayed.getDisplay().toString());
+        assertEquals(recorded.getDisplay().toString(), replayed.getDisplay().toString());
+    }
+
+    @Test
+    void testRejectCorruptTrace() throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        try (KeystrokeRecorder recorder = new KeystrokeRecorder(trace, 0)) {
+            recorder.record(Key.DIGIT_1, 1_000);
+        }
+        byte[] bytes = trace.toByteArray();
+
+        assertThrows(IOException.class, () -> KeystrokeReplayer.replay(
+                ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)), new Keypad()));
+        bytes[5] = 100;
+        assertThrows(IOException.class, () -> KeystrokeReplayer.replay(ByteBuffer.wrap(bytes), new Keypad()));
+        assertThrows(IOException.class, () -> KeystrokeReplayer.replay(ByteBuffer.wrap(new byte[8]), new Keypad()));
+    }
+}
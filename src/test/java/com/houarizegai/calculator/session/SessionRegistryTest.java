@@ -0,0 +1,90 @@
+package com.houarizegai.calculator.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionRegistryTest {
+
+    @Test
+    void testSessionsAreIndependent() throws Exception {
+        SessionRegistry registry = new SessionRegistry();
+        int sessions = 10_000;
+        long[] ids = new long[sessions];
+        for (int i = 0; i < sessions; i++)
+            ids[i] = registry.create().getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = thread; i < sessions; i += 8) {
+                        CalculatorSession session = registry.get(ids[i]);
+                        session.press(i + "+1");
+                        session.press(Key.EQUAL);
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < sessions; i++)
+            assertEquals(String.valueOf(i + 1), registry.get(ids[i]).display());
+        assertEquals(sessions, registry.size());
+    }
+
+    @Test
+    void testConcurrentKeysOnOneSessionAreNotLost() throws Exception {
+        CalculatorSession session = new CalculatorSession();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1_000; i++)
+                        session.press(Key.DIGIT_1);
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4_000, session.display().length());
+    }
+
+    @Test
+    void testRemoveSessions() {
+        SessionRegistry registry = new SessionRegistry();
+        CalculatorSession kept = registry.create();
+        CalculatorSession removed = registry.create();
+
+        assertTrue(registry.remove(removed.getId()));
+        assertFalse(registry.remove(removed.getId()));
+        assertNull(registry.get(removed.getId()));
+        assertSame(kept, registry.get(kept.getId()));
+
+        assertEquals(1, registry.removeIdle(0));
+        assertEquals(0, registry.size());
+        kept.press("5");
+        assertThrows(IllegalArgumentException.class, () -> kept.press("1x"));
+        assertEquals("5", kept.display());
+    }
+}
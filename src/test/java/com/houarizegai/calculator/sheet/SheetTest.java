@@ -0,0 +1,165 @@
+package com.houarizegai.calculator.sheet;
+
+import com.houarizegai.calculator.engine.ExpressionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SheetTest {
+
+    @Test
+    void testEditRecomputesOnlyDownstreamCells() {
+        Sheet sheet = new Sheet();
+        sheet.setValue("price", 100);
+        sheet.setValue("quantity", 3);
+        sheet.setValue("rate", 0.2);
+        sheet.define("net", "price * quantity");
+        sheet.define("tax", "net * rate");
+        sheet.define("total", "net + tax");
+        sheet.define("unrelated", "quantity ^ 2");
+
+        assertEquals(360, sheet.getValue("total"), 1e-9);
+        assertEquals(3, sheet.setValue("rate", 0.1));
+        assertEquals(330, sheet.getValue("total"), 1e-9);
+        assertEquals(5, sheet.setValue("quantity", 4));
+        assertEquals(440, sheet.getValue("total"), 1e-9);
+        assertEquals(16, sheet.getValue("unrelated"));
+    }
+
+    @Test
+    void testFormulaThatThrowsDoesNotLeaveCellsStale() throws InterruptedException {
+        Sheet sheet = new Sheet();
+        sheet.setValue("x", 0);
+        sheet.define("long", "x" + " + 1".repeat(2000));
+        sheet.define("short", "x * 2");
+        sheet.define("total", "long + short");
+
+        // on a small stack, evaluating the long chain overflows
+        Thread small = new Thread(null, () -> sheet.setValue("x", 1), "small-stack", 64 * 1024);
+        small.start();
+        small.join();
+        assertTrue(Double.isNaN(sheet.getValue("long")));
+        assertTrue(Double.isNaN(sheet.getValue("total")));
+        assertEquals(2, sheet.getValue("short"));
+
+        for (int x = 2; x < 5; x++) {
+            assertEquals(4, sheet.setValue("x", x));
+            assertEquals(x + 2000 + 2 * x, sheet.getValue("total"));
+        }
+    }
+
+    @Test
+    void testDiamondIsRecomputedOnceInTopologicalOrder() {
+        Sheet sheet = new Sheet();
+        sheet.define("a", "1");
+        sheet.define("b", "a + 1");
+        sheet.define("c", "a * 10");
+        sheet.define("d", "b + c");
+        sheet.define("e", "d - a");
+
+        assertEquals(5, sheet.define("a", "2"));
+        assertEquals(2 + 1 + 20 - 2, sheet.getValue("e"));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), sheet.getNames());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "a | a + 1 | Circular reference: a -> a",
+            "a | c * 2 | Circular reference: a -> c -> b -> a",
+            "b | c | Circular reference: b -> c -> b",
+    })
+    void testCyclesAreRejectedAndLeaveSheetUnchanged(String name, String expression, String message) {
+        Sheet sheet = new Sheet();
+        sheet.define("a", "5");
+        sheet.define("b", "a + 1");
+        sheet.define("c", "b * 2");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> sheet.define(name, expression));
+        assertEquals(message, e.getMessage());
+        assertEquals(12, sheet.getValue("c"));
+        assertEquals(3, sheet.define("a", "7"));
+        assertEquals(16, sheet.getValue("c"));
+    }
+
+    @Test
+    void testUndefinedNamesReadAsNaNUntilDefined() {
+        Sheet sheet = new Sheet();
+        sheet.define("area", "width * height");
+
+        assertTrue(Double.isNaN(sheet.getValue("area")));
+        assertFalse(sheet.isDefined("width"));
+        assertEquals(List.of("area"), sheet.getNames());
+
+        sheet.setValue("width", 3);
+        assertEquals(2, sheet.setValue("height", 4));
+        assertEquals(12, sheet.getValue("area"));
+
+        assertEquals(1, sheet.remove("height"));
+        assertTrue(Double.isNaN(sheet.getValue("area")));
+        assertNull(sheet.getExpression("height"));
+        assertEquals(0, sheet.remove("area"));
+        assertEquals(List.of("width"), sheet.getNames());
+        assertTrue(sheet.getDependents("width").isEmpty());
+        assertTrue(sheet.getDependents("height").isEmpty());
+    }
+
+    @Test
+    void testInvalidInputIsRejected() {
+        Sheet sheet = new Sheet();
+
+        assertThrows(IllegalArgumentException.class, () -> sheet.setValue("2x", 1));
+        assertThrows(IllegalArgumentException.class, () -> sheet.define("", "1"));
+        assertThrows(ExpressionException.class, () -> sheet.define("x", "1 +"));
+        assertTrue(sheet.getNames().isEmpty());
+    }
+
+    @Test
+    void testLongChainRecomputesFromTheEditOnly() {
+        Sheet sheet = new Sheet();
+        int length = 20_000;
+        sheet.setValue("c0", 1);
+        for (int i = 1; i < length; i++)
+            sheet.define("c" + i, "c" + (i - 1) + " + 1");
+
+        assertEquals(length, sheet.getValue("c" + (length - 1)));
+        assertEquals(11, sheet.setValue("c" + (length - 11), 0));
+        assertEquals(10, sheet.getValue("c" + (length - 1)));
+        // the cell set to a plain value no longer depends on the start of the chain
+        assertEquals(length - 11, sheet.setValue("c0", 2));
+        assertEquals(length - 10, sheet.getValue("c" + (length - 12)));
+        assertEquals(10, sheet.getValue("c" + (length - 1)));
+    }
+
+    @Test
+    void testWideWavesMatchSequentialEvaluation() {
+        Sheet sheet = new Sheet();
+        int width = Sheet.PARALLEL_WAVE * 8;
+        sheet.setValue("rate", 2);
+        StringBuilder sum = new StringBuilder("0");
+        for (int i = 0; i < width; i++) {
+            sheet.define("item" + i, i + " * rate");
+            sheet.define("line" + i, "item" + i + " + 1");
+            if (i % 64 == 0)
+                sum.append(" + line").append(i);
+        }
+        sheet.define("total", sum.toString());
+
+        assertEquals(2 * width + 2, sheet.setValue("rate", 3));
+        for (int i = 0; i < width; i += 97)
+            assertEquals(3.0 * i + 1, sheet.getValue("line" + i));
+        double expected = 0;
+        for (int i = 0; i < width; i += 64)
+            expected += 3.0 * i + 1;
+        assertEquals(expected, sheet.getValue("total"));
+    }
+}
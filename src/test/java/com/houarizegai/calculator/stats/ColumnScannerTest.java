@@ -0,0 +1,125 @@
+package com.houarizegai.calculator.stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnScannerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWelfordVarianceKeepsPrecisionWithALargeOffset() {
+        RunningStatistics statistics = new RunningStatistics();
+        for (double value : new double[]{4, 7, 13, 16})
+            statistics.add(1e9 + value);
+
+        assertEquals(4, statistics.getCount());
+        assertEquals(1e9 + 10, statistics.getMean());
+        assertEquals(30, statistics.getVariance());
+        assertEquals(22.5, statistics.getPopulationVariance());
+        assertEquals(1e9 + 4, statistics.getMin());
+        assertEquals(1e9 + 16, statistics.getMax());
+    }
+
+    @Test
+    void testCompensatedSumRecoversSmallTerms() {
+        RunningStatistics statistics = new RunningStatistics();
+        statistics.add(1e16);
+        for (int i = 0; i < 1000; i++)
+            statistics.add(1);
+        statistics.add(-1e16);
+
+        assertEquals(1000, statistics.getSum());
+    }
+
+    @Test
+    void testMergedSummariesMatchOnePass() {
+        Random random = new Random(42);
+        RunningStatistics whole = new RunningStatistics();
+        RunningStatistics[] parts = {new RunningStatistics(), new RunningStatistics(), new RunningStatistics()};
+        for (int i = 0; i < 300_000; i++) {
+            double value = random.nextGaussian() * 3 + 50;
+            whole.add(value);
+            parts[i % 7 == 0 ? 0 : i % 3 == 0 ? 1 : 2].add(value);
+        }
+        RunningStatistics merged = parts[0].merge(parts[1]).merge(parts[2]);
+
+        assertEquals(whole.getCount(), merged.getCount());
+        assertEquals(whole.getMean(), merged.getMean(), 1e-12);
+        assertEquals(whole.getVariance(), merged.getVariance(), 1e-9);
+        assertEquals(whole.getSum(), merged.getSum(), 1e-6);
+        assertEquals(whole.getMin(), merged.getMin());
+        assertEquals(whole.getMax(), merged.getMax());
+        assertEquals(50, merged.getMedian(), 0.1);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0.01", "0.25", "0.5", "0.9", "0.99"})
+    void testSketchRankErrorStaysSmall(double quantile) {
+        int n = 1_000_000;
+        KllSketch sketch = new KllSketch();
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++)
+            sketch.add(random.nextInt(n));
+
+        assertEquals(n, sketch.getCount());
+        assertEquals(quantile * n, sketch.getQuantile(quantile), 0.02 * n);
+        assertTrue(sketch.getRetained() < 1_000);
+    }
+
+    @Test
+    void testCsvColumnAcrossChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("id;name;value\r\n");
+        for (int i = 1; i <= 10_000; i++)
+            csv.append(i).append(";\"row ").append(i).append("\"; ").append(i % 2 == 0 ? i : -i).append("\r\n");
+        csv.append("\n10001;missing;NA\n10002;short\n10003;quoted;\"+2.5e1\"");
+        Path file = Files.write(directory.resolve("data.csv"), csv.toString().getBytes(StandardCharsets.US_ASCII));
+
+        ColumnScanner.Result result = new ColumnScanner(2, ';', 1000).scan(file);
+
+        RunningStatistics statistics = result.getStatistics();
+        assertEquals(10_001, statistics.getCount());
+        assertEquals(3, result.getSkipped());
+        assertEquals(5_000 + 25, statistics.getSum());
+        assertEquals(-9_999, statistics.getMin());
+        assertEquals(10_000, statistics.getMax());
+    }
+
+    @Test
+    void testBinaryDoublesSkipNaN() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1001 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 1; i <= 1000; i++)
+            buffer.putDouble(i);
+        buffer.putDouble(Double.NaN);
+        Path file = Files.write(directory.resolve("data.f64"), buffer.array());
+
+        ColumnScanner.Result result = new ColumnScanner(0, ',', 100).scan(file);
+
+        assertEquals(1000, result.getStatistics().getCount());
+        assertEquals(1, result.getSkipped());
+        assertEquals(500.5, result.getStatistics().getMean());
+        assertEquals(500_500, result.getStatistics().getSum());
+    }
+
+    @Test
+    void testTruncatedBinaryFileIsRejected() throws IOException {
+        Path file = Files.write(directory.resolve("broken.bin"), new byte[12]);
+
+        assertThrows(IOException.class, () -> new ColumnScanner(0, ',').scan(file));
+    }
+}
@@ -0,0 +1,43 @@
+package com.houarizegai.calculator.theme;
+
+import com.houarizegai.calculator.theme.properties.Theme;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ThemeLoaderTest {
+
+    @Test
+    void testLoadThemesFromClasspath() {
+        Map<String, Theme> themes = ThemeLoader.loadThemes();
+
+        assertEquals(Arrays.asList("Light", "Dark"), Arrays.asList(themes.keySet().toArray()));
+        assertEquals("0067c0", themes.get("Light").getBtnEqualBackground());
+    }
+
+    @Test
+    void testBinaryCacheRoundTrip() throws IOException {
+        Map<String, ThemePalette> compiled = ThemeLoader.loadPalettes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ThemeCache.write(compiled.values(), out);
+        Map<String, ThemePalette> read = ThemeCache.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(compiled.keySet(), read.keySet());
+        for (ThemePalette palette : compiled.values()) {
+            ThemePalette copy = read.get(palette.getName());
+            assertEquals(palette.getApplicationBackground(), copy.getApplicationBackground());
+            assertEquals(palette.getTextColor(), copy.getTextColor());
+            assertEquals(palette.getBtnEqualTextColor(), copy.getBtnEqualTextColor());
+            assertEquals(palette.getOperatorBackground(), copy.getOperatorBackground());
+            assertEquals(palette.getNumbersBackground(), copy.getNumbersBackground());
+            assertEquals(palette.getBtnEqualBackground(), copy.getBtnEqualBackground());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.houarizegai.calculator.ui;
+
+import com.houarizegai.calculator.theme.ThemePalette;
+import com.houarizegai.calculator.theme.properties.Theme;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import java.awt.Color;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ThemedComponentsTest {
+
+    @Test
+    void testPartialThemeKeepsMissingColors() {
+        ThemedComponents themedComponents = new ThemedComponents();
+        JLabel screen = themedComponents.register(ComponentRole.SCREEN, new JLabel());
+        JButton equal = themedComponents.register(ComponentRole.EQUAL, new JButton());
+        JPanel root = new JPanel();
+        screen.setBackground(Color.RED);
+        equal.setForeground(Color.BLUE);
+        root.setBackground(Color.GREEN);
+
+        Theme theme = new Theme();
+        theme.setName("Partial");
+        theme.setTextColor("FFFFFF");
+        theme.setBtnEqualBackground("000000");
+        themedComponents.apply(ThemePalette.compile(theme), root);
+
+        assertEquals(Color.WHITE, screen.getForeground());
+        assertEquals(Color.RED, screen.getBackground());
+        assertEquals(Color.BLUE, equal.getForeground());
+        assertEquals(Color.BLACK, equal.getBackground());
+        assertEquals(Color.GREEN, root.getBackground());
+    }
+}